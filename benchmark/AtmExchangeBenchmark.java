@@ -0,0 +1,271 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.montana.cerg.tempsignal.heat.Psychrometrics;
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.AirWaterFlux;
+
+/**
+ * JMH harnesses for the dynams of the mechanistic air-water exchange.
+ *
+ * <p>Each benchmark updates one dynam (including the dynams it registered)
+ * on every face of a network of {@link #FACES} faces, so the reported
+ * ns/op is the cost of one dynam update on one face. <code>chain</code>
+ * is the cost of one <code>Heat.calculate()</code> on one face, and
+ * <code>chainFused</code> the same for the fused behavior.
+ * <code>chainFusedInterval</code> is the fused behavior at a one-minute
+ * model step with a 15-minute <code>ExchangeInterval</code>, averaged over
+ * the steps between ticks and the ticks.</p>
+ *
+ * <p>Inputs are redrawn before each iteration so the per-face values are
+ * not constant across the network.</p>
+ *
+ * @see BenchmarkMain
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AtmExchangeBenchmark {
+
+    /**
+     * Number of faces in the benchmark network
+     */
+    public static final int FACES = 1024;
+
+    /**
+     * Model step of <code>chainFusedInterval</code> (sec)
+     */
+    public static final double STEP = 60;
+
+    /**
+     * Exchange interval of <code>chainFusedInterval</code> (sec)
+     */
+    public static final double EXCHANGE_INTERVAL = 900;
+
+    private double time;
+
+    private AtmExchangeChain[] faces;
+
+    /*
+     * Longwave inputs and results of every face, for the batched kernel
+     */
+    private final double[] emissivityWater = new double[FACES];
+    private final double[] tempWater = new double[FACES];
+    private final double[] emissivityAir = new double[FACES];
+    private final double[] tempAir = new double[FACES];
+    private final double[] fluxWater = new double[FACES];
+    private final double[] fluxAir = new double[FACES];
+
+    private final Random random = new Random(20120607L);
+
+    @Setup(Level.Trial)
+    public void createFaces()
+    {
+        faces = new AtmExchangeChain[FACES];
+        for (int i = 0; i < FACES; i++)
+        {
+            faces[i] = new AtmExchangeChain();
+            faces[i].setExchangeInterval(EXCHANGE_INTERVAL);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void drawInputs()
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.pressureAtm.value = 800 + 60 * random.nextDouble();
+            face.tempAirC.value = -5 + 35 * random.nextDouble();
+            face.tempAirK.value = face.tempAirC.value + 273.16;
+            face.vaporPressureAir.value = 2 + 15 * random.nextDouble();
+            face.emissivityAir.value = 1.72 * Math.pow(
+                    (0.1 * face.vaporPressureAir.value) / face.tempAirK.value, 1.0 / 7.0);
+            face.speedWind.value = 5 * random.nextDouble();
+            face.tempWaterC.value = 25 * random.nextDouble();
+            face.vaporPressureSat.value = 
+                    Psychrometrics.saturationVaporPressureExact(face.tempWaterC.value);
+            face.latentVapWater.value = Psychrometrics.ACCURATE.latentVap(face.tempWaterC.value);
+            face.areaWetted.value = 10 + 1000 * random.nextDouble();
+            face.shortwaveFluxSolar.value = random.nextDouble();
+        }
+        for (int i = 0; i < FACES; i++)
+        {
+            emissivityWater[i] = faces[i].emissivityWater.value;
+            tempWater[i] = faces[i].tempWaterC.value;
+            emissivityAir[i] = faces[i].emissivityAir.value;
+            tempAir[i] = faces[i].tempAirK.value;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void chain(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            blackhole.consume(face.calculate());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void chainFused(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            blackhole.consume(face.calculateFused());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void chainFusedInterval(Blackhole blackhole)
+    {
+        time += STEP;
+        for (AtmExchangeChain face: faces)
+        {
+            blackhole.consume(face.calculateFused(time));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void shortwaveNet(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.shortwaveNet.doUpdate();
+            blackhole.consume(face.shortwaveNet.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void longwaveNet(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.longwaveNet.doUpdate();
+            blackhole.consume(face.longwaveNet.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void longwaveFluxWater(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.longwaveFluxWater.doUpdate();
+            blackhole.consume(face.longwaveFluxWater.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void longwaveFluxAir(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.longwaveFluxAir.doUpdate();
+            blackhole.consume(face.longwaveFluxAir.state.value);
+        }
+    }
+
+    /**
+     * Both longwave fluxes of every face through the batched kernel, to
+     * compare with <code>longwaveFluxWater</code> plus <code>longwaveFluxAir</code>
+     */
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void longwaveBatch(Blackhole blackhole)
+    {
+        AirWaterFlux.longwaveFluxes(emissivityWater, tempWater, emissivityAir, tempAir,
+                fluxWater, fluxAir, 0, FACES);
+        blackhole.consume(fluxWater);
+        blackhole.consume(fluxAir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void heatLatentEvap(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.heatLatentEvap.doUpdate();
+            blackhole.consume(face.heatLatentEvap.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void evaporation(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.evaporation.doUpdate();
+            blackhole.consume(face.evaporation.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void heatSensible(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.heatSensible.doUpdate();
+            blackhole.consume(face.heatSensible.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void bowenRatio(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            face.bowenRatio.doUpdate();
+            blackhole.consume(face.bowenRatio.state.value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void saturationVaporPressure(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            blackhole.consume(Psychrometrics.ACCURATE.saturationVaporPressure(face.tempWaterC.value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FACES)
+    public void saturationVaporPressureTabulated(Blackhole blackhole)
+    {
+        for (AtmExchangeChain face: faces)
+        {
+            blackhole.consume(Psychrometrics.TABULATED.saturationVaporPressure(face.tempWaterC.value));
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.AirWaterFlux;
+import edu.montana.cerg.tempsignal.heat.signal.CoarseClock;
+
+/**
+ * Stand-in for the wiring of one face with the
+ * <code>heat.atmexchange.mechanistic</code> behavior.
+ *
+ * <p>Input states mirror the states the calculators read from the air cell,
+ * the water cell, the solar face and the exchange face. The dynams mirror
+ * the <code>ManualDynamDouble</code> registrations of the mechanistic
+ * <code>Heat</code>: each one updates the dynams it registered before
+ * reading their states, and delegates the arithmetic to
+ * {@link AirWaterFlux}, so kernel changes show up in the benchmarks.</p>
+ */
+public class AtmExchangeChain {
+
+    // States on the air cell
+    public final StubState pressureAtm = new StubState(850);
+    public final StubState tempAirC = new StubState(15);
+    public final StubState tempAirK = new StubState(288.16);
+    public final StubState emissivityAir = new StubState(0.8);
+    public final StubState vaporPressureAir = new StubState(9);
+    public final StubState speedWind = new StubState(2);
+
+    // States on the water cell
+    public final StubState tempWaterC = new StubState(12);
+    public final StubState emissivityWater = new StubState(0.97);
+    public final StubState vaporPressureSat = new StubState(14);
+    public final StubState latentVapWater = new StubState(2469.5);
+    public final StubState areaWetted = new StubState(100);
+
+    // States on the solar face and the exchange face
+    public final StubState shortwaveFluxSolar = new StubState(0.5);
+    public final StubState penmanInt = new StubState(0.132);
+    public final StubState penmanSlope = new StubState(0.14256);
+
+    public final ShortwaveFlux shortwaveFlux = new ShortwaveFlux();
+    public final ShortwaveNet shortwaveNet = new ShortwaveNet();
+    public final LongwaveFluxWater longwaveFluxWater = new LongwaveFluxWater();
+    public final LongwaveFluxAir longwaveFluxAir = new LongwaveFluxAir();
+    public final LongwaveNet longwaveNet = new LongwaveNet();
+    public final Evaporation evaporation = new Evaporation();
+    public final HeatLatentEvap heatLatentEvap = new HeatLatentEvap();
+    public final BowenRatio bowenRatio = new BowenRatio();
+    public final HeatSensible heatSensible = new HeatSensible();
+
+    private CoarseClock clock = new CoarseClock(0);
+    private double heldHeat;
+
+    /**
+     * Sets the exchange interval of {@link #calculateFused(double)}
+     *
+     * @param interval Interval between recomputations (sec), 0 for every call
+     */
+    public void setExchangeInterval(double interval)
+    {
+        clock = new CoarseClock(interval);
+    }
+
+    /**
+     * Mirrors <code>Heat.calculate()</code> of the mechanistic behavior
+     *
+     * @return Rate of net energy transfer (kJ sec<sup><small>-1</sup></small>)
+     */
+    public double calculate()
+    {
+        shortwaveNet.doUpdate();
+        longwaveNet.doUpdate();
+        heatLatentEvap.doUpdate();
+        heatSensible.doUpdate();
+        return areaWetted.value * (shortwaveNet.state.value + longwaveNet.state.value +
+                heatLatentEvap.state.value + heatSensible.state.value);
+    }
+
+    /**
+     * Mirrors <code>Heat.calculate()</code> of the fused behavior: one pass
+     * over the input states, publishing the four components
+     *
+     * @return Rate of net energy transfer (kJ sec<sup><small>-1</sup></small>)
+     */
+    public double calculateFused()
+    {
+        double tempWater = tempWaterC.value;
+        double vapAir = vaporPressureAir.value;
+        double vapSat = vaporPressureSat.value;
+
+        double swNet = shortwaveFluxSolar.value;
+        double lwNet = AirWaterFlux.longwaveNet(
+                AirWaterFlux.longwaveFluxAir(emissivityAir.value, tempAirK.value),
+                AirWaterFlux.longwaveFluxWater(emissivityWater.value, tempWater));
+        double latent = AirWaterFlux.heatLatentEvap(
+                AirWaterFlux.evaporation(penmanInt.value, penmanSlope.value, speedWind.value, vapAir, vapSat),
+                latentVapWater.value);
+        double sensible = AirWaterFlux.heatSensible(
+                AirWaterFlux.bowenRatio(pressureAtm.value, tempWater, tempAirC.value, vapSat, vapAir),
+                latent);
+
+        shortwaveNet.state.value = swNet;
+        longwaveNet.state.value = lwNet;
+        heatLatentEvap.state.value = latent;
+        heatSensible.state.value = sensible;
+        return areaWetted.value * (swNet + lwNet + latent + sensible);
+    }
+
+    /**
+     * Mirrors <code>Heat.calculate()</code> of the fused behavior with an
+     * exchange interval: the balance is recomputed on the ticks of the
+     * interval and held in between, where the components are left as they
+     * are (the recorded components then record the held values)
+     *
+     * @param time Simulation time (sec)
+     * @return Rate of net energy transfer (kJ sec<sup><small>-1</sup></small>)
+     */
+    public double calculateFused(double time)
+    {
+        if (clock.isDue(time))
+        {
+            heldHeat = calculateFused();
+        }
+        return heldHeat;
+    }
+
+    public class ShortwaveFlux extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            return shortwaveFluxSolar.value;
+        }
+    }
+
+    public class ShortwaveNet extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            shortwaveFlux.doUpdate();
+            return shortwaveFlux.state.value;
+        }
+    }
+
+    public class LongwaveFluxWater extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            return AirWaterFlux.longwaveFluxWater(emissivityWater.value, tempWaterC.value);
+        }
+    }
+
+    public class LongwaveFluxAir extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            return AirWaterFlux.longwaveFluxAir(emissivityAir.value, tempAirK.value);
+        }
+    }
+
+    public class LongwaveNet extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            longwaveFluxWater.doUpdate();
+            longwaveFluxAir.doUpdate();
+            return AirWaterFlux.longwaveNet(longwaveFluxAir.state.value, longwaveFluxWater.state.value);
+        }
+    }
+
+    public class Evaporation extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            return AirWaterFlux.evaporation(penmanInt.value, penmanSlope.value, speedWind.value,
+                    vaporPressureAir.value, vaporPressureSat.value);
+        }
+    }
+
+    public class HeatLatentEvap extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            evaporation.doUpdate();
+            return AirWaterFlux.heatLatentEvap(evaporation.state.value, latentVapWater.value);
+        }
+    }
+
+    public class BowenRatio extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            return AirWaterFlux.bowenRatio(pressureAtm.value, tempWaterC.value, tempAirC.value,
+                    vaporPressureSat.value, vaporPressureAir.value);
+        }
+    }
+
+    public class HeatSensible extends StubDynam {
+        @Override
+        public double calculate()
+        {
+            bowenRatio.doUpdate();
+            return AirWaterFlux.heatSensible(bowenRatio.state.value, heatLatentEvap.state.value);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark harnesses with the GC profiler attached, so each
+ * result reports allocation rate (<code>gc.alloc.rate.norm</code>, bytes/op)
+ * next to the ns/op score.
+ *
+ * <p>Usage: <code>BenchmarkMain [regex]</code>, where the optional regular
+ * expression selects benchmarks by name (defaults to all benchmarks in this
+ * package). The stand-ins replace the NEO wiring, so only the heat classes
+ * and <code>jmh-core</code> (with its annotation processor when compiling)
+ * are needed on the classpath.</p>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException
+    {
+        String include = args.length > 0 ? args[0] :
+                BenchmarkMain.class.getPackage().getName() + ".*";
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
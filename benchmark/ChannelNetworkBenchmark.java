@@ -0,0 +1,344 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetwork;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBuilder;
+
+/**
+ * JMH harnesses for one explicit step of advection along a chain of
+ * {@link #CELLS} cells, holon by holon, batched in a model, and in a
+ * standalone {@link ChannelNetwork}.
+ *
+ * <p><code>holon</code> updates the <code>Temp</code> of every cell, then
+ * the <code>Heat</code> of every face, through stand-ins that read their
+ * dependencies through state references as the channel and
+ * <code>channeltransport</code> behaviors do, then adds the face fluxes to
+ * the heat state of each cell as the model integrates the pools.
+ * <code>batched</code> does what the <code>ChannelNetworkBinding</code>
+ * does in that step: it gathers heat, water and discharge from the same
+ * states into the network arrays, converts and advects in array loops, and
+ * updates every batched dynam, which returns its element of the result
+ * arrays; the pools are integrated through the states as before.
+ * <code>network</code> is {@link ChannelNetwork#advance(double)}, where the
+ * pools stay in the arrays, as in the stepper, the ensembles and the
+ * periodic cycle. ns/op is the cost of one cell and the face into it.</p>
+ *
+ * <p>With <code>layout=shuffled</code> the holons are allocated in random
+ * order, as when the network file does not list the cells from upstream to
+ * downstream; with <code>ordered</code> they are allocated from upstream.</p>
+ *
+ * @see BenchmarkMain
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChannelNetworkBenchmark {
+
+    /**
+     * Number of cells in the benchmark network
+     */
+    public static final int CELLS = 65536;
+
+    /**
+     * Timestep (sec)
+     */
+    public static final double DT = 60;
+
+    @Param({"ordered", "shuffled"})
+    public String layout;
+
+    /*
+     * Holon stand-ins, in network order
+     */
+    private StubState[] heat;
+    private StubState[] water;
+    private StubState[] discharge;
+    private CellTemp[] cellTemps;
+    private FaceHeat[] faceHeats;
+    private BatchedTemp[] batchedTemps;
+    private BatchedFaceHeat[] batchedFaceHeats;
+
+    private ChannelNetwork network;
+
+    /**
+     * Network of the <code>network</code> benchmark, whose pools stay in the arrays
+     */
+    private ChannelNetwork standalone;
+
+    @Setup(Level.Trial)
+    public void createNetwork()
+    {
+        Random random = new Random(20120607L);
+        int[] order = new int[CELLS];
+        for (int c = 0; c < CELLS; c++)
+        {
+            order[c] = c;
+        }
+        if (layout.equals("shuffled"))
+        {
+            for (int c = CELLS - 1; c > 0; c--)
+            {
+                int k = random.nextInt(c + 1);
+                int swap = order[c];
+                order[c] = order[k];
+                order[k] = swap;
+            }
+        }
+
+        heat = new StubState[CELLS];
+        water = new StubState[CELLS];
+        cellTemps = new CellTemp[CELLS];
+        for (int k = 0; k < CELLS; k++)
+        {
+            int c = order[k];
+            water[c] = new StubState(100 + 900 * random.nextDouble());
+            heat[c] = new StubState(water[c].value * HeatCurrency.SP_HEAT_WATER_10 *
+                    HeatCurrency.DENSITY_WATER_10 * (273.15 + 25 * random.nextDouble()));
+            cellTemps[c] = new CellTemp(heat[c], water[c]);
+        }
+        discharge = new StubState[CELLS - 1];
+        faceHeats = new FaceHeat[CELLS - 1];
+        for (int k = 0; k < CELLS; k++)
+        {
+            int f = order[k] - 1;
+            if (f >= 0)
+            {
+                discharge[f] = new StubState(random.nextDouble());
+                faceHeats[f] = new FaceHeat(discharge[f], cellTemps[f].state, cellTemps[f + 1].state);
+            }
+        }
+
+        ChannelNetworkBuilder builder = new ChannelNetworkBuilder();
+        for (int c = 0; c < CELLS; c++)
+        {
+            builder.addCell();
+        }
+        for (int f = 0; f < CELLS - 1; f++)
+        {
+            builder.addFace(f, f + 1);
+        }
+        network = builder.build();
+        Arrays.fill(network.getSpHeat(), HeatCurrency.SP_HEAT_WATER_10);
+        Arrays.fill(network.getDensity(), HeatCurrency.DENSITY_WATER_10);
+        batchedTemps = new BatchedTemp[CELLS];
+        for (int k = 0; k < CELLS; k++)
+        {
+            int c = order[k];
+            batchedTemps[c] = new BatchedTemp(network.getTemp(), builder.getCellIndex(c));
+        }
+        batchedFaceHeats = new BatchedFaceHeat[CELLS - 1];
+        for (int k = 0; k < CELLS; k++)
+        {
+            int f = order[k] - 1;
+            if (f >= 0)
+            {
+                batchedFaceHeats[f] = new BatchedFaceHeat(network.getFaceHeat(), builder.getFaceIndex(f));
+            }
+        }
+
+        standalone = network.createMember();
+        for (int c = 0; c < CELLS; c++)
+        {
+            standalone.getHeat()[builder.getCellIndex(c)] = heat[c].value;
+            standalone.getWater()[builder.getCellIndex(c)] = water[c].value;
+        }
+        for (int f = 0; f < CELLS - 1; f++)
+        {
+            standalone.getDischarge()[builder.getFaceIndex(f)] = discharge[f].value;
+        }
+        standalone.computeTemps();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void holon(Blackhole blackhole)
+    {
+        for (CellTemp temp: cellTemps)
+        {
+            temp.doUpdate();
+        }
+        for (FaceHeat face: faceHeats)
+        {
+            face.doUpdate();
+        }
+        integrate(faceHeats);
+        blackhole.consume(heat[CELLS - 1].value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void batched(Blackhole blackhole)
+    {
+        double[] cellHeat = network.getHeat();
+        double[] cellWater = network.getWater();
+        for (int c = 0; c < CELLS; c++)
+        {
+            cellHeat[c] = heat[c].value;
+            cellWater[c] = water[c].value;
+        }
+        network.computeTemps();
+        for (BatchedTemp temp: batchedTemps)
+        {
+            temp.doUpdate();
+        }
+        double[] faceDischarge = network.getDischarge();
+        for (int f = 0; f < CELLS - 1; f++)
+        {
+            faceDischarge[f] = discharge[f].value;
+        }
+        network.computeAdvection();
+        for (BatchedFaceHeat face: batchedFaceHeats)
+        {
+            face.doUpdate();
+        }
+        integrate(batchedFaceHeats);
+        blackhole.consume(heat[CELLS - 1].value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void network(Blackhole blackhole)
+    {
+        standalone.advance(DT);
+        blackhole.consume(standalone.getTemp()[CELLS - 1]);
+    }
+
+    /**
+     * Adds the face fluxes to the heat states, as the model integrates the pools
+     */
+    private void integrate(StubDynam[] faces)
+    {
+        for (int c = 0; c < CELLS; c++)
+        {
+            double net = 0;
+            if (c > 0)
+            {
+                net += faces[c - 1].state.value;
+            }
+            if (c < CELLS - 1)
+            {
+                net -= faces[c].state.value;
+            }
+            heat[c].value += DT * net;
+        }
+    }
+
+    /**
+     * Mirrors <code>Temp</code> of the channel behavior with the default density
+     */
+    static class CellTemp extends StubDynam {
+
+        private final StubState heat;
+        private final StubState water;
+        private final double spHeat = HeatCurrency.SP_HEAT_WATER_10;
+
+        CellTemp(StubState heat, StubState water)
+        {
+            this.heat = heat;
+            this.water = water;
+        }
+
+        @Override
+        public double calculate()
+        {
+            return (heat.value / (water.value * spHeat * HeatCurrency.DENSITY_WATER_10)) - 273.15;
+        }
+
+    }
+
+    /**
+     * Mirrors <code>Heat</code> of the channeltransport behavior with the default density
+     */
+    static class FaceHeat extends StubDynam {
+
+        private final StubState water;
+        private final StubState fromTemp;
+        private final StubState toTemp;
+        private final double fromSpHeat = HeatCurrency.SP_HEAT_WATER_10;
+        private final double toSpHeat = HeatCurrency.SP_HEAT_WATER_10;
+
+        FaceHeat(StubState water, StubState fromTemp, StubState toTemp)
+        {
+            this.water = water;
+            this.fromTemp = fromTemp;
+            this.toTemp = toTemp;
+        }
+
+        @Override
+        public double calculate()
+        {
+            if (water.value > 0)
+                return water.value * (fromTemp.value + 273.15) * fromSpHeat * HeatCurrency.DENSITY_WATER_10;
+            else
+                return water.value * (toTemp.value + 273.15) * toSpHeat * HeatCurrency.DENSITY_WATER_10;
+        }
+
+    }
+
+    /**
+     * Mirrors the batched <code>Temp</code>, which returns its element of the network
+     */
+    static class BatchedTemp extends StubDynam {
+
+        private final double[] temp;
+        private final int cell;
+
+        BatchedTemp(double[] temp, int cell)
+        {
+            this.temp = temp;
+            this.cell = cell;
+        }
+
+        @Override
+        public double calculate()
+        {
+            return temp[cell];
+        }
+
+    }
+
+    /**
+     * Mirrors the batched <code>channeltransport</code> face
+     */
+    static class BatchedFaceHeat extends StubDynam {
+
+        private final double[] faceHeat;
+        private final int face;
+
+        BatchedFaceHeat(double[] faceHeat, int face)
+        {
+            this.faceHeat = faceHeat;
+            this.face = face;
+        }
+
+        @Override
+        public double calculate()
+        {
+            return faceHeat[face];
+        }
+
+    }
+
+}
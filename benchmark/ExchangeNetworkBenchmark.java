@@ -0,0 +1,159 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetwork;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBuilder;
+import edu.montana.cerg.tempsignal.heat.network.ExchangeNetwork;
+
+/**
+ * JMH harness for one explicit step of advection and exchange in an
+ * {@link ExchangeNetwork} of {@link #CELLS} channel cells, each with an
+ * atmosphere face, a bed face into its own hyporheic cell and a
+ * groundwater face under that cell.
+ *
+ * <p><code>serial</code> is {@link ExchangeNetwork#advance(double)};
+ * <code>parallel</code> is
+ * {@link ExchangeNetwork#advance(double, ForkJoinPool)} on a pool of
+ * <code>threads</code> workers, which gives the same values. ns/op is the
+ * cost of one channel cell with its three exchange faces; the scaling of
+ * the flux and reduction phases is the ratio of the two across
+ * <code>threads</code>, and is only meaningful with at least that many
+ * cores.</p>
+ *
+ * @see BenchmarkMain
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ExchangeNetworkBenchmark {
+
+    /**
+     * Number of channel cells in the benchmark network
+     */
+    public static final int CELLS = 65536;
+
+    /**
+     * Timestep (sec)
+     */
+    public static final double DT = 60;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int threads;
+
+    private ExchangeNetwork exchange;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void createNetwork()
+    {
+        Random random = new Random(20120607L);
+        ChannelNetworkBuilder builder = new ChannelNetworkBuilder();
+        for (int c = 0; c < CELLS; c++)
+        {
+            builder.addCell();
+        }
+        int inflow = builder.addFace(ChannelNetwork.BOUNDARY, 0);
+        for (int c = 1; c < CELLS; c++)
+        {
+            builder.addFace(c - 1, c);
+        }
+        int outflow = builder.addFace(ChannelNetwork.BOUNDARY, CELLS - 1);
+        ChannelNetwork channel = builder.build();
+        Arrays.fill(channel.getSpHeat(), HeatCurrency.SP_HEAT_WATER_10);
+        Arrays.fill(channel.getDensity(), HeatCurrency.DENSITY_WATER_10);
+        Arrays.fill(channel.getDischarge(), 0.5);
+        channel.getDischarge()[builder.getFaceIndex(outflow)] = -0.5;
+        channel.getBoundaryTemp()[builder.getFaceIndex(inflow)] = 15;
+        for (int c = 0; c < CELLS; c++)
+        {
+            channel.getWater()[c] = 50 + 100 * random.nextDouble();
+            channel.getTemp()[c] = 5 + 15 * random.nextDouble();
+        }
+        channel.computeHeats();
+
+        // Node 0 is the atmosphere, node 1 groundwater, then a hyporheic
+        // cell under each channel cell
+        int atmosphere = CELLS;
+        int ground = CELLS + 1;
+        int[] from = new int[3 * CELLS];
+        int[] to = new int[3 * CELLS];
+        for (int c = 0; c < CELLS; c++)
+        {
+            int hyporheic = CELLS + 2 + c;
+            from[3 * c] = atmosphere;
+            to[3 * c] = c;
+            from[3 * c + 1] = c;
+            to[3 * c + 1] = hyporheic;
+            from[3 * c + 2] = hyporheic;
+            to[3 * c + 2] = ground;
+        }
+        exchange = new ExchangeNetwork(channel, 2 + CELLS, from, to);
+        exchange.getNodeTemp()[0] = 25;
+        exchange.getNodeTemp()[1] = 8;
+        for (int c = 0; c < CELLS; c++)
+        {
+            double volume = 1 + 30 * random.nextDouble();
+            double capacity = volume * 0.3 * 1000 * 4.18 + volume * 0.7 * 2650 * 0.8;
+            exchange.getNodeCapacity()[2 + c] = capacity;
+            exchange.getNodeHeat()[2 + c] = capacity * (10 + 273.15);
+            exchange.getThermCondEff()[3 * c] = 0.02;
+            exchange.getArea()[3 * c] = 100;
+            for (int f = 3 * c + 1; f <= 3 * c + 2; f++)
+            {
+                exchange.getThermCondEff()[f] = 0.002;
+                exchange.getArea()[f] = 80;
+                exchange.getVolume()[f] = volume;
+            }
+        }
+        exchange.computeNodeTemps();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void serial(Blackhole blackhole)
+    {
+        exchange.advance(DT);
+        blackhole.consume(exchange.getChannel().getTemp()[CELLS - 1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void parallel(Blackhole blackhole)
+    {
+        exchange.advance(DT, pool);
+        blackhole.consume(exchange.getChannel().getTemp()[CELLS - 1]);
+    }
+
+}
@@ -0,0 +1,22 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+/**
+ * Stand-in for a NEO <code>ManualDynamDouble</code>: <code>doUpdate()</code>
+ * dispatches virtually to <code>calculate()</code> and publishes the result
+ * to the state owned by the dynam.
+ */
+public abstract class StubDynam {
+
+    /**
+     * State controlled by this dynam
+     */
+    public final StubState state = new StubState(0);
+
+    public abstract double calculate();
+
+    public void doUpdate()
+    {
+        state.value = calculate();
+    }
+
+}
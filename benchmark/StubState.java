@@ -0,0 +1,20 @@
+package edu.montana.cerg.tempsignal.benchmark;
+
+/**
+ * Stand-in for a NEO <code>StateDouble</code>: a mutable holder whose value
+ * is read through a field dereference, as the dynams read their
+ * dependencies.
+ */
+public class StubState {
+
+    /**
+     * Current value of the state
+     */
+    public double value;
+
+    public StubState(double value)
+    {
+        this.value = value;
+    }
+
+}
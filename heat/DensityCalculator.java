@@ -2,6 +2,15 @@ package edu.montana.cerg.tempsignal.heat;
 
 import org.neosimulation.neo.framework.stateval.StateDouble;
 
+/**
+ * Supplies the density of water, and converts between temperature and heat
+ * content of a volume of water.
+ * 
+ * <p>The default calculator uses {@link HeatCurrency#DENSITY_WATER_10},
+ * {@link StateDensityCalculator} uses a density state, and
+ * {@link TableDensityCalculator} uses temperature-dependent density and
+ * specific heat from {@link WaterProperties}.</p>
+ */
 public  class DensityCalculator {
     
     public static DensityCalculator createDensityCalculator(StateDouble density)
@@ -11,10 +20,54 @@ public  class DensityCalculator {
         else
             return new StateDensityCalculator(density);
     }
+    
+    /**
+     * Creates a calculator, optionally using the equation of state tables
+     * 
+     * @param density Density state, or null for the default density
+     * @param equationOfState If true, density and specific heat come from 
+     *          the {@link WaterProperties} tables and the density state is ignored
+     * @return Density calculator
+     */
+    public static DensityCalculator createDensityCalculator(StateDouble density, 
+            boolean equationOfState)
+    {
+        if (equationOfState)
+            return TableDensityCalculator.getInstance();
+        else
+            return createDensityCalculator(density);
+    }
 
 	public double getDensity()
 	{
 	    return HeatCurrency.DENSITY_WATER_10;
 	}
+	
+	/**
+	 * Heat content of a volume of water, relative to 0 K
+	 * 
+	 * @param water Volume (or volumetric rate) of water
+	 * @param temp Water temperature (&deg;C)
+	 * @param spHeat Specific heat (kJ kg<sup><small>-1</small></sup> K<sup><small>-1</small></sup>)
+	 * @return Heat (or rate of heat) in kJ per unit of water
+	 */
+	public double getHeat(double water, double temp, double spHeat)
+	{
+	    return water * (temp + 273.15) * spHeat * getDensity();
+	}
+	
+	/**
+	 * Temperature of a volume of water with a given heat content, the 
+	 * inverse of {@link #getHeat(double, double, double)}
+	 * 
+	 * @param heat Heat content (kJ)
+	 * @param water Volume of water (m<sup><small>3</small></sup>)
+	 * @param spHeat Specific heat (kJ kg<sup><small>-1</small></sup> K<sup><small>-1</small></sup>)
+	 * @return Water temperature (&deg;C)
+	 */
+	public double getTemp(double heat, double water, double spHeat)
+	{
+	    return (heat / (water * spHeat * getDensity())) - 273.15;
+	}
 
 }
@@ -0,0 +1,92 @@
+package edu.montana.cerg.tempsignal.heat;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.stateval.StateVal;
+
+/**
+ * Resolves optional states (SpHeat, Density, ExtDensity, CellDensity, ...)
+ * through a per-holon presence index.
+ * 
+ * <p>NEO only reports a missing state by throwing from
+ * <code>getStateVal</code>. The index records the outcome of the first
+ * lookup of each state name on each holon, present or absent, so the
+ * several dynams that ask a cell for the same optional state during
+ * wiring (the cell itself, every transport face on either side, boundary
+ * faces) share one lookup and at most one exception per holon and name.
+ * Holons and states are weakly referenced (a state refers back to its
+ * holon, so a strongly held state would keep its holon as a key forever),
+ * and the index does not outlive the model.</p>
+ */
+public class OptionalStates {
+
+    private static final Map<Holon, Map<String, WeakReference<StateVal>>> index = 
+            new WeakHashMap<Holon, Map<String, WeakReference<StateVal>>>();
+
+    /**
+     * Checks if a holon has a state
+     * 
+     * @param holon Holon to check
+     * @param name Name of the state
+     * @return true if the state exists in the holon
+     */
+    public static boolean has(Holon holon, String name)
+    {
+        return find(holon, name) != null;
+    }
+
+    /**
+     * Gets an optional state from a holon
+     * 
+     * @param holon Holon to check
+     * @param name Name of the state
+     * @return The state, or null if it does not exist in the holon
+     */
+    public static synchronized StateVal find(Holon holon, String name)
+    {
+        Map<String, WeakReference<StateVal>> states = index.get(holon);
+        if (states == null)
+        {
+            states = new HashMap<String, WeakReference<StateVal>>();
+            index.put(holon, states);
+        }
+        WeakReference<StateVal> known = states.get(name);
+        if (known != null)
+        {
+            // The state is reachable through its holon, so it is only
+            // null here if the holon does not have it
+            return known.get();
+        }
+        StateVal state;
+        try
+        {
+            state = holon.getStateVal(name);
+        }
+        catch (Exception e)
+        {
+            state = null;
+        }
+        states.put(name, new WeakReference<StateVal>(state));
+        return state;
+    }
+
+    /**
+     * Gets the current value of an optional state
+     * 
+     * @param holon Holon to check
+     * @param name Name of the state
+     * @param defaultValue Value to use if the state does not exist
+     * @return Value of the state, or the default value
+     */
+    public static double getValue(Holon holon, String name, double defaultValue)
+    {
+        StateVal state = find(holon, name);
+        return state == null ? defaultValue : ((StateDouble)state).value;
+    }
+
+}
@@ -0,0 +1,216 @@
+package edu.montana.cerg.tempsignal.heat;
+
+import org.neosimulation.neo.framework.holon.Holon;
+
+/**
+ * Saturation vapor pressure, its slope, and the latent heat of
+ * vaporization of water, shared by the dynams of the air-water exchange.
+ * 
+ * <p>The accurate mode evaluates the Magnus-type expression of Murray
+ * (1967), e<sub>s</sub> = 6.1275&middot;exp(17.2693882&middot;T/(T + 237.3))
+ * mbar. The tabulated mode interpolates a piecewise cubic Hermite table
+ * of the same expression on a uniform grid from {@link #TEMP_MIN} to
+ * {@link #TEMP_MAX} &deg;C, which costs one multiply, a truncation and a
+ * cubic instead of an exp and a division. Its error is below
+ * {@link #TABLE_ERROR_BOUND} of e<sub>s</sub> and below
+ * {@link #TABLE_SLOPE_ERROR_BOUND} of the slope (relative, checked against
+ * the accurate mode every 0.001 &deg;C); outside the grid it falls
+ * back to the accurate mode.</p>
+ * 
+ * <p>The mode of a dynam is the tabulated one if its holon has a nonzero
+ * {@link #OPT_STATE_TABULATED} state.</p>
+ * 
+ * <p><b>References:</b></p>
+ * <ul style="list-style-type: none; line-height: 200%">
+ * <li>Murray, F. W. (1967) On the computation of saturation vapour pressure. 
+ * 		Journal of Applied Meteorology 6(1), 203-204.</li>
+ * <li>Evans, E. C., G. R. McGregor, and G. E. Petts (1998) River energy budgets with special reference to 
+ * 		river bed processes. Hydrological Processes 12, 575-595.</li>
+ * </ul>
+ */
+public abstract class Psychrometrics {
+
+    /**
+     * Name of the optional state that selects the tabulated mode when nonzero
+     */
+    public static final String OPT_STATE_TABULATED = "TabulatedPsychrometrics";
+
+    /**
+     * Lower end of the table (&deg;C)
+     */
+    public static final double TEMP_MIN = -40;
+
+    /**
+     * Upper end of the table (&deg;C)
+     */
+    public static final double TEMP_MAX = 50;
+
+    /**
+     * Spacing of the table (&deg;C)
+     */
+    public static final double TEMP_STEP = 0.25;
+
+    /**
+     * Bound on the relative error of the tabulated saturation vapor pressure
+     */
+    public static final double TABLE_ERROR_BOUND = 1e-9;
+
+    /**
+     * Bound on the relative error of the tabulated slope of saturation vapor pressure
+     */
+    public static final double TABLE_SLOPE_ERROR_BOUND = 1e-7;
+
+    private static final double A = 6.1275;
+    private static final double B = 17.2693882;
+    private static final double C = 237.3;
+
+    /**
+     * Evaluates the expression at every call
+     */
+    public static final Psychrometrics ACCURATE = new Psychrometrics() {
+        @Override
+        public double saturationVaporPressure(double temp)
+        {
+            return saturationVaporPressureExact(temp);
+        }
+
+        @Override
+        public double saturationVaporPressureSlope(double temp)
+        {
+            return saturationVaporPressureSlopeExact(temp);
+        }
+    };
+
+    /**
+     * Interpolates the table
+     */
+    public static final Psychrometrics TABULATED = new Psychrometrics() {
+
+        private final int segments = (int)Math.round((TEMP_MAX - TEMP_MIN) / TEMP_STEP);
+
+        private final double invStep = 1 / TEMP_STEP;
+
+        /**
+         * Coefficients of the cubic of segment i, in powers of the distance
+         * from its lower node (&deg;C), at [4i] to [4i + 3]
+         */
+        private final double[] coefficients = createTable(segments);
+
+        @Override
+        public double saturationVaporPressure(double temp)
+        {
+            double x = (temp - TEMP_MIN) * invStep;
+            if (!(x >= 0 && x < segments))
+            {
+                return saturationVaporPressureExact(temp);
+            }
+            int i = (int)x;
+            double u = temp - (TEMP_MIN + i * TEMP_STEP);
+            int c = 4 * i;
+            return coefficients[c] + u * (coefficients[c + 1] + 
+                    u * (coefficients[c + 2] + u * coefficients[c + 3]));
+        }
+
+        @Override
+        public double saturationVaporPressureSlope(double temp)
+        {
+            double x = (temp - TEMP_MIN) * invStep;
+            if (!(x >= 0 && x < segments))
+            {
+                return saturationVaporPressureSlopeExact(temp);
+            }
+            int i = (int)x;
+            double u = temp - (TEMP_MIN + i * TEMP_STEP);
+            int c = 4 * i;
+            return coefficients[c + 1] + u * (2 * coefficients[c + 2] + u * 3 * coefficients[c + 3]);
+        }
+    };
+
+    /**
+     * Builds the cubic Hermite table, matching value and slope of the
+     * expression at every node
+     */
+    private static double[] createTable(int segments)
+    {
+        double[] coefficients = new double[4 * segments];
+        double h = TEMP_STEP;
+        for (int i = 0; i < segments; i++)
+        {
+            double t0 = TEMP_MIN + i * h;
+            double t1 = TEMP_MIN + (i + 1) * h;
+            double f0 = saturationVaporPressureExact(t0);
+            double f1 = saturationVaporPressureExact(t1);
+            double d0 = saturationVaporPressureSlopeExact(t0);
+            double d1 = saturationVaporPressureSlopeExact(t1);
+            double delta = (f1 - f0) / h;
+            coefficients[4 * i] = f0;
+            coefficients[4 * i + 1] = d0;
+            coefficients[4 * i + 2] = (3 * delta - 2 * d0 - d1) / h;
+            coefficients[4 * i + 3] = (d0 + d1 - 2 * delta) / (h * h);
+        }
+        return coefficients;
+    }
+
+    /**
+     * Gets the mode used by the dynams of a holon
+     * 
+     * @param holon Holon of the dynam
+     * @return Tabulated mode if the holon asks for it, accurate mode otherwise
+     */
+    public static Psychrometrics getInstance(Holon holon)
+    {
+        return OptionalStates.getValue(holon, OPT_STATE_TABULATED, 0) != 0 ? TABULATED : ACCURATE;
+    }
+
+    /**
+     * Gets the saturation vapor pressure over water
+     * 
+     * @param temp Temperature (&deg;C)
+     * @return Saturation vapor pressure (mbar)
+     */
+    public abstract double saturationVaporPressure(double temp);
+
+    /**
+     * Gets the slope of the saturation vapor pressure with temperature
+     * 
+     * @param temp Temperature (&deg;C)
+     * @return Slope (mbar &deg;C<sup><small>-1</small></sup>)
+     */
+    public abstract double saturationVaporPressureSlope(double temp);
+
+    /**
+     * Gets the latent heat of vaporization of water (Evans et al. 1998);
+     * linear in temperature, so the same in both modes
+     * 
+     * @param temp Water temperature (&deg;C)
+     * @return Latent heat of vaporization (kJ kg<sup><small>-1</small></sup>)
+     */
+    public double latentVap(double temp)
+    {
+        return 2499.64 - (2.51 * temp);
+    }
+
+    /**
+     * Evaluates the saturation vapor pressure expression
+     * 
+     * @param temp Temperature (&deg;C)
+     * @return Saturation vapor pressure (mbar)
+     */
+    public static double saturationVaporPressureExact(double temp)
+    {
+        return A * Math.exp(B * (temp / (temp + C)));
+    }
+
+    /**
+     * Evaluates the derivative of the saturation vapor pressure expression
+     * 
+     * @param temp Temperature (&deg;C)
+     * @return Slope (mbar &deg;C<sup><small>-1</small></sup>)
+     */
+    public static double saturationVaporPressureSlopeExact(double temp)
+    {
+        double denominator = temp + C;
+        return saturationVaporPressureExact(temp) * (B * C / (denominator * denominator));
+    }
+
+}
@@ -0,0 +1,43 @@
+package edu.montana.cerg.tempsignal.heat;
+
+/**
+ * Equation of state calculator: density and specific heat depend on
+ * temperature and are read from the {@link WaterProperties} tables.
+ * Heat is the tabulated enthalpy {@link WaterProperties#heatContent(double)}.
+ * The specific heat passed to {@link #getHeat(double, double, double)} and
+ * {@link #getTemp(double, double, double)} is ignored; channel cells warn
+ * when a SpHeat state is configured together with EquationOfState.
+ * 
+ * <p>The calculator holds no state, so one instance is shared.</p>
+ */
+public class TableDensityCalculator extends DensityCalculator {
+    
+    private static final TableDensityCalculator instance = new TableDensityCalculator();
+    
+    public static TableDensityCalculator getInstance()
+    {
+        return instance;
+    }
+    
+    /**
+     * Density at 10 &deg;C, for callers without a temperature
+     */
+    @Override
+    public double getDensity()
+    {
+        return WaterProperties.density(10);
+    }
+    
+    @Override
+    public double getHeat(double water, double temp, double spHeat)
+    {
+        return water * WaterProperties.heatContent(temp);
+    }
+    
+    @Override
+    public double getTemp(double heat, double water, double spHeat)
+    {
+        return WaterProperties.tempFromHeatContent(heat / water);
+    }
+
+}
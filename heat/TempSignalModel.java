@@ -9,6 +9,9 @@ import org.neosimulation.neo.user.NEORuntime;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import edu.montana.cerg.tempsignal.heat.checkpoint.CheckpointRecorder;
+import edu.montana.cerg.tempsignal.heat.output.OutputRecorder;
+
 public class TempSignalModel extends NEORuntime {
 
     public TempSignalModel(String[] args) throws NEOException
@@ -60,6 +63,8 @@ public class TempSignalModel extends NEORuntime {
             e.printStackTrace();
             System.exit(-1);
         }
+        OutputRecorder.closeAll();
+        CheckpointRecorder.closeAll();
     }
     
 }
@@ -0,0 +1,245 @@
+package edu.montana.cerg.tempsignal.heat;
+
+/**
+ * Temperature-dependent density and specific heat of liquid water from
+ * precomputed lookup tables.
+ * 
+ * <p>The tables are evaluated once, on a uniform grid from
+ * {@link #TEMP_MIN} to {@link #TEMP_MAX} &deg;C, and read with linear
+ * interpolation, so a lookup costs one multiply, a truncation and one
+ * interpolation instead of a polynomial. Density and specific heat are
+ * held at the end values outside the grid.</p>
+ * 
+ * <p>The heat content per unit volume is the enthalpy
+ * H(T) = H(T<sub>min</sub>) + &int;&rho;(T)c<sub>p</sub>(T) dT, integrated
+ * from {@link #TEMP_MIN} over each segment of the grid (Simpson's rule on
+ * the property equations). The constant of integration is chosen so that
+ * H equals the heat of water with the default constant properties,
+ * (T + 273.15)&middot;{@link HeatCurrency#SP_HEAT_WATER_10}&middot;{@link HeatCurrency#DENSITY_WATER_10},
+ * at {@link #REFERENCE_TEMP}. Heat advected between a cell on the tables
+ * and a cell with the default constant properties then means the same
+ * temperature on both sides at the reference temperature, and differs by
+ * the integral of the difference of the heat capacities elsewhere (under
+ * 0.1 &deg;C of equivalent temperature from 0 to 30 &deg;C) rather than by
+ * the 1.6 &deg;C an anchor at 0 K would give. The slope of H is
+ * &rho;c<sub>p</sub>, so a heat flux warms a cell at the rate of its
+ * actual heat capacity. H is interpolated linearly
+ * and extended linearly outside the grid;
+ * {@link #tempFromHeatContent(double)} is the exact inverse of the
+ * interpolated {@link #heatContent(double)}, so a channel cell's
+ * temperature and heat pool stay consistent, and
+ * {@link #heatCapacity(double)} is its slope.</p>
+ * 
+ * <p><b>References:</b></p>
+ * <ul style="list-style-type: none; line-height: 200%">
+ * <li>Tanaka, M., G. Girard, R. Davis, A. Peuto, and N. Bignell (2001) Recommended
+ * 		table for the density of water between 0 &deg;C and 40 &deg;C based on recent
+ * 		experimental reports. Metrologia 38, 301-309.</li>
+ * <li>Specific heat: fourth order polynomial fit to tabulated values for liquid
+ * 		water at atmospheric pressure, 0-100 &deg;C.</li>
+ * </ul>
+ */
+public final class WaterProperties {
+
+    /**
+     * Lower end of the tables (&deg;C)
+     */
+    public static final double TEMP_MIN = 0;
+
+    /**
+     * Upper end of the tables (&deg;C)
+     */
+    public static final double TEMP_MAX = 40;
+
+    /**
+     * Spacing of the tables (&deg;C)
+     */
+    public static final double TEMP_STEP = 0.05;
+
+    /**
+     * Temperature at which the heat content matches the default constant
+     * properties (&deg;C)
+     */
+    public static final double REFERENCE_TEMP = 10;
+
+    private static final double KELVIN = 273.15;
+
+    private static final int SEGMENTS = (int)Math.round((TEMP_MAX - TEMP_MIN) / TEMP_STEP);
+
+    private static final double INV_STEP = 1 / TEMP_STEP;
+
+    private static final double[] DENSITY = new double[SEGMENTS + 1];
+
+    private static final double[] SP_HEAT = new double[SEGMENTS + 1];
+
+    private static final double[] HEAT_CONTENT = new double[SEGMENTS + 1];
+
+    /**
+     * Inverse slope of each segment of the heat content table 
+     * (&deg;C m<sup><small>3</small></sup> kJ<sup><small>-1</small></sup>)
+     */
+    private static final double[] INV_HEAT_SLOPE = new double[SEGMENTS];
+
+    private static final double INV_MEAN_HEAT_STEP;
+
+    static
+    {
+        for (int i = 0; i <= SEGMENTS; i++)
+        {
+            double temp = TEMP_MIN + i * TEMP_STEP;
+            DENSITY[i] = densityEquation(temp);
+            SP_HEAT[i] = spHeatEquation(temp);
+        }
+        HEAT_CONTENT[0] = 0;
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            double temp = TEMP_MIN + i * TEMP_STEP;
+            double mid = temp + 0.5 * TEMP_STEP;
+            HEAT_CONTENT[i + 1] = HEAT_CONTENT[i] + TEMP_STEP / 6 * (SP_HEAT[i] * DENSITY[i] + 
+                    4 * spHeatEquation(mid) * densityEquation(mid) + SP_HEAT[i + 1] * DENSITY[i + 1]);
+        }
+        int reference = (int)Math.round((REFERENCE_TEMP - TEMP_MIN) * INV_STEP);
+        double anchor = (REFERENCE_TEMP + KELVIN) * HeatCurrency.SP_HEAT_WATER_10 * 
+                HeatCurrency.DENSITY_WATER_10 - HEAT_CONTENT[reference];
+        for (int i = 0; i <= SEGMENTS; i++)
+        {
+            HEAT_CONTENT[i] += anchor;
+        }
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            INV_HEAT_SLOPE[i] = TEMP_STEP / (HEAT_CONTENT[i + 1] - HEAT_CONTENT[i]);
+        }
+        INV_MEAN_HEAT_STEP = SEGMENTS / (HEAT_CONTENT[SEGMENTS] - HEAT_CONTENT[0]);
+    }
+
+    private WaterProperties()
+    {
+    }
+
+    /**
+     * Density of water
+     * 
+     * @param temp Water temperature (&deg;C)
+     * @return Density (kg m<sup><small>-3</small></sup>)
+     */
+    public static double density(double temp)
+    {
+        return interpolate(DENSITY, temp);
+    }
+
+    /**
+     * Specific heat of water
+     * 
+     * @param temp Water temperature (&deg;C)
+     * @return Specific heat (kJ kg<sup><small>-1</small></sup> K<sup><small>-1</small></sup>)
+     */
+    public static double spHeat(double temp)
+    {
+        return interpolate(SP_HEAT, temp);
+    }
+
+    /**
+     * Heat content (enthalpy) of a unit volume of water, on the scale of
+     * the heat of cells with constant properties (see the class comment)
+     * 
+     * @param temp Water temperature (&deg;C)
+     * @return Heat content (kJ m<sup><small>-3</small></sup>)
+     */
+    public static double heatContent(double temp)
+    {
+        double x = (temp - TEMP_MIN) * INV_STEP;
+        int i = (int)x;
+        if (x < 0)
+        {
+            i = 0;
+        }
+        else if (i >= SEGMENTS)
+        {
+            i = SEGMENTS - 1;
+        }
+        return HEAT_CONTENT[i] + (x - i) * (HEAT_CONTENT[i + 1] - HEAT_CONTENT[i]);
+    }
+
+    /**
+     * Volumetric heat capacity of water, the slope of
+     * {@link #heatContent(double)} at a temperature
+     * 
+     * @param temp Water temperature (&deg;C)
+     * @return Heat capacity (kJ m<sup><small>-3</small></sup> K<sup><small>-1</small></sup>)
+     */
+    public static double heatCapacity(double temp)
+    {
+        double x = (temp - TEMP_MIN) * INV_STEP;
+        int i = (int)x;
+        if (x < 0)
+        {
+            i = 0;
+        }
+        else if (i >= SEGMENTS)
+        {
+            i = SEGMENTS - 1;
+        }
+        return 1 / INV_HEAT_SLOPE[i];
+    }
+
+    /**
+     * Temperature of water with a given heat content per unit volume,
+     * the inverse of {@link #heatContent(double)}
+     * 
+     * @param heatContent Heat content (kJ m<sup><small>-3</small></sup>)
+     * @return Water temperature (&deg;C)
+     */
+    public static double tempFromHeatContent(double heatContent)
+    {
+        // The table is nearly linear, so the guess is within a segment or two
+        int i = (int)((heatContent - HEAT_CONTENT[0]) * INV_MEAN_HEAT_STEP);
+        if (i < 0)
+        {
+            i = 0;
+        }
+        else if (i >= SEGMENTS)
+        {
+            i = SEGMENTS - 1;
+        }
+        while (i > 0 && heatContent < HEAT_CONTENT[i])
+        {
+            i--;
+        }
+        while (i < SEGMENTS - 1 && heatContent >= HEAT_CONTENT[i + 1])
+        {
+            i++;
+        }
+        return TEMP_MIN + i * TEMP_STEP + (heatContent - HEAT_CONTENT[i]) * INV_HEAT_SLOPE[i];
+    }
+
+    private static double interpolate(double[] table, double temp)
+    {
+        double x = (temp - TEMP_MIN) * INV_STEP;
+        if (x <= 0)
+        {
+            return table[0];
+        }
+        int i = (int)x;
+        if (i >= SEGMENTS)
+        {
+            return table[SEGMENTS];
+        }
+        return table[i] + (x - i) * (table[i + 1] - table[i]);
+    }
+
+    /**
+     * Density of air-free water at 101.325 kPa (Tanaka et al. 2001)
+     */
+    private static double densityEquation(double temp)
+    {
+        return 999.974950 * (1 - (temp - 3.983035) * (temp - 3.983035) * (temp + 301.797) / 
+                (522528.9 * (temp + 69.34881)));
+    }
+
+    private static double spHeatEquation(double temp)
+    {
+        return 4.2174 - 3.720283e-3 * temp + 1.412855e-4 * temp * temp - 
+                2.654387e-6 * temp * temp * temp + 2.093236e-8 * temp * temp * temp * temp;
+    }
+
+}
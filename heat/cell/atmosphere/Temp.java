@@ -3,21 +3,21 @@ package edu.montana.cerg.tempsignal.heat.cell.atmosphere;
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.framework.time.TimeKeeper;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
 
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 import edu.montana.cerg.tempsignal.heat.face.channelin.Heat;
 
 public class Temp extends AutoDynamDouble {
 	  
-	private MathInterpolator interp;
+	private ForcingCursor forcing;
 	
 
     @Override
     public double calculate()
     {
-    	return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+    	return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
     }
 
     @Override
@@ -27,15 +27,13 @@ public class Temp extends AutoDynamDouble {
                 Heat.REQ_STATE_EXTERNAL_TEMP_TABLE)).value;
         try
         {
-            interp = InterpolatorFactory.getInstance().createMathInterpolator(
-                    tableName, 
-                    holon.getSimulationModel());
+            forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
         }
-        catch (InterpolatorFactoryException e)
+        catch (ForcingTableException e)
         {
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
         }
     }
     
@@ -3,6 +3,8 @@ package edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.InputMemo;
+
 
 //FIXME: Implement an estimate that can handle cloudy days.
 /**
@@ -36,6 +38,8 @@ public class Emissivity extends AutoDynamDouble {
 	 */
 	private StateDouble vapPressAir;
 	
+	private final InputMemo memo = new InputMemo();
+	
 	/**
 	 * Calculate the emissivity of the air
 	 * 
@@ -54,7 +58,13 @@ public class Emissivity extends AutoDynamDouble {
 		//return 1.72 * Math.pow(((0.1*vapPressAir.value)/(tempK.value)), 0.1428571) * 1.22;
 		
 		//following Brutsaert 1984:
-		return 1.72 * Math.pow(((0.1*vapPressAir.value)/(tempK.value)), (1.0/7.0));
+		double vapPress = vapPressAir.value;
+		double temp = tempK.value;
+		if (memo.isCurrent(vapPress, temp))
+		{
+			return memo.getResult();
+		}
+		return memo.setResult(1.72 * Math.pow(((0.1*vapPress)/(temp)), (1.0/7.0)));
 		
 	}
 
@@ -2,9 +2,10 @@ package edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic;
 
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 
 
 
@@ -18,9 +19,9 @@ public class HumidityRelative extends AutoDynamDouble {
 	private static final String REQ_STATE_RELATIVE_HUMIDITY_TABLE = "RelHumidFile";
 
 	/**
-	 * Interpolator containing table input data for relative humidity
+	 * Cursor over the shared forcing table for relative humidity
 	 */
-	private MathInterpolator interp;
+	private ForcingCursor forcing;
 	
 	/**
 	 * Calculate the relative humidity
@@ -30,7 +31,7 @@ public class HumidityRelative extends AutoDynamDouble {
 	@Override
 	public double calculate() {
 
-		return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+		return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
 		
 	}
 
@@ -60,14 +61,13 @@ public class HumidityRelative extends AutoDynamDouble {
  
 		try
 		{
-			interp = InterpolatorFactory.getInstance().createMathInterpolator(
-					tableName, holon.getSimulationModel());
+			forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
 		}
-		catch(InterpolatorFactoryException e)
+		catch (ForcingTableException e)
 		{
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
 		}
 		
 
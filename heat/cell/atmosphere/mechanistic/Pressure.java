@@ -2,9 +2,10 @@ package edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic;
 
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 
 
 
@@ -19,9 +20,9 @@ public class Pressure extends AutoDynamDouble {
 	
 	
 	/**
-	 * Interpolator containing table input data for relative humidity
+	 * Cursor over the shared forcing table for atmospheric pressure
 	 */
-	private MathInterpolator interp;
+	private ForcingCursor forcing;
 
 	/**
 	 * Calculate the atmospheric pressure
@@ -31,7 +32,7 @@ public class Pressure extends AutoDynamDouble {
 	@Override
 	public double calculate() 
 	{
-		return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+		return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
 	}
 
 	/**
@@ -59,14 +60,13 @@ public class Pressure extends AutoDynamDouble {
  
 		try
 		{
-			interp = InterpolatorFactory.getInstance().createMathInterpolator(
-					tableName, holon.getSimulationModel());
+			forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
 		}
-		catch(InterpolatorFactoryException e)
+		catch (ForcingTableException e)
 		{
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
 		}
 		
 		
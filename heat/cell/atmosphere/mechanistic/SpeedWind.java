@@ -2,9 +2,10 @@ package edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic;
 
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 
 
 /**
@@ -17,9 +18,9 @@ public class SpeedWind extends AutoDynamDouble {
 
 	private static final String REQ_STATE_WIND_SPEED_TABLE = "ExtWindTable";
 	/**
-	 * Interpolator containing table input data for wind speed
+	 * Cursor over the shared forcing table for wind speed
 	 */
-	private MathInterpolator interp;
+	private ForcingCursor forcing;
 
 	/**
 	 * Calculates the wind speed
@@ -29,7 +30,7 @@ public class SpeedWind extends AutoDynamDouble {
 	@Override
 	public double calculate() {
 
-		return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+		return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
 		
 	}
 
@@ -59,14 +60,13 @@ public class SpeedWind extends AutoDynamDouble {
  
 		try
 		{
-			interp = InterpolatorFactory.getInstance().createMathInterpolator(
-					tableName, holon.getSimulationModel());
+			forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
 		}
-		catch(InterpolatorFactoryException e)
+		catch (ForcingTableException e)
 		{
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
 		}
 		
 
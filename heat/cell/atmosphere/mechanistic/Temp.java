@@ -5,6 +5,8 @@ import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.framework.time.TimeKeeper;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.signal.HarmonicSignal;
+
 public class Temp extends AutoDynamDouble {   
 	
     private StateDouble period;
@@ -13,6 +15,7 @@ public class Temp extends AutoDynamDouble {
     private StateDouble phaseDay;
     private StateDouble phase;
     private TimeKeeper timeKeeper;
+    private final HarmonicSignal signal = new HarmonicSignal();
     
     @Override
     public double calculate()
@@ -22,7 +25,8 @@ public class Temp extends AutoDynamDouble {
         if (day == phaseTime/86400){
         	System.out.println("Julian Day: "+day);
         }
-        return average.value + amplitude.value/2*Math.sin(phaseTime*2*Math.PI*(1/period.value) +phase.value);
+        return average.value + amplitude.value/2*
+                signal.sin(timeKeeper.getCurrentTime(), period.value, -phaseDay.value*86400, phase.value);
         
     }
 
@@ -5,6 +5,9 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.InputMemo;
+import edu.montana.cerg.tempsignal.heat.Psychrometrics;
+
 
 /**
  * Controls the vapor pressure in the air
@@ -18,6 +21,7 @@ import org.neosimulation.neo.user.AutoDynamDouble;
  * </ul>
  * 
  * @author robert.payn
+ * @see Psychrometrics
  *
  */
 public class VaporPressure extends AutoDynamDouble {
@@ -34,6 +38,10 @@ public class VaporPressure extends AutoDynamDouble {
 	 * Air temperature (&deg;C)
 	 */
 	private StateDouble tempCelsius;
+	
+	private final InputMemo memo = new InputMemo();
+	
+	private Psychrometrics psychrometrics;
 
 	/**
 	 * Calculate the vapor pressure in the air
@@ -43,8 +51,13 @@ public class VaporPressure extends AutoDynamDouble {
 	@Override
 	public double calculate() {
 
-		return (humidityRelative.value / 100) * 
-				6.1275 * Math.exp((17.2693882 * tempCelsius.value) / (tempCelsius.value + 237.3));
+		double humidity = humidityRelative.value;
+		double temp = tempCelsius.value;
+		if (memo.isCurrent(humidity, temp))
+		{
+			return memo.getResult();
+		}
+		return memo.setResult((humidity / 100) * psychrometrics.saturationVaporPressure(temp));
 		
 	//	return (humidityRelative.value / 100) * vaporPressureSat.value;
 	}
@@ -72,6 +85,7 @@ public class VaporPressure extends AutoDynamDouble {
 
 		humidityRelative = (StateDouble)createDependency(REQ_STATE_HUMID_RELATIVE);
 		tempCelsius = (StateDouble)createDependency(REQ_STATE_TEMP_C);
+		psychrometrics = Psychrometrics.getInstance(holon);
 		
 		/*
 		Face[] atmExchFace = ((Cell)holon).getFacesArray(
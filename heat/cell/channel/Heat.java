@@ -1,8 +1,11 @@
 package edu.montana.cerg.tempsignal.heat.cell.channel;
 
+import org.neosimulation.neo.framework.holon.Holon;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.CellPoolDynamDouble;
+import edu.montana.cerg.tempsignal.heat.DensityCalculator;
 import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
 
 public class Heat extends CellPoolDynamDouble {
     
@@ -18,19 +21,32 @@ public class Heat extends CellPoolDynamDouble {
      */
     public static final String OPT_STATE_SP_HEAT = "SpHeat";
     
+    /**
+     * Name of the optional state that switches density and specific heat to 
+     * the temperature-dependent tables when nonzero (overrides Density and SpHeat)
+     */
+    public static final String OPT_STATE_EQUATION_OF_STATE = "EquationOfState";
+    
     private StateDouble water;
     private StateDouble temp;
     private double spHeat;
-    private StateDouble density;
+    private DensityCalculator densityCalc;
+    
+    /**
+     * Checks if a channel cell uses the equation of state tables
+     * 
+     * @param cell Channel cell
+     * @return true if density and specific heat depend on temperature
+     */
+    public static boolean usesEquationOfState(Holon cell)
+    {
+        return OptionalStates.getValue(cell, OPT_STATE_EQUATION_OF_STATE, 0) != 0;
+    }
     
     @Override
     public double initialize()
     {
-        // If density was not provided, use a default value
-        if (density == null)
-            return water.value * (temp.value + 273.15) * spHeat * HeatCurrency.DENSITY_WATER_10;        
-        else
-            return water.value * (temp.value + 273.15) * spHeat * density.value;        
+        return densityCalc.getHeat(water.value, temp.value, spHeat);
     }
     
     @Override
@@ -39,22 +55,22 @@ public class Heat extends CellPoolDynamDouble {
         water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
         temp = (StateDouble)createDependency(Temp.class.getSimpleName());
         
-        try{
-            StateDouble spHeatState = (StateDouble)holon.getStateVal(OPT_STATE_SP_HEAT);
-            spHeat = spHeatState.value;
-        }
-        catch (Exception e){
-            spHeat = HeatCurrency.SP_HEAT_WATER_10;
+        spHeat = OptionalStates.getValue(holon, OPT_STATE_SP_HEAT, HeatCurrency.SP_HEAT_WATER_10);
+        if (usesEquationOfState(holon) && OptionalStates.has(holon, OPT_STATE_SP_HEAT))
+        {
+            holon.getSimulationModel().getLogger().logWarning(OPT_STATE_SP_HEAT + " in " + 
+                    holon.getName() + " is ignored: " + OPT_STATE_EQUATION_OF_STATE + 
+                    " takes specific heat from the water property tables");
         }
         
-        try{
-            // If density state already exists, get a reference to it
-            holon.getStateVal(OPT_STATE_DENSITY);
+        // If density state already exists, get a reference to it
+        StateDouble density;
+        if (!usesEquationOfState(holon) && OptionalStates.has(holon, OPT_STATE_DENSITY))
             density = (StateDouble)createDependency(OPT_STATE_DENSITY);
-        }
-        catch (Exception e){            
+        else
             density = null;
-        }
+        
+        densityCalc = DensityCalculator.createDensityCalculator(density, usesEquationOfState(holon));
     }
 
 }
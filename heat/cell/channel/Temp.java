@@ -5,6 +5,7 @@ import org.neosimulation.neo.user.AutoDynamDouble;
 
 import edu.montana.cerg.tempsignal.heat.DensityCalculator;
 import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
 
 public class Temp extends AutoDynamDouble {       
        
@@ -16,7 +17,18 @@ public class Temp extends AutoDynamDouble {
     @Override
     public double calculate()
     {
-        return (heat.value / (water.value * spHeat * densityCalc.getDensity())) - 273.15;
+        return getTemp(heat.value);
+    }
+    
+    /**
+     * Converts heat in the cell to temperature
+     * 
+     * @param heat Heat in the cell (kJ)
+     * @return Temperature (&deg;C)
+     */
+    protected double getTemp(double heat)
+    {
+        return densityCalc.getTemp(heat, water.value, spHeat);
     }
     
     @Override
@@ -38,36 +50,34 @@ public class Temp extends AutoDynamDouble {
     @Override
     public void setCalcDeps()
     {
-        water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
         heat = (StateDouble)createDependency(Heat.class.getSimpleName());
+        setPropertyDeps();
+    }
+    
+    /**
+     * Creates the dependencies of {@link #getTemp(double)}
+     */
+    protected void setPropertyDeps()
+    {
+        water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
         
-        try
-        {
-            StateDouble spHeatState = (StateDouble)holon.getStateVal(Heat.OPT_STATE_SP_HEAT);
-            spHeat = spHeatState.value;
-        }
-        catch (Exception e)
-        {
-            spHeat = HeatCurrency.SP_HEAT_WATER_10;
-        }
+        spHeat = OptionalStates.getValue(holon, Heat.OPT_STATE_SP_HEAT, HeatCurrency.SP_HEAT_WATER_10);
 
         StateDouble density;
-        try
+        if (!Heat.usesEquationOfState(holon) && OptionalStates.has(holon, Heat.OPT_STATE_DENSITY))
         {
-            // Check if density state exists
-            holon.getStateVal(Heat.OPT_STATE_DENSITY);
-            
             // If density state DOES exist, instantiate the dynamic calculator
             density = (StateDouble)createDependency(Heat.OPT_STATE_DENSITY);                                           
         }
-        catch (Exception e)
+        else
         {
             // If density states DOES NOT exist, set to null
         	// (instantiate the static calculator)
             density = null;
         }
         
-        densityCalc = DensityCalculator.createDensityCalculator(density);        
+        densityCalc = DensityCalculator.createDensityCalculator(density, 
+                Heat.usesEquationOfState(holon));        
     }    
     
     @Override
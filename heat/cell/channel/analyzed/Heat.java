@@ -0,0 +1,9 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.analyzed;
+
+/**
+ * Heat pool of a channel cell whose temperature signal is analyzed;
+ * same as the channel behavior.
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.cell.channel.Heat {
+
+}
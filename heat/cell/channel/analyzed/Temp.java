@@ -0,0 +1,9 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.analyzed;
+
+/**
+ * Temperature of a channel cell whose signal is analyzed; same as the
+ * channel behavior.
+ */
+public class Temp extends edu.montana.cerg.tempsignal.heat.cell.channel.Temp {
+
+}
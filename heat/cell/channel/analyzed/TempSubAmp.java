@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.analyzed;
+
+import edu.montana.cerg.tempsignal.heat.signal.SignalComponent;
+
+/**
+ * Amplitude of the channel temperature at the sub period, published by {@link TempCarrierAmp}
+ */
+public class TempSubAmp extends SignalComponent {
+
+}
@@ -0,0 +1,9 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.batched;
+
+/**
+ * Heat pool of a channel cell in the batched channel network; same as
+ * the channel behavior.
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.cell.channel.Heat {
+
+}
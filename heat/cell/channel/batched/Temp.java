@@ -0,0 +1,45 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.batched;
+
+import org.neosimulation.neo.framework.stateval.StateDouble;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Temperature of a channel cell, converted from heat for all cells of the
+ * model at once by the {@link ChannelNetworkBinding}.
+ * 
+ * <p>Use with <code>heat.edge.channeltransport.batched</code> on the faces
+ * between channel cells. Values are identical to the channel behavior.</p>
+ */
+public class Temp extends edu.montana.cerg.tempsignal.heat.cell.channel.Temp {
+
+    private ChannelNetworkBinding binding;
+    private int cell;
+
+    @Override
+    public double calculate()
+    {
+        return binding.getTemp(cell);
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        StateDouble water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
+        StateDouble heat = (StateDouble)createDependency(Heat.class.getSimpleName());
+
+        double spHeat = OptionalStates.getValue(holon, Heat.OPT_STATE_SP_HEAT, HeatCurrency.SP_HEAT_WATER_10);
+        boolean equationOfState = Heat.usesEquationOfState(holon);
+        StateDouble density = null;
+        if (!equationOfState && OptionalStates.has(holon, Heat.OPT_STATE_DENSITY))
+        {
+            density = (StateDouble)createDependency(Heat.OPT_STATE_DENSITY);
+        }
+
+        binding = ChannelNetworkBinding.getInstance(holon);
+        cell = binding.registerCell(holon, heat, water, spHeat, density, equationOfState);
+    }
+
+}
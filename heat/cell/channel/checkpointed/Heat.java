@@ -0,0 +1,48 @@
+package edu.montana.cerg.tempsignal.heat.cell.channel.checkpointed;
+
+import org.neosimulation.neo.framework.stateval.StateDouble;
+
+import edu.montana.cerg.tempsignal.heat.checkpoint.CheckpointRecorder;
+import edu.montana.cerg.tempsignal.heat.checkpoint.WarmStart;
+
+/**
+ * Heat pool of a channel cell that is saved in checkpoints and starts from
+ * the warm-start checkpoint of the model, if it has one.
+ * 
+ * @see CheckpointRecorder
+ * @see WarmStart
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.cell.channel.Heat {
+
+    /**
+     * Name of this state in checkpoints
+     */
+    public static final String STATE_NAME = "Heat";
+
+    private double warmHeat = Double.NaN;
+
+    @Override
+    public double initialize()
+    {
+        return Double.isNaN(warmHeat) ? super.initialize() : warmHeat;
+    }
+
+    @Override
+    public void setInitDeps()
+    {
+        super.setInitDeps();
+        warmHeat = WarmStart.getValue(holon, STATE_NAME);
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        super.setCalcDeps();
+        CheckpointRecorder recorder = CheckpointRecorder.getInstance(holon);
+        if (recorder != null)
+        {
+            recorder.register(holon, STATE_NAME, (StateDouble)getStateVal());
+        }
+    }
+
+}
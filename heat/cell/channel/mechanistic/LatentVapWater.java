@@ -3,6 +3,8 @@ package edu.montana.cerg.tempsignal.heat.cell.channel.mechanistic;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.Psychrometrics;
+
 
 /**
  * Controls the latent heat of vaporization of water at the
@@ -15,6 +17,7 @@ import org.neosimulation.neo.user.AutoDynamDouble;
  * </ul>
  * 
  * @author robert.payn
+ * @see Psychrometrics
  */
 public class LatentVapWater extends AutoDynamDouble {
 	
@@ -23,6 +26,8 @@ public class LatentVapWater extends AutoDynamDouble {
 	 * Water temperature (&deg;C)
 	 */
 	private StateDouble tempCelsius;
+	
+	private Psychrometrics psychrometrics;
 
 	/**
 	 * Calculate the latent heat of vaporization of water based on temperature
@@ -32,7 +37,7 @@ public class LatentVapWater extends AutoDynamDouble {
 	@Override
 	public double calculate() 
 	{	
-		return 2499.64 - (2.51 * tempCelsius.value);	
+		return psychrometrics.latentVap(tempCelsius.value);	
 	}
 
 	/**
@@ -56,6 +61,7 @@ public class LatentVapWater extends AutoDynamDouble {
 	public void setCalcDeps() {
 
 		tempCelsius = (StateDouble)createDependency(REQ_STATE_TEMP);
+		psychrometrics = Psychrometrics.getInstance(holon);
 		
 	}
 
@@ -5,6 +5,9 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.InputMemo;
+import edu.montana.cerg.tempsignal.heat.Psychrometrics;
+
 
 /**
  * Controls the saturated vapor pressure at the water temperature
@@ -18,6 +21,7 @@ import org.neosimulation.neo.user.AutoDynamDouble;
  * </ul>
  * 
  * @author robert.payn
+ * @see Psychrometrics
  */
 public class VaporPressureSat extends AutoDynamDouble {
 	
@@ -28,6 +32,10 @@ public class VaporPressureSat extends AutoDynamDouble {
 	 * Water temperature (&deg;C)
 	 */
 	private StateDouble tempCelsius;
+	
+	private final InputMemo memo = new InputMemo();
+	
+	private Psychrometrics psychrometrics;
 
 	/**
 	 * Calculates the saturated vapor pressure at the water temperature
@@ -37,7 +45,12 @@ public class VaporPressureSat extends AutoDynamDouble {
 	@Override
 	public double calculate() 
 	{
-		return 6.1275 * Math.exp(17.2693882 * (tempCelsius.value / (tempCelsius.value + 237.3)));	
+		double temp = tempCelsius.value;
+		if (memo.isCurrent(temp))
+		{
+			return memo.getResult();
+		}
+		return memo.setResult(psychrometrics.saturationVaporPressure(temp));	
 	}
 
 	/**
@@ -66,6 +79,7 @@ public class VaporPressureSat extends AutoDynamDouble {
 		tempCelsius = (StateDouble)createDependency(
 				edu.montana.cerg.tempsignal.heat.cell.atmosphere.Temp.class.getSimpleName()
 				);
+		psychrometrics = Psychrometrics.getInstance(holon);
 	}
 
 }
@@ -17,7 +17,18 @@ public class Temp extends AutoDynamDouble {
 	@Override
 	public double calculate() 
 	{		
-		return (heat.value /
+		return getTemp(heat.value);
+	}
+
+	/**
+	 * Converts heat in the cell to temperature
+	 * 
+	 * @param heat Heat in the cell (kJ)
+	 * @return Temperature (&deg;C)
+	 */
+	protected double getTemp(double heat)
+	{
+		return (heat /
 				(volume.value * porosity.value * densityWater.value * spHeatWater.value +
 				volume.value * (1 - porosity.value) * densitySediment.value * spHeatSediment.value)) - 273.15;				
 	}
@@ -40,6 +51,15 @@ public class Temp extends AutoDynamDouble {
 	
 	@Override
 	public void setCalcDeps() 
+	{
+		heat = (StateDouble)createDependency("Heat");
+		setPropertyDeps();
+	}
+
+	/**
+	 * Creates the dependencies of {@link #getTemp(double)}
+	 */
+	protected void setPropertyDeps()
 	{
 		densityWater = (StateDouble)createDependency(Heat.REQ_STATE_DENSITY_WATER);
 		densitySediment = (StateDouble)createDependency(Heat.REQ_STATE_DENSITY_SEDIMENT);
@@ -47,7 +67,6 @@ public class Temp extends AutoDynamDouble {
 		spHeatSediment = (StateDouble)createDependency(Heat.REQ_STATE_SPHEAT_SEDIMENT);
 		volume = (StateDouble)createDependency(Heat.REQ_STATE_VOLUME);
 		porosity = (StateDouble)createDependency(Heat.REQ_STATE_POROSITY);
-		heat = (StateDouble)createDependency("Heat");
 	}
 
 	@Override
@@ -0,0 +1,9 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.analyzed;
+
+/**
+ * Temperature of a hyporheic cell whose signal is analyzed; same as the
+ * hyporheic behavior.
+ */
+public class Temp extends edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp {
+
+}
@@ -0,0 +1,11 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.analyzed;
+
+import edu.montana.cerg.tempsignal.heat.signal.SignalAnalysis;
+
+/**
+ * Amplitude of the hyporheic temperature at the carrier period, over the last
+ * complete period
+ */
+public class TempCarrierAmp extends SignalAnalysis {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.analyzed;
+
+import edu.montana.cerg.tempsignal.heat.signal.SignalComponent;
+
+/**
+ * Phase of the hyporheic temperature at the carrier period (radians), published by {@link TempCarrierAmp}
+ */
+public class TempCarrierPhase extends SignalComponent {
+
+}
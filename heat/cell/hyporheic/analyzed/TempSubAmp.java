@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.analyzed;
+
+import edu.montana.cerg.tempsignal.heat.signal.SignalComponent;
+
+/**
+ * Amplitude of the hyporheic temperature at the sub period, published by {@link TempCarrierAmp}
+ */
+public class TempSubAmp extends SignalComponent {
+
+}
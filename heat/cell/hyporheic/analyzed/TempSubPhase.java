@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.analyzed;
+
+import edu.montana.cerg.tempsignal.heat.signal.SignalComponent;
+
+/**
+ * Phase of the hyporheic temperature at the sub period (radians), published by {@link TempCarrierAmp}
+ */
+public class TempSubPhase extends SignalComponent {
+
+}
@@ -0,0 +1,53 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.checkpointed;
+
+import edu.montana.cerg.tempsignal.heat.checkpoint.CheckpointRecorder;
+import edu.montana.cerg.tempsignal.heat.checkpoint.WarmStart;
+
+/**
+ * Temperature of a checkpointed hyporheic cell.
+ * 
+ * <p>On a warm start the temperature is computed from the heat in the
+ * checkpoint rather than read from the input. Each step, the first
+ * temperature to be calculated gives the checkpoint recorder of the model
+ * the chance to write a checkpoint.</p>
+ */
+public class Temp extends edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp {
+
+	private double warmHeat = Double.NaN;
+
+	private CheckpointRecorder recorder;
+
+	@Override
+	public double calculate()
+	{
+		if (recorder != null)
+		{
+			recorder.record();
+		}
+		return super.calculate();
+	}
+
+	@Override
+	public double initialize()
+	{
+		return Double.isNaN(warmHeat) ? super.initialize() : getTemp(warmHeat);
+	}
+
+	@Override
+	public void setInitDeps()
+	{
+		warmHeat = WarmStart.getValue(holon, Heat.STATE_NAME);
+		if (!Double.isNaN(warmHeat))
+		{
+			setPropertyDeps();
+		}
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		super.setCalcDeps();
+		recorder = CheckpointRecorder.getInstance(holon);
+	}
+
+}
@@ -0,0 +1,9 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.recorded;
+
+/**
+ * Heat pool of a hyporheic cell whose temperature is
+ * recorded; same as the hyporheic behavior.
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat {
+
+}
@@ -0,0 +1,30 @@
+package edu.montana.cerg.tempsignal.heat.cell.hyporheic.recorded;
+
+import edu.montana.cerg.tempsignal.heat.output.RecordedValue;
+
+/**
+ * Temperature of a hyporheic cell, recorded to the output of the model every step.
+ * 
+ * @see RecordedValue
+ */
+public class Temp extends edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp {
+
+	private RecordedValue output;
+
+	@Override
+	public double calculate()
+	{
+		return output.put(super.calculate());
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		super.setCalcDeps();
+		if (output == null)
+		{
+			output = RecordedValue.create(holon, getStateVal());
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+package edu.montana.cerg.tempsignal.heat.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neosimulation.neo.framework.holon.Holon;
+
+/**
+ * Snapshot of the pool states of a model at one time.
+ * 
+ * <p>Layout (big-endian, <code>java.io.DataOutput</code>): magic
+ * <code>TSCK</code>, format version, simulation time, number of entries,
+ * then each entry as its key (holon name and state name, see
+ * {@link #key(Holon, String)}) and its value. Entries are matched by key
+ * on reading, so a snapshot can warm-start a model whose cells are
+ * numbered differently; a cell missing from the snapshot stops the warm
+ * start (see {@link WarmStart}).</p>
+ * 
+ * <p>Forcing cursors and the derived states (temperatures, fluxes) are not
+ * stored: they are functions of the clock and the pools and are rebuilt
+ * when the model starts at the snapshot time.</p>
+ */
+public final class Checkpoint {
+
+    /**
+     * First four bytes of a checkpoint file ("TSCK")
+     */
+    public static final int MAGIC = 0x5453434B;
+
+    public static final int VERSION = 1;
+
+    private static final String KEY_SEPARATOR = "/";
+
+    private final double time;
+
+    private final String[] keys;
+
+    private final double[] values;
+
+    private Map<String, Integer> index;
+
+    /**
+     * @param time Simulation time of the snapshot (sec)
+     * @param keys Key of each entry
+     * @param values Value of each entry, not copied
+     */
+    public Checkpoint(double time, String[] keys, double[] values)
+    {
+        if (keys.length != values.length)
+        {
+            throw new IllegalArgumentException("Checkpoint keys and values differ in length");
+        }
+        this.time = time;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Gets the key of a state in a checkpoint
+     * 
+     * @param holon Holon of the state
+     * @param stateName Name of the state
+     * @return Key of the state
+     */
+    public static String key(Holon holon, String stateName)
+    {
+        return holon.getName() + KEY_SEPARATOR + stateName;
+    }
+
+    /**
+     * Reads a checkpoint file
+     * 
+     * @param file Checkpoint file
+     * @return Snapshot in the file
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(File file) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(file.getPath() + " is not a checkpoint");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException(file.getPath() + ": unsupported checkpoint version " + version);
+            }
+            double time = in.readDouble();
+            int count = in.readInt();
+            String[] keys = new String[count];
+            double[] values = new double[count];
+            for (int i = 0; i < count; i++)
+            {
+                keys[i] = in.readUTF();
+                values[i] = in.readDouble();
+            }
+            return new Checkpoint(time, keys, values);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the checkpoint. The file is written beside the destination and
+     * then moved over it, so a reader never sees a partial checkpoint.
+     * 
+     * @param file Destination
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException
+    {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temp), 1 << 16));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(time);
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++)
+            {
+                out.writeUTF(keys[i]);
+                out.writeDouble(values[i]);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), 
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the value of a state
+     * 
+     * @param key Key of the state
+     * @return Value of the state, or NaN if it is not in the checkpoint
+     */
+    public synchronized double getValue(String key)
+    {
+        if (index == null)
+        {
+            index = new HashMap<String, Integer>(2 * keys.length);
+            for (int i = 0; i < keys.length; i++)
+            {
+                index.put(keys[i], i);
+            }
+        }
+        Integer i = index.get(key);
+        return i == null ? Double.NaN : values[i];
+    }
+
+    /**
+     * @return Simulation time of the snapshot (sec)
+     */
+    public double getTime()
+    {
+        return time;
+    }
+
+    public int size()
+    {
+        return keys.length;
+    }
+
+}
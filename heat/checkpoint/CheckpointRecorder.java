@@ -0,0 +1,279 @@
+package edu.montana.cerg.tempsignal.heat.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.neosimulation.neo.framework.SimulationModel;
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.stateval.StateGeneric;
+import org.neosimulation.neo.framework.stateval.StateVal;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.signal.CoarseClock;
+
+/**
+ * Writes checkpoints of the registered pool states of one simulation model
+ * at a fixed interval of simulation time.
+ * 
+ * <p>On the first {@link #record()} of each interval the values are copied
+ * into a new array on the simulation thread (one read per state) and the
+ * file is written by a background thread. At most one checkpoint is in
+ * flight: if the previous one is still being written, the simulation
+ * waits for it rather than queueing snapshots. {@link #close()} completes
+ * the pending checkpoint and stops the writer thread; the launcher calls
+ * {@link #closeAll()} when the model has finished, and a shutdown hook
+ * closes a recorder that is still open when the JVM exits.</p>
+ * 
+ * <p>Checkpointing is configured by the {@link #OPT_STATE_CHECKPOINT_FILE}
+ * and {@link #OPT_STATE_CHECKPOINT_INTERVAL} states of the first holon that
+ * asks for the recorder of its model; each checkpoint replaces the
+ * previous one.</p>
+ * 
+ * @see WarmStart
+ */
+public class CheckpointRecorder {
+
+    /**
+     * Name of the optional state for the checkpoint file
+     */
+    public static final String OPT_STATE_CHECKPOINT_FILE = "CheckpointFile";
+
+    /**
+     * Name of the optional state for the interval between checkpoints (sec)
+     */
+    public static final String OPT_STATE_CHECKPOINT_INTERVAL = "CheckpointInterval";
+
+    /**
+     * Recorder of each simulation model, null if the model does not
+     * checkpoint. Held weakly: the recorder refers to its model, and lives
+     * as long as the dynams that record to it (or its shutdown hook).
+     */
+    private static final Map<Object, WeakReference<CheckpointRecorder>> recorders = 
+            new WeakHashMap<Object, WeakReference<CheckpointRecorder>>();
+
+    private final SimulationModel model;
+
+    private final File file;
+
+    private final CoarseClock clock;
+
+    private final List<String> keys = new ArrayList<String>();
+
+    private final List<StateDouble> states = new ArrayList<StateDouble>();
+
+    private String[] keyArray;
+
+    private StateDouble[] stateArray;
+
+    private double lastTime = Double.NaN;
+
+    private final ExecutorService writer;
+
+    private Future<?> pending;
+
+    private final Thread shutdownHook;
+
+    private boolean closed;
+
+    private CheckpointRecorder(SimulationModel model, File file, double interval)
+    {
+        this.model = model;
+        this.file = file;
+        this.clock = new CoarseClock(interval);
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "checkpoint writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        shutdownHook = new Thread() {
+            @Override
+            public void run()
+            {
+                close();
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Gets the recorder of the model of a holon
+     * 
+     * @param holon Holon in the model
+     * @return Recorder, or null if the model has no checkpoint file or interval
+     */
+    public static synchronized CheckpointRecorder getInstance(Holon holon)
+    {
+        Object model = holon.getSimulationModel();
+        if (recorders.containsKey(model))
+        {
+            WeakReference<CheckpointRecorder> reference = recorders.get(model);
+            return reference == null ? null : reference.get();
+        }
+        CheckpointRecorder recorder = null;
+        StateVal fileState = OptionalStates.find(holon, OPT_STATE_CHECKPOINT_FILE);
+        double interval = OptionalStates.getValue(holon, OPT_STATE_CHECKPOINT_INTERVAL, 0);
+        if (fileState != null && interval > 0)
+        {
+            recorder = new CheckpointRecorder(holon.getSimulationModel(), 
+                    new File((String)((StateGeneric<?>)fileState).value), interval);
+        }
+        recorders.put(model, recorder == null ? null : new WeakReference<CheckpointRecorder>(recorder));
+        return recorder;
+    }
+
+    /**
+     * Closes the recorder of every model. Called by the launcher when the
+     * model has finished.
+     */
+    public static void closeAll()
+    {
+        List<CheckpointRecorder> open = new ArrayList<CheckpointRecorder>();
+        synchronized (CheckpointRecorder.class)
+        {
+            for (WeakReference<CheckpointRecorder> reference: recorders.values())
+            {
+                if (reference != null && reference.get() != null)
+                {
+                    open.add(reference.get());
+                }
+            }
+        }
+        for (CheckpointRecorder recorder: open)
+        {
+            recorder.close();
+        }
+    }
+
+    /**
+     * Adds a pool state to the checkpoints
+     * 
+     * @param holon Holon of the state
+     * @param stateName Name of the state
+     * @param state The state
+     */
+    public synchronized void register(Holon holon, String stateName, StateDouble state)
+    {
+        keys.add(Checkpoint.key(holon, stateName));
+        states.add(state);
+        keyArray = null;
+    }
+
+    /**
+     * Writes a checkpoint if one is due at the current time. Called by the
+     * registered dynams every step; only the first call of a step does any
+     * work.
+     */
+    public synchronized void record()
+    {
+        if (closed)
+        {
+            return;
+        }
+        double time = model.getTimeKeeper().getCurrentTime();
+        if (time == lastTime)
+        {
+            return;
+        }
+        lastTime = time;
+        if (!clock.isDue(time))
+        {
+            return;
+        }
+
+        if (keyArray == null)
+        {
+            keyArray = keys.toArray(new String[keys.size()]);
+            stateArray = states.toArray(new StateDouble[states.size()]);
+        }
+        double[] values = new double[stateArray.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = stateArray[i].value;
+        }
+        awaitPending();
+        final Checkpoint checkpoint = new Checkpoint(time, keyArray, values);
+        pending = writer.submit(new Runnable() {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    checkpoint.write(file);
+                }
+                catch (IOException e)
+                {
+                    model.getLogger().logSevere("Cannot write checkpoint " + 
+                            file.getPath() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the checkpoint being written, if any
+     */
+    public synchronized void flush()
+    {
+        awaitPending();
+    }
+
+    /**
+     * Completes the pending checkpoint and stops the writer thread. Later
+     * calls to {@link #record()} are ignored.
+     */
+    public synchronized void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        awaitPending();
+        writer.shutdown();
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (IllegalStateException e)
+        {
+            // Closed by the hook while the JVM exits
+        }
+    }
+
+    private void awaitPending()
+    {
+        if (pending == null)
+        {
+            return;
+        }
+        try
+        {
+            pending.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            model.getLogger().logSevere("Checkpoint writer failed: " + e.getCause());
+        }
+        pending = null;
+    }
+
+}
@@ -0,0 +1,110 @@
+package edu.montana.cerg.tempsignal.heat.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateGeneric;
+import org.neosimulation.neo.framework.stateval.StateVal;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+
+/**
+ * Initial pool states read from a checkpoint.
+ * 
+ * <p>The checkpoint named by the {@link #OPT_STATE_WARM_START_FILE} state is
+ * read once per simulation model and shared by all of its dynams. NEO owns
+ * the clock, so the model must be configured to start at the time of the
+ * checkpoint; a mismatch is a severe error and stops the run. So is a
+ * checkpoint that cannot be read, or that lacks a state a dynam starts
+ * from: a run that names a warm start never falls back to a cold one.</p>
+ * 
+ * @see CheckpointRecorder
+ */
+public class WarmStart {
+
+    /**
+     * Name of the optional state for the checkpoint to start from
+     */
+    public static final String OPT_STATE_WARM_START_FILE = "WarmStartFile";
+
+    /**
+     * Checkpoint of each simulation model, null if the model starts cold
+     */
+    private static final Map<Object, Checkpoint> checkpoints = 
+            new WeakHashMap<Object, Checkpoint>();
+
+    /**
+     * Gets the checkpoint a model starts from
+     * 
+     * @param holon Holon in the model
+     * @return Checkpoint, or null if the model has none
+     * @throws IllegalStateException if the checkpoint cannot be read or was
+     *          not taken at the starting time of the model
+     */
+    public static synchronized Checkpoint getCheckpoint(Holon holon)
+    {
+        Object model = holon.getSimulationModel();
+        if (checkpoints.containsKey(model))
+        {
+            return checkpoints.get(model);
+        }
+        Checkpoint checkpoint = null;
+        StateVal fileState = OptionalStates.find(holon, OPT_STATE_WARM_START_FILE);
+        if (fileState != null)
+        {
+            String path = (String)((StateGeneric<?>)fileState).value;
+            try
+            {
+                checkpoint = Checkpoint.read(new File(path));
+                double time = holon.getSimulationModel().getTimeKeeper().getCurrentTime();
+                if (time != checkpoint.getTime())
+                {
+                    String message = "Checkpoint " + path + " was taken at " + 
+                            checkpoint.getTime() + " but the model starts at " + time;
+                    holon.getSimulationModel().getLogger().logSevere(message);
+                    throw new IllegalStateException(message);
+                }
+            }
+            catch (IOException e)
+            {
+                String message = "Cannot read checkpoint " + path + ": " + e.getMessage();
+                holon.getSimulationModel().getLogger().logSevere(message);
+                throw new IllegalStateException(message, e);
+            }
+        }
+        checkpoints.put(model, checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Gets the initial value of a state from the checkpoint of its model
+     * 
+     * @param holon Holon of the state
+     * @param stateName Name of the state
+     * @return Value in the checkpoint, or NaN if the model starts cold
+     * @throws IllegalStateException if the checkpoint cannot be read, was
+     *          not taken at the starting time of the model or does not have
+     *          the state
+     */
+    public static double getValue(Holon holon, String stateName)
+    {
+        Checkpoint checkpoint = getCheckpoint(holon);
+        if (checkpoint == null)
+        {
+            return Double.NaN;
+        }
+        String key = Checkpoint.key(holon, stateName);
+        double value = checkpoint.getValue(key);
+        if (Double.isNaN(value))
+        {
+            String message = "Warm-start checkpoint has no value for " + key;
+            holon.getSimulationModel().getLogger().logSevere(message);
+            throw new IllegalStateException(message);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,131 @@
+package edu.montana.cerg.tempsignal.heat.edge;
+
+/**
+ * Backward Euler conduction through a vertical column of cells, solved
+ * directly as a tridiagonal system.
+ * 
+ * <p>Node 0 is the top of the column (the channel) and node n-1 the
+ * deepest cell; below it is a boundary at fixed temperature (groundwater).
+ * Conductance i connects node i to node i+1, and conductance n-1 connects
+ * the deepest node to the boundary (zero if there is none). For a step dt
+ * the solver finds the temperatures T' that satisfy</p>
+ * 
+ * <pre>  C<sub>i</sub> (T'<sub>i</sub> - T<sub>i</sub>) / dt = G<sub>i-1</sub> (T'<sub>i-1</sub> - T'<sub>i</sub>) - G<sub>i</sub> (T'<sub>i</sub> - T'<sub>i+1</sub>)</pre>
+ * 
+ * <p>and {@link #getFlux(int)} returns the conduction fluxes at T'. Handing
+ * those fluxes to an explicit integrator with the same dt gives the
+ * implicit update of the conduction terms, which is stable for any dt, so
+ * the bed no longer limits the model timestep. With dt = 0 the fluxes are
+ * the explicit ones.</p>
+ */
+public class ConductionColumn {
+
+	private final int nodes;
+
+	/**
+	 * Heat capacity of each node (kJ &deg;C<sup><small>-1</small></sup>)
+	 */
+	private final double[] capacity;
+
+	/**
+	 * Conductance below each node (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+	 */
+	private final double[] conductance;
+
+	/**
+	 * Temperature of each node at the start of the step (&deg;C)
+	 */
+	private final double[] temp;
+
+	/**
+	 * Temperature of each node at the end of the step (&deg;C)
+	 */
+	private final double[] tempImplicit;
+
+	/**
+	 * Work array of the elimination
+	 */
+	private final double[] upper;
+
+	private double boundaryTemp;
+
+	public ConductionColumn(int nodes)
+	{
+		this.nodes = nodes;
+		capacity = new double[nodes];
+		conductance = new double[nodes];
+		temp = new double[nodes];
+		tempImplicit = new double[nodes];
+		upper = new double[nodes];
+	}
+
+	public void setNode(int node, double capacity, double temp)
+	{
+		this.capacity[node] = capacity;
+		this.temp[node] = temp;
+	}
+
+	public void setConductance(int node, double conductance)
+	{
+		this.conductance[node] = conductance;
+	}
+
+	public void setBoundaryTemp(double boundaryTemp)
+	{
+		this.boundaryTemp = boundaryTemp;
+	}
+
+	/**
+	 * Solves for the temperatures at the end of a step (Thomas algorithm)
+	 * 
+	 * @param dt Timestep (sec)
+	 */
+	public void solve(double dt)
+	{
+		if (dt <= 0)
+		{
+			System.arraycopy(temp, 0, tempImplicit, 0, nodes);
+			return;
+		}
+		// Row i: -G[i-1] T'[i-1] + (C[i]/dt + G[i-1] + G[i]) T'[i] - G[i] T'[i+1] = C[i]/dt T[i]
+		double upperPrev = 0;
+		double rhsPrev = 0;
+		for (int i = 0; i < nodes; i++)
+		{
+			double lower = i > 0 ? conductance[i - 1] : 0;
+			double diag = capacity[i] / dt + lower + conductance[i];
+			double rhs = capacity[i] / dt * temp[i];
+			if (i == nodes - 1)
+			{
+				rhs += conductance[i] * boundaryTemp;
+			}
+			double pivot = diag + lower * upperPrev;
+			upper[i] = i < nodes - 1 ? -conductance[i] / pivot : 0;
+			rhsPrev = (rhs + lower * rhsPrev) / pivot;
+			upperPrev = upper[i];
+			tempImplicit[i] = rhsPrev;
+		}
+		for (int i = nodes - 2; i >= 0; i--)
+		{
+			tempImplicit[i] -= upper[i] * tempImplicit[i + 1];
+		}
+	}
+
+	/**
+	 * Conduction flux below a node at the end of the step
+	 * 
+	 * @param node Upper node of the connection
+	 * @return Rate of heat transfer downward (kJ sec<sup><small>-1</small></sup>)
+	 */
+	public double getFlux(int node)
+	{
+		double below = node < nodes - 1 ? tempImplicit[node + 1] : boundaryTemp;
+		return conductance[node] * (tempImplicit[node] - below);
+	}
+
+	public double getTempImplicit(int node)
+	{
+		return tempImplicit[node];
+	}
+
+}
@@ -0,0 +1,62 @@
+package edu.montana.cerg.tempsignal.heat.edge;
+
+/**
+ * Conductive heat flux across a bed or aquifer layer, shared by the
+ * <code>bedexchange</code>, <code>bedexchangealternate</code> and
+ * <code>gwexchange</code> behaviors.
+ *
+ * <p>The conduction length is half the thickness of the layer
+ * (volume/area/2), so the conductance is k&middot;A/L. The conductance is
+ * cached and only recomputed when the thermal conductivity, volume or area
+ * change; for static geometry each call is one subtraction and one
+ * multiply, with no allocation. Values are identical to evaluating the
+ * full expression every call.</p>
+ */
+public final class ConductionKernel {
+
+	private double thermCondEff = Double.NaN;
+	private double volume = Double.NaN;
+	private double area = Double.NaN;
+
+	/**
+	 * Conductance of the layer (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+	 */
+	private double conductance;
+
+	/**
+	 * Computes the conductive heat flux through the layer
+	 *
+	 * @param thermCondEff Effective thermal conductivity (kJ m<sup><small>-1</small></sup> sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+	 * @param volume Volume of the layer (m<sup><small>3</small></sup>)
+	 * @param area Area of the layer (m<sup><small>2</small></sup>)
+	 * @param tempFrom Temperature on the 'from' side (&deg;C)
+	 * @param tempTo Temperature on the 'to' side (&deg;C)
+	 * @return Rate of heat transfer from the 'from' side to the 'to' side (kJ sec<sup><small>-1</sup></small>)
+	 */
+	public double flux(double thermCondEff, double volume, double area, double tempFrom, double tempTo)
+	{
+		return getConductance(thermCondEff, volume, area) * (tempFrom - tempTo);
+	}
+
+	/**
+	 * Gets the conductance of the layer, recomputing it only if an input changed
+	 *
+	 * @param thermCondEff Effective thermal conductivity (kJ m<sup><small>-1</small></sup> sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+	 * @param volume Volume of the layer (m<sup><small>3</small></sup>)
+	 * @param area Area of the layer (m<sup><small>2</small></sup>)
+	 * @return Conductance (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+	 */
+	public double getConductance(double thermCondEff, double volume, double area)
+	{
+		if (thermCondEff != this.thermCondEff || volume != this.volume || area != this.area)
+		{
+			this.thermCondEff = thermCondEff;
+			this.volume = volume;
+			this.area = area;
+			double length = ( volume / area ) / 2;
+			conductance = (thermCondEff / length) * area;
+		}
+		return conductance;
+	}
+
+}
@@ -0,0 +1,358 @@
+package edu.montana.cerg.tempsignal.heat.edge;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.neosimulation.neo.framework.SimulationModel;
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.time.TimeKeeper;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.WaterProperties;
+
+/**
+ * Implicit conduction for the channel-hyporheic-groundwater column of one
+ * hyporheic cell, shared by the implicit <code>bedexchange</code> and
+ * <code>gwexchange</code> behaviors.
+ * 
+ * <p>The column has the channel cell (if its bed face is implicit) and the
+ * hyporheic cell as nodes, with the groundwater temperature as the fixed
+ * boundary below. Heat capacities come from the channel water and the
+ * hyporheic Volume, Porosity, density and specific heat states;
+ * conductances are the ones of {@link ConductionKernel}. The column is
+ * solved by {@link ConductionColumn} once per simulation time, by the first
+ * face called at that time, and each face returns its flux at the
+ * end-of-step temperatures.</p>
+ * 
+ * <p>The step is the {@link #OPT_STATE_TIME_STEP} state of the bed or
+ * groundwater face, which must be set to the model timestep; a column
+ * without it is rejected when first solved, and a step that differs from
+ * the advance of the clock between two solves is a severe error.</p>
+ * 
+ * <p>The channel node takes the whole heat capacity of the channel cell,
+ * which is only right if the cell has one implicit bed face: with several
+ * hyporheic cells under one channel cell, each column would draw on the
+ * same capacity and the combined flux could overshoot. A channel cell with
+ * implicit bed faces to more than one hyporheic cell is rejected during
+ * wiring.</p>
+ */
+public class ImplicitConduction {
+
+	/**
+	 * Name of the state for the timestep of the implicit solution (sec), required
+	 * on the bed or groundwater face of each column
+	 */
+	public static final String OPT_STATE_TIME_STEP = "ImplicitTimeStep";
+
+	/**
+	 * Column of each hyporheic cell, held weakly: the column refers to
+	 * states of the cell and is kept alive by the implicit faces
+	 */
+	private static final Map<Holon, WeakReference<ImplicitConduction>> columns = 
+			new WeakHashMap<Holon, WeakReference<ImplicitConduction>>();
+
+	/**
+	 * Column of each channel cell with an implicit bed face, held weakly
+	 */
+	private static final Map<Holon, WeakReference<ImplicitConduction>> channelColumns = 
+			new WeakHashMap<Holon, WeakReference<ImplicitConduction>>();
+
+	/**
+	 * Relative difference allowed between the timestep state and the advance
+	 * of the clock
+	 */
+	private static final double STEP_TOLERANCE = 1e-9;
+
+	private SimulationModel model;
+	private TimeKeeper timeKeeper;
+	private StateDouble timeStep;
+
+	// Channel node
+	private boolean hasChannel;
+	private StateDouble channelWater;
+	private StateDouble channelTemp;
+	private StateDouble channelDensity;
+	private double channelSpHeat;
+	private boolean channelEquationOfState;
+
+	// Hyporheic node
+	private StateDouble densityWater;
+	private StateDouble densitySediment;
+	private StateDouble spHeatWater;
+	private StateDouble spHeatSediment;
+	private StateDouble volume;
+	private StateDouble porosity;
+	private StateDouble area;
+	private StateDouble hypoTemp;
+
+	// Connections
+	private StateDouble bedThermCondEff;
+	private final ConductionKernel bedKernel = new ConductionKernel();
+	private boolean hasGround;
+	private StateDouble groundThermCondEff;
+	private StateDouble groundTemp;
+	private final ConductionKernel groundKernel = new ConductionKernel();
+
+	private ConductionColumn column;
+
+	/**
+	 * Simulation time of the last solve
+	 */
+	private double solveTime = Double.NaN;
+
+	/**
+	 * Gets the column of a hyporheic cell
+	 * 
+	 * @param hypoCell Hyporheic cell
+	 * @return Column shared by the implicit faces of the cell
+	 */
+	public static synchronized ImplicitConduction getInstance(Holon hypoCell)
+	{
+		WeakReference<ImplicitConduction> reference = columns.get(hypoCell);
+		ImplicitConduction column = reference == null ? null : reference.get();
+		if (column == null)
+		{
+			column = new ImplicitConduction();
+			column.model = hypoCell.getSimulationModel();
+			column.timeKeeper = column.model.getTimeKeeper();
+			columns.put(hypoCell, new WeakReference<ImplicitConduction>(column));
+		}
+		return column;
+	}
+
+	/**
+	 * Gets the column under a channel cell
+	 * 
+	 * @param channelCell Channel cell
+	 * @return Column of the hyporheic cell under the channel cell, or null
+	 *          if the cell has no implicit bed face
+	 */
+	public static synchronized ImplicitConduction findBed(Holon channelCell)
+	{
+		WeakReference<ImplicitConduction> reference = channelColumns.get(channelCell);
+		return reference == null ? null : reference.get();
+	}
+
+	/**
+	 * Registers the states of the hyporheic cell (the first registration is kept)
+	 */
+	public void setHyporheic(StateDouble densityWater, StateDouble densitySediment, 
+			StateDouble spHeatWater, StateDouble spHeatSediment, StateDouble volume, 
+			StateDouble porosity, StateDouble area, StateDouble temp)
+	{
+		if (hypoTemp != null)
+		{
+			return;
+		}
+		this.densityWater = densityWater;
+		this.densitySediment = densitySediment;
+		this.spHeatWater = spHeatWater;
+		this.spHeatSediment = spHeatSediment;
+		this.volume = volume;
+		this.porosity = porosity;
+		this.area = area;
+		this.hypoTemp = temp;
+	}
+
+	/**
+	 * Sets the timestep state of a face, if it has one (the first one found is kept)
+	 */
+	public void setTimeStep(StateDouble timeStep)
+	{
+		if (this.timeStep == null)
+		{
+			this.timeStep = timeStep;
+		}
+	}
+
+	/**
+	 * Registers the bed face between the channel and the hyporheic cell
+	 * 
+	 * @throws IllegalStateException if the channel cell already has an
+	 *          implicit bed face to another hyporheic cell
+	 */
+	public void registerBed(Holon channelCell, StateDouble thermCondEff, StateDouble water, 
+			StateDouble temp, double spHeat, StateDouble density, boolean equationOfState)
+	{
+		checkNotBuilt();
+		synchronized (ImplicitConduction.class)
+		{
+			WeakReference<ImplicitConduction> reference = channelColumns.get(channelCell);
+			ImplicitConduction other = reference == null ? null : reference.get();
+			if (other != null && other != this)
+			{
+				String message = "Channel cell " + channelCell.getName() + 
+						" has implicit bed faces to more than one hyporheic cell";
+				model.getLogger().logSevere(message);
+				throw new IllegalStateException(message);
+			}
+			channelColumns.put(channelCell, new WeakReference<ImplicitConduction>(this));
+		}
+		hasChannel = true;
+		bedThermCondEff = thermCondEff;
+		channelWater = water;
+		channelTemp = temp;
+		channelSpHeat = spHeat;
+		channelDensity = density;
+		channelEquationOfState = equationOfState;
+	}
+
+	/**
+	 * Registers the groundwater face below the hyporheic cell
+	 */
+	public void registerGround(StateDouble thermCondEff, StateDouble temp)
+	{
+		checkNotBuilt();
+		hasGround = true;
+		groundThermCondEff = thermCondEff;
+		groundTemp = temp;
+	}
+
+	/**
+	 * Gets the conduction from the channel into the hyporheic cell
+	 * 
+	 * @return Rate of heat transfer (kJ sec<sup><small>-1</small></sup>)
+	 */
+	public double getBedFlux()
+	{
+		update();
+		return column.getFlux(0);
+	}
+
+	/**
+	 * Gets the conduction from the hyporheic cell into groundwater
+	 * 
+	 * @return Rate of heat transfer (kJ sec<sup><small>-1</small></sup>)
+	 */
+	public double getGroundFlux()
+	{
+		update();
+		return column.getFlux(hasChannel ? 1 : 0);
+	}
+
+	/**
+	 * Gets the current conductance between the channel and the hyporheic cell
+	 * 
+	 * @return Conductance (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>), 0 without an implicit bed face
+	 */
+	public double getBedConductance()
+	{
+		return hasChannel ? bedKernel.getConductance(bedThermCondEff.value, volume.value, area.value) : 0;
+	}
+
+	/**
+	 * Gets the current heat capacity of the hyporheic cell, water and sediment
+	 * 
+	 * @return Heat capacity (kJ &deg;C<sup><small>-1</small></sup>)
+	 */
+	public double getHyporheicCapacity()
+	{
+		return volume.value * porosity.value * densityWater.value * spHeatWater.value +
+				volume.value * (1 - porosity.value) * densitySediment.value * spHeatSediment.value;
+	}
+
+	/**
+	 * Gets the current conductance between the hyporheic cell and groundwater
+	 * 
+	 * @return Conductance (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>), 0 without an implicit groundwater face
+	 */
+	public double getGroundConductance()
+	{
+		return hasGround ? groundKernel.getConductance(groundThermCondEff.value, volume.value, area.value) : 0;
+	}
+
+	/**
+	 * Gets the current groundwater temperature below the hyporheic cell
+	 * 
+	 * @return Temperature (&deg;C), NaN without an implicit groundwater face
+	 */
+	public double getGroundTemp()
+	{
+		return hasGround ? groundTemp.value : Double.NaN;
+	}
+
+	/**
+	 * Gets the current temperature of the hyporheic cell
+	 * 
+	 * @return Temperature (&deg;C)
+	 */
+	public double getHyporheicTemp()
+	{
+		return hypoTemp.value;
+	}
+
+	private void update()
+	{
+		if (column == null)
+		{
+			if (timeStep == null)
+			{
+				throw new IllegalStateException("Implicit conduction requires an " + 
+						OPT_STATE_TIME_STEP + " state on the bed or groundwater face");
+			}
+			column = new ConductionColumn(hasChannel ? 2 : 1);
+		}
+		double time = timeKeeper.getCurrentTime();
+		if (time != solveTime)
+		{
+			if (time > solveTime)
+			{
+				checkTimeStep(time - solveTime);
+			}
+			solve();
+			solveTime = time;
+		}
+	}
+
+	/**
+	 * Checks the timestep state against the advance of the clock
+	 * 
+	 * @param step Time since the last solve (sec)
+	 */
+	private void checkTimeStep(double step)
+	{
+		if (Math.abs(timeStep.value - step) > STEP_TOLERANCE * step)
+		{
+			String message = OPT_STATE_TIME_STEP + " is " + timeStep.value + 
+					" sec but the model steps by " + step + " sec";
+			model.getLogger().logSevere(message);
+			throw new IllegalStateException(message);
+		}
+	}
+
+	private void solve()
+	{
+		int hypo = 0;
+		if (hasChannel)
+		{
+			double temp = channelTemp.value;
+			double capacity;
+			if (channelEquationOfState)
+				capacity = channelWater.value * WaterProperties.heatCapacity(temp);
+			else
+				capacity = channelWater.value * channelSpHeat * 
+						(channelDensity == null ? HeatCurrency.DENSITY_WATER_10 : channelDensity.value);
+			column.setNode(0, capacity, temp);
+			column.setConductance(0, getBedConductance());
+			hypo = 1;
+		}
+		column.setNode(hypo, getHyporheicCapacity(), hypoTemp.value);
+		if (hasGround)
+		{
+			column.setConductance(hypo, getGroundConductance());
+			column.setBoundaryTemp(groundTemp.value);
+		}
+		column.solve(timeStep.value);
+	}
+
+	private void checkNotBuilt()
+	{
+		if (column != null)
+		{
+			throw new IllegalStateException("Implicit conduction column is already in use");
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Conduction between the atmosphere and the water surface, computed for
+ * all exchange faces of the model at once by the
+ * {@link ChannelNetworkBinding}.
+ * 
+ * <p>Values are identical to the atmexchange behavior. The surface
+ * temperature is read from the network if the channel cell uses
+ * <code>heat.cell.channel.batched</code>, otherwise from its state.</p>
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+    private ChannelNetworkBinding binding;
+    private int face;
+
+    @Override
+    public double calculate()
+    {
+        return binding.getExchangeHeat(face);
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        StateDouble thermCondEff = (StateDouble)createDependency(
+                edu.montana.cerg.tempsignal.heat.edge.atmexchange.Heat.REQ_STATE_THERM_COND_EFF);
+        Cell atmCell = ((Face)holon).getEdge().getFromCell();
+        StateDouble tempAtm = (StateDouble)createDependency(
+                atmCell, 
+                edu.montana.cerg.tempsignal.heat.cell.atmosphere.Temp.class.getSimpleName());
+        Cell surfaceCell = ((Face)holon).getEdge().getToCell();
+        StateDouble area = (StateDouble)createDependency(
+                surfaceCell,
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.REQ_STATE_TOCELL_AREA);
+        StateDouble tempSurface = (StateDouble)createDependency(
+                surfaceCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Temp.class.getSimpleName());
+
+        binding = ChannelNetworkBinding.getInstance(holon);
+        face = binding.registerExchange(atmCell, tempAtm, surfaceCell, tempSurface, thermCondEff, area, null);
+    }
+
+}
@@ -0,0 +1,152 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic;
+
+import edu.montana.cerg.tempsignal.heat.Constants;
+
+/**
+ * Arithmetic kernels for the components of the energy balance across
+ * the air-water interface.
+ *
+ * <p>The calculators called by <code>Heat</code> delegate to these methods,
+ * so the same arithmetic can be exercised without the holon and state
+ * wiring (e.g. by the benchmark harnesses).</p>
+ *
+ * @see Heat
+ */
+public final class AirWaterFlux {
+
+	private AirWaterFlux()
+	{
+	}
+
+	/**
+	 * Longwave radiation emitted by water
+	 *
+	 * @param emissivity Emissivity of water (fraction of energy)
+	 * @param tempC Water temperature (&deg;C)
+	 * @return longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @see LongwaveFluxWater
+	 */
+	public static double longwaveFluxWater(double emissivity, double tempC)
+	{
+		return -emissivity * Constants.STEFBOLTZ * Math.pow((tempC + 273.15), 4.0);
+	}
+
+	/**
+	 * Longwave radiation emitted by the atmosphere
+	 *
+	 * @param emissivity Effective emissivity of air (fraction of energy)
+	 * @param tempKelvin Air temperature (&deg;K)
+	 * @return longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @see LongwaveFluxAir
+	 */
+	public static double longwaveFluxAir(double emissivity, double tempKelvin)
+	{
+		return emissivity * Constants.STEFBOLTZ * Math.pow((tempKelvin), 4.0);
+	}
+
+	/**
+	 * Longwave radiation emitted by water and by the atmosphere over
+	 * arrays of faces, in one loop of multiplies (the fourth powers are
+	 * two squarings) with no calls, which the JIT can unroll and vectorize.
+	 * Values agree with {@link #longwaveFluxWater(double, double)} and
+	 * {@link #longwaveFluxAir(double, double)} to a few ulps.
+	 *
+	 * @param emissivityWater Emissivity of water (fraction of energy)
+	 * @param tempWaterC Water temperature (&deg;C)
+	 * @param emissivityAir Effective emissivity of air (fraction of energy)
+	 * @param tempAirKelvin Air temperature (&deg;K)
+	 * @param fluxWater Destination of the longwave radiation emitted by water
+	 * @param fluxAir Destination of the longwave radiation emitted by the atmosphere
+	 * @param from First face
+	 * @param to End of the faces (exclusive)
+	 * @see LongwaveBatch
+	 */
+	public static void longwaveFluxes(double[] emissivityWater, double[] tempWaterC,
+			double[] emissivityAir, double[] tempAirKelvin, double[] fluxWater, double[] fluxAir,
+			int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			double tempWaterK = tempWaterC[i] + 273.15;
+			double water2 = tempWaterK * tempWaterK;
+			fluxWater[i] = -emissivityWater[i] * Constants.STEFBOLTZ * (water2 * water2);
+			double air2 = tempAirKelvin[i] * tempAirKelvin[i];
+			fluxAir[i] = emissivityAir[i] * Constants.STEFBOLTZ * (air2 * air2);
+		}
+	}
+
+	/**
+	 * Net longwave radiation exchanged between surface water and air
+	 *
+	 * @param longwaveAir Longwave radiation from air (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @param longwaveWater Longwave radiation from water (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @return net longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @see LongwaveNet
+	 */
+	public static double longwaveNet(double longwaveAir, double longwaveWater)
+	{
+		return (longwaveAir * 0.96) + longwaveWater;
+	}
+
+	/**
+	 * Penman type evaporation (negative) or condensation (positive) rate
+	 *
+	 * @param penmanInt Intercept of the Penman wind function
+	 * @param penmanSlope Slope of the Penman wind function
+	 * @param speedWind Wind speed (m sec<sup><small>-1</small></sup>)
+	 * @param vaporPressureAir Vapor pressure in the air (mbar)
+	 * @param vaporPressureSat Saturated vapor pressure at water temperature (mbar)
+	 * @return Evaporation rate (m sec<sup><small>-1</small></sup>)
+	 * @see Evaporation
+	 */
+	public static double evaporation(double penmanInt, double penmanSlope, double speedWind,
+			double vaporPressureAir, double vaporPressureSat)
+	{
+		return ((penmanInt + (penmanSlope * speedWind))
+				* (vaporPressureAir - vaporPressureSat)) / 8.64e7;
+	}
+
+	/**
+	 * Heat flux due to evaporation or condensation
+	 *
+	 * @param evaporation Evaporation rate (m sec<sup><small>-1</small></sup>)
+	 * @param latentVapWater Latent heat of vaporization (kJ kg<sup><small>-1</small></sup>)
+	 * @return Heat flux (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @see HeatLatentEvap
+	 */
+	public static double heatLatentEvap(double evaporation, double latentVapWater)
+	{
+		return (evaporation * Constants.DENS_H2O_LIQ * latentVapWater);
+	}
+
+	/**
+	 * Ratio of latent heat transfer to sensible heat transfer (Bowen 1926)
+	 *
+	 * @param pressureAtm Atmospheric pressure (mbar)
+	 * @param tempWaterC Water temperature (&deg;C)
+	 * @param tempAirC Air temperature (&deg;C)
+	 * @param vaporPressureSat Saturated vapor pressure at water temperature (mbar)
+	 * @param vaporPressureAir Vapor pressure in the air (mbar)
+	 * @return Bowen ratio (fraction of heat flux)
+	 * @see BowenRatio
+	 */
+	public static double bowenRatio(double pressureAtm, double tempWaterC, double tempAirC,
+			double vaporPressureSat, double vaporPressureAir)
+	{
+		return 0.00061 * pressureAtm * ((tempWaterC - tempAirC) / (vaporPressureSat - vaporPressureAir));
+	}
+
+	/**
+	 * Sensible heat flux
+	 *
+	 * @param bowenRatio Bowen ratio (fraction of heat flux)
+	 * @param heatLatentEvap Latent heat flux (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @return Heat flux (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 * @see HeatSensible
+	 */
+	public static double heatSensible(double bowenRatio, double heatLatentEvap)
+	{
+		return bowenRatio * heatLatentEvap;
+	}
+
+}
@@ -63,7 +63,8 @@ public class BowenRatio extends ManualDynamDouble {
 	public double calculate() 
 	{
 
-		return 0.00061 * pressureAtm.value	* ((tempWaterC.value - tempAirC.value) / (vaporPressureSat.value - vaporPressureAir.value)) ;
+		return AirWaterFlux.bowenRatio(pressureAtm.value, tempWaterC.value, tempAirC.value,
+				vaporPressureSat.value, vaporPressureAir.value);
 	}
 
 	/**
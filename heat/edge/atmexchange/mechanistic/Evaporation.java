@@ -67,8 +67,8 @@ public class Evaporation extends ManualDynamDouble {
 	@Override
 	public double calculate() 
 	{
-		return ((penmanInt.value + (penmanSlope.value * speedWind.value)) 
-				* (vaporPressureAir.value - vaporPressureSat.value)) / 8.64e7;	
+		return AirWaterFlux.evaporation(penmanInt.value, penmanSlope.value, speedWind.value,
+				vaporPressureAir.value, vaporPressureSat.value);
 	}
 
 	/**
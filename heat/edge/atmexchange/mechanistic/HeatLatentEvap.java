@@ -4,7 +4,6 @@ import org.neosimulation.neo.framework.holon.Cell;
 import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.ManualDynamDouble;
-import edu.montana.cerg.tempsignal.heat.Constants;
 
 
 /**
@@ -57,8 +56,7 @@ public class HeatLatentEvap extends ManualDynamDouble {
 	public double calculate() 
 	{
 		evaporationDynam.doUpdate();
-		// Note that H2Okgm3 is the density of liquid water in kg per cubic meter
-		return (evaporation.value * Constants.DENS_H2O_LIQ * latentVapWater.value);
+		return AirWaterFlux.heatLatentEvap(evaporation.value, latentVapWater.value);
 		
 	}
 
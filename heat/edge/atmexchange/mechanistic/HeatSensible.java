@@ -47,7 +47,7 @@ public class HeatSensible extends ManualDynamDouble {
 	{
 		bowenRatioDynam.doUpdate();
 		//heatLatentDynam.doUpdate();
-		return bowenRatio.value * heatLatentEvap.value;
+		return AirWaterFlux.heatSensible(bowenRatio.value, heatLatentEvap.value);
 		
 	}
 
@@ -0,0 +1,235 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+
+/**
+ * Computes the longwave radiation of every batched air-water exchange
+ * face of a model in one pass over primitive arrays.
+ * 
+ * <p>During wiring, the batched <code>LongwaveFluxWater</code> and
+ * <code>LongwaveFluxAir</code> of each face register their input states.
+ * The first <code>LongwaveFluxWater</code> called in a round gathers the
+ * water temperature and emissivity and the air temperature and emissivity
+ * of all faces into arrays and computes both fluxes of all faces with
+ * {@link AirWaterFlux#longwaveFluxes}. Each dynam then returns its
+ * element of the result arrays.</p>
+ * 
+ * <p>NEO does not guarantee that the temperature of every cell has been
+ * updated before the first face of a round asks for its flux, so each
+ * face checks its own inputs against the gathered values and recomputes
+ * its element if any of them moved after the gather. Results therefore
+ * never come from stale inputs, whatever the order of the round.</p>
+ * 
+ * <p>A round is counted as one call of every registered
+ * <code>LongwaveFluxWater</code>.</p>
+ */
+public class LongwaveBatch {
+
+    /**
+     * Batch of each simulation model. Held weakly: the batch refers to the
+     * holons of its model, and lives as long as the dynams that use it.
+     */
+    private static final Map<Object, WeakReference<LongwaveBatch>> batches = 
+            new WeakHashMap<Object, WeakReference<LongwaveBatch>>();
+
+    private final Map<Holon, Integer> faceNumbers = new IdentityHashMap<Holon, Integer>();
+
+    private final List<StateDouble[]> inputs = new ArrayList<StateDouble[]>();
+
+    /*
+     * Input states of each face
+     */
+    private StateDouble[] emissivityWaterStates;
+    private StateDouble[] tempWaterStates;
+    private StateDouble[] emissivityAirStates;
+    private StateDouble[] tempAirStates;
+
+    /*
+     * Gathered inputs and results of each face
+     */
+    private double[] emissivityWater;
+    private double[] tempWater;
+    private double[] emissivityAir;
+    private double[] tempAir;
+    private double[] fluxWater;
+    private double[] fluxAir;
+
+    private int waterCalls;
+
+    /**
+     * Gets the batch of a simulation model
+     * 
+     * @param holon Any holon of the model
+     * @return Batch shared by the batched longwave dynams of the model
+     */
+    public static synchronized LongwaveBatch getInstance(Holon holon)
+    {
+        Object model = holon.getSimulationModel();
+        WeakReference<LongwaveBatch> reference = batches.get(model);
+        LongwaveBatch batch = reference == null ? null : reference.get();
+        if (batch == null)
+        {
+            batch = new LongwaveBatch();
+            batches.put(model, new WeakReference<LongwaveBatch>(batch));
+        }
+        return batch;
+    }
+
+    /**
+     * Registers the water side of a face
+     * 
+     * @param face Air-water exchange face
+     * @param emissivity Emissivity state of the water cell
+     * @param tempC Temperature state of the water cell
+     * @return Number of the face in the batch
+     */
+    public synchronized int registerWater(Holon face, StateDouble emissivity, StateDouble tempC)
+    {
+        int number = getFaceNumber(face);
+        inputs.get(number)[0] = emissivity;
+        inputs.get(number)[1] = tempC;
+        return number;
+    }
+
+    /**
+     * Registers the air side of a face
+     * 
+     * @param face Air-water exchange face
+     * @param emissivity Emissivity state of the air cell
+     * @param tempKelvin Temperature state (&deg;K) of the air cell
+     * @return Number of the face in the batch
+     */
+    public synchronized int registerAir(Holon face, StateDouble emissivity, StateDouble tempKelvin)
+    {
+        int number = getFaceNumber(face);
+        inputs.get(number)[2] = emissivity;
+        inputs.get(number)[3] = tempKelvin;
+        return number;
+    }
+
+    private int getFaceNumber(Holon face)
+    {
+        if (emissivityWater != null)
+        {
+            throw new IllegalStateException("Longwave batch is already built");
+        }
+        Integer number = faceNumbers.get(face);
+        if (number == null)
+        {
+            number = inputs.size();
+            faceNumbers.put(face, number);
+            inputs.add(new StateDouble[4]);
+        }
+        return number;
+    }
+
+    /**
+     * Gets the longwave radiation emitted by the water of a face for the
+     * current round
+     * 
+     * @param face Number of the face
+     * @return longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+     */
+    public double getFluxWater(int face)
+    {
+        if (emissivityWater == null)
+        {
+            build();
+        }
+        if (waterCalls == 0)
+        {
+            gather();
+            AirWaterFlux.longwaveFluxes(emissivityWater, tempWater, emissivityAir, tempAir, 
+                    fluxWater, fluxAir, 0, fluxWater.length);
+        }
+        if (++waterCalls == fluxWater.length)
+        {
+            waterCalls = 0;
+        }
+        if (emissivityWaterStates[face].value != emissivityWater[face] ||
+                tempWaterStates[face].value != tempWater[face])
+        {
+            emissivityWater[face] = emissivityWaterStates[face].value;
+            tempWater[face] = tempWaterStates[face].value;
+            AirWaterFlux.longwaveFluxes(emissivityWater, tempWater, emissivityAir, tempAir, 
+                    fluxWater, fluxAir, face, face + 1);
+        }
+        return fluxWater[face];
+    }
+
+    /**
+     * Gets the longwave radiation emitted by the atmosphere over a face for
+     * the current round
+     * 
+     * @param face Number of the face
+     * @return longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+     */
+    public double getFluxAir(int face)
+    {
+        if (emissivityWater == null)
+        {
+            build();
+        }
+        if (emissivityAirStates[face].value != emissivityAir[face] ||
+                tempAirStates[face].value != tempAir[face])
+        {
+            emissivityAir[face] = emissivityAirStates[face].value;
+            tempAir[face] = tempAirStates[face].value;
+            AirWaterFlux.longwaveFluxes(emissivityWater, tempWater, emissivityAir, tempAir, 
+                    fluxWater, fluxAir, face, face + 1);
+        }
+        return fluxAir[face];
+    }
+
+    private synchronized void build()
+    {
+        if (emissivityWater != null)
+        {
+            return;
+        }
+        int faces = inputs.size();
+        emissivityWaterStates = new StateDouble[faces];
+        tempWaterStates = new StateDouble[faces];
+        emissivityAirStates = new StateDouble[faces];
+        tempAirStates = new StateDouble[faces];
+        for (int f = 0; f < faces; f++)
+        {
+            StateDouble[] states = inputs.get(f);
+            if (states[0] == null || states[2] == null)
+            {
+                throw new IllegalStateException(
+                        "Batched longwave face is missing its water or air flux dynam");
+            }
+            emissivityWaterStates[f] = states[0];
+            tempWaterStates[f] = states[1];
+            emissivityAirStates[f] = states[2];
+            tempAirStates[f] = states[3];
+        }
+        tempWater = new double[faces];
+        emissivityAir = new double[faces];
+        tempAir = new double[faces];
+        fluxWater = new double[faces];
+        fluxAir = new double[faces];
+        emissivityWater = new double[faces];
+    }
+
+    private void gather()
+    {
+        for (int f = 0; f < fluxWater.length; f++)
+        {
+            emissivityWater[f] = emissivityWaterStates[f].value;
+            tempWater[f] = tempWaterStates[f].value;
+            emissivityAir[f] = emissivityAirStates[f].value;
+            tempAir[f] = tempAirStates[f].value;
+        }
+    }
+
+}
@@ -5,8 +5,6 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.ManualDynamDouble;
 
-import edu.montana.cerg.tempsignal.heat.Constants;
-
 
 /**
  * Controls the flux of longwave radiation emitted by the atmosphere that will 
@@ -40,7 +38,7 @@ public class LongwaveFluxAir extends ManualDynamDouble {
 	@Override
 	public double calculate() {
 
-		return emissivity.value * Constants.STEFBOLTZ * Math.pow((tempKelvin.value), 4.0);
+		return AirWaterFlux.longwaveFluxAir(emissivity.value, tempKelvin.value);
 
 	}
 
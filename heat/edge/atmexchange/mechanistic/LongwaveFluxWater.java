@@ -5,8 +5,6 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.ManualDynamDouble;
 
-import edu.montana.cerg.tempsignal.heat.Constants;
-
 
 /**
  * <p>Calculates the longwave radiation emitted by the water in
@@ -44,7 +42,7 @@ public class LongwaveFluxWater extends ManualDynamDouble {
 	@Override
 	public double calculate() 
 	{
-		return -emissivity.value * Constants.STEFBOLTZ * Math.pow((tempC.value + 273.15), 4.0);	
+		return AirWaterFlux.longwaveFluxWater(emissivity.value, tempC.value);
 	}
 	
 	/**
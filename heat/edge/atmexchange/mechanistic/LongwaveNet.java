@@ -68,7 +68,7 @@ public class LongwaveNet extends ManualDynamDouble {
 		longwaveAirDynam.doUpdate();
 		
 		//return (longwaveAir.value * transmitLongwave) + longwaveWater.value;
-		return (longwaveAir.value * 0.96) + longwaveWater.value;
+		return AirWaterFlux.longwaveNet(longwaveAir.value, longwaveWater.value);
 	}
 
 	/**
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>BowenRatio</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.BowenRatio
+ */
+public class BowenRatio extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.BowenRatio {
+
+}
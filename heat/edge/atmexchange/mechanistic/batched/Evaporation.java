@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>Evaporation</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Evaporation
+ */
+public class Evaporation extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Evaporation {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>Heat</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat {
+
+}
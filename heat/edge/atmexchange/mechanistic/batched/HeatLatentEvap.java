@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>HeatLatentEvap</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatLatentEvap
+ */
+public class HeatLatentEvap extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatLatentEvap {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>HeatSensible</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatSensible
+ */
+public class HeatSensible extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatSensible {
+
+}
@@ -0,0 +1,57 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.ManualDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveBatch;
+
+/**
+ * Longwave radiation emitted by the atmosphere in the 'from' patch,
+ * computed for all batched faces at once by the {@link LongwaveBatch} of
+ * the model.
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveFluxAir
+ */
+public class LongwaveFluxAir extends ManualDynamDouble {
+
+	private static final String REQ_STATE_TEMP_K = "TempKelvin";
+	private static final String REQ_STATE_EMISSIVITY = "Emissivity";
+
+	private LongwaveBatch batch;
+
+	private int face;
+
+	/**
+	 * Gets the longwave radiation emitted by the atmosphere from the batch
+	 * 
+	 * @return Longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 */
+	@Override
+	public double calculate()
+	{
+		return batch.getFluxAir(face);
+	}
+
+	@Override
+	public double initialize()
+	{
+		return calculate();
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		Cell atmCell = ((Face)holon).getEdge().getFromCell();
+
+		StateDouble emissivity = (StateDouble)createDependency(atmCell, REQ_STATE_EMISSIVITY);
+		StateDouble tempKelvin = (StateDouble)createDependency(atmCell, REQ_STATE_TEMP_K);
+		if (batch == null)
+		{
+			batch = LongwaveBatch.getInstance(holon);
+			face = batch.registerAir(holon, emissivity, tempKelvin);
+		}
+	}
+
+}
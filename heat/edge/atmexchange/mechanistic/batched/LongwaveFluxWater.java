@@ -0,0 +1,56 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.ManualDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveBatch;
+
+/**
+ * Longwave radiation emitted by the water in the 'to' patch, computed for
+ * all batched faces at once by the {@link LongwaveBatch} of the model.
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveFluxWater
+ */
+public class LongwaveFluxWater extends ManualDynamDouble {
+
+	private static final String REQ_STATE_TEMP_C = "Temp";
+	private static final String REQ_STATE_EMISSIVITY = "Emissivity";
+
+	private LongwaveBatch batch;
+
+	private int face;
+
+	/**
+	 * Gets the longwave radiation emitted by water from the batch
+	 * 
+	 * @return longwave radiation (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 */
+	@Override
+	public double calculate()
+	{
+		return batch.getFluxWater(face);
+	}
+
+	@Override
+	public double initialize()
+	{
+		return calculate();
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		Cell toCell = ((Face)holon).getEdge().getToCell();
+
+		StateDouble emissivity = (StateDouble)createDependency(toCell, REQ_STATE_EMISSIVITY);
+		StateDouble tempC = (StateDouble)createDependency(toCell, REQ_STATE_TEMP_C);
+		if (batch == null)
+		{
+			batch = LongwaveBatch.getInstance(holon);
+			face = batch.registerWater(holon, emissivity, tempC);
+		}
+	}
+
+}
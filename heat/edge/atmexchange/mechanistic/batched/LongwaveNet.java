@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>LongwaveNet</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveNet
+ */
+public class LongwaveNet extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveNet {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>PenmanSlope</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.PenmanSlope
+ */
+public class PenmanSlope extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.PenmanSlope {
+
+}
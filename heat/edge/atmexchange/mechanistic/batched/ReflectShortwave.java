@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>ReflectShortwave</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ReflectShortwave
+ */
+public class ReflectShortwave extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ReflectShortwave {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>ShortwaveFlux</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ShortwaveFlux
+ */
+public class ShortwaveFlux extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ShortwaveFlux {
+
+}
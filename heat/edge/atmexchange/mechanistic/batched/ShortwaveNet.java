@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.batched;
+
+/**
+ * Same as the mechanistic <code>ShortwaveNet</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ShortwaveNet
+ */
+public class ShortwaveNet extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ShortwaveNet {
+
+}
@@ -0,0 +1,81 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+import org.neosimulation.neo.user.ManualDynamDouble;
+
+/**
+ * Controls a component of the air-water energy balance whose value is
+ * computed by the fused <code>Heat</code> and published through this dynam,
+ * so the state keeps the name and value it has in the mechanistic behavior.
+ * 
+ * @see Heat
+ */
+public abstract class FusedComponent extends ManualDynamDouble {
+
+	/**
+	 * Value most recently computed by <code>Heat</code>
+	 * (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 */
+	private double value;
+
+	/**
+	 * Publishes a value computed by <code>Heat</code> to the state
+	 * 
+	 * @param value New value of the state
+	 */
+	void publish(double value)
+	{
+		this.value = value;
+		doUpdate();
+	}
+
+	/**
+	 * Publishes the initial value computed by <code>Heat</code> to the state
+	 * 
+	 * @param value Initial value of the state
+	 */
+	void publishInitial(double value)
+	{
+		this.value = value;
+		doInitialize();
+	}
+
+	/**
+	 * Called by <code>Heat</code> at each step between the ticks of its
+	 * exchange interval, while the state keeps its value
+	 */
+	void hold()
+	{
+		held(value);
+	}
+
+	/**
+	 * Receives the held value at each step between ticks; does nothing
+	 * unless the component records its value
+	 * 
+	 * @param value Value of the state
+	 */
+	protected void held(double value)
+	{
+	}
+
+	@Override
+	public double calculate()
+	{
+		return value;
+	}
+
+	@Override
+	public double initialize()
+	{
+		return value;
+	}
+
+	/**
+	 * No dependencies, the value is computed by <code>Heat</code>
+	 */
+	@Override
+	public void setCalcDeps()
+	{
+	}
+
+}
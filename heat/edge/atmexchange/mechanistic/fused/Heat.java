@@ -0,0 +1,242 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.time.TimeKeeper;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.AirWaterFlux;
+import edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Evaporation;
+import edu.montana.cerg.tempsignal.heat.signal.CoarseClock;
+
+/**
+ * <p>Determines the movement of energy between surface water and air in a
+ * single pass.</p>
+ *
+ * <p>Same energy balance as the mechanistic <code>Heat</code>, but the
+ * components are computed here from one read of each input state instead
+ * of through the tree of calculators (<code>ShortwaveNet</code> &rarr;
+ * <code>ShortwaveFlux</code>, <code>LongwaveNet</code> &rarr;
+ * <code>LongwaveFluxWater</code>/<code>LongwaveFluxAir</code>,
+ * <code>HeatLatentEvap</code> &rarr; <code>Evaporation</code>,
+ * <code>HeatSensible</code> &rarr; <code>BowenRatio</code>). The net
+ * shortwave, net longwave, latent and sensible heat are still published to
+ * their states; the intermediate states of the mechanistic behavior are
+ * not created. Without an exchange interval the heat and the components
+ * have the values of the mechanistic behavior at every step.</p>
+ *
+ * <p>With a positive {@link #OPT_STATE_EXCHANGE_INTERVAL} state on the face,
+ * the balance is recomputed and the component states are updated once per
+ * interval; in between, the dynam returns the held heat and the component
+ * states keep their last values without being updated, while the channel
+ * and bed fluxes keep the model timestep. Recorded components record the
+ * held value at every step, so their output holds each value until the
+ * next tick rather than following the mechanistic behavior.</p>
+ *
+ * <p>'From' side of edge should be connected to an air patch and 'to' side of
+ * edge should be connected to a surface water patch.</p>
+ *
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat
+ * @see AirWaterFlux
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+	/**
+	 * Name of the optional state for the update interval of the exchange (sec)
+	 */
+	public static final String OPT_STATE_EXCHANGE_INTERVAL = "ExchangeInterval";
+
+	private static final String REQ_STATE_PRESSURE_ATM = "Pressure";
+	private static final String REQ_STATE_TEMP = "Temp";
+	private static final String REQ_STATE_TEMP_K = "TempKelvin";
+	private static final String REQ_STATE_EMISSIVITY = "Emissivity";
+	private static final String REQ_STATE_LATENT_VAP_WATER = "LatentVapWater";
+	private static final String REQ_STATE_FLUX_SHORTWAVE = "ShortwaveFlux";
+	private static final String REQ_BEHAVIOR_SOLAR = "heat.solarradflux.mechanistic";
+
+	/**
+	 * Wetted surface area of water in to patch (m<sup><small>2</sup></small>)
+	 */
+	private StateDouble areaWetted;
+	/**
+	 * Solar shortwave flux (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup>)
+	 */
+	private StateDouble shortwaveFlux;
+	/**
+	 * Atmospheric pressure (mbar)
+	 */
+	private StateDouble pressureAtm;
+	/**
+	 * Air temperature (&deg;C)
+	 */
+	private StateDouble tempAirC;
+	/**
+	 * Air temperature (&deg;K)
+	 */
+	private StateDouble tempAirK;
+	/**
+	 * Effective emissivity of air (fraction of energy)
+	 */
+	private StateDouble emissivityAir;
+	/**
+	 * Vapor pressure in the air (mbar)
+	 */
+	private StateDouble vaporPressureAir;
+	/**
+	 * Wind speed (m sec<sup><small>-1</small></sup>)
+	 */
+	private StateDouble speedWind;
+	/**
+	 * Water temperature (&deg;C)
+	 */
+	private StateDouble tempWaterC;
+	/**
+	 * Emissivity of water (fraction of energy)
+	 */
+	private StateDouble emissivityWater;
+	/**
+	 * Saturated vapor pressure at the water temperature (mbar)
+	 */
+	private StateDouble vaporPressureSat;
+	/**
+	 * Latent heat of vaporization for water (kJ kg<sup><small>-1</small></sup>)
+	 */
+	private StateDouble latentVapWater;
+	/**
+	 * Intercept for the empirical Penman linear wind function
+	 */
+	private StateDouble penmanInt;
+	/**
+	 * Slope for the empirical Penman linear wind function
+	 */
+	private StateDouble penmanSlope;
+
+	private FusedComponent shortwaveNetDynam;
+	private FusedComponent longwaveNetDynam;
+	private FusedComponent heatLatentEvapDynam;
+	private FusedComponent heatSensibleDynam;
+
+	private TimeKeeper timeKeeper;
+	private CoarseClock clock;
+	private double heat;
+
+	// Components from the most recent pass
+	private double shortwaveNet;
+	private double longwaveNet;
+	private double heatLatentEvap;
+	private double heatSensible;
+
+	@Override
+	public double initialize()
+	{
+		computeComponents();
+		shortwaveNetDynam.publishInitial(shortwaveNet);
+		longwaveNetDynam.publishInitial(longwaveNet);
+		heatLatentEvapDynam.publishInitial(heatLatentEvap);
+		heatSensibleDynam.publishInitial(heatSensible);
+		return 0;
+	}
+
+	/**
+	 * Computes the net energy transfer between air and water.
+	 *
+	 * @return Rate of net energy transfer (kJ sec<sup><small>-1</sup></small>)
+	 */
+	@Override
+	public double calculate()
+	{
+		if (clock.isDue(timeKeeper.getCurrentTime()))
+		{
+			computeComponents();
+			heat = areaWetted.value * (shortwaveNet + longwaveNet + heatLatentEvap + heatSensible);
+			shortwaveNetDynam.publish(shortwaveNet);
+			longwaveNetDynam.publish(longwaveNet);
+			heatLatentEvapDynam.publish(heatLatentEvap);
+			heatSensibleDynam.publish(heatSensible);
+		}
+		else
+		{
+			shortwaveNetDynam.hold();
+			longwaveNetDynam.hold();
+			heatLatentEvapDynam.hold();
+			heatSensibleDynam.hold();
+		}
+
+		return heat;
+	}
+
+	/**
+	 * Computes the four components of the energy balance from one read of
+	 * each input state
+	 */
+	private void computeComponents()
+	{
+		double tempWater = tempWaterC.value;
+		double vapAir = vaporPressureAir.value;
+		double vapSat = vaporPressureSat.value;
+
+		shortwaveNet = shortwaveFlux.value;
+		longwaveNet = AirWaterFlux.longwaveNet(
+				AirWaterFlux.longwaveFluxAir(emissivityAir.value, tempAirK.value),
+				AirWaterFlux.longwaveFluxWater(emissivityWater.value, tempWater));
+		heatLatentEvap = AirWaterFlux.heatLatentEvap(
+				AirWaterFlux.evaporation(penmanInt.value, penmanSlope.value, speedWind.value, vapAir, vapSat),
+				latentVapWater.value);
+		heatSensible = AirWaterFlux.heatSensible(
+				AirWaterFlux.bowenRatio(pressureAtm.value, tempWater, tempAirC.value, vapSat, vapAir),
+				heatLatentEvap);
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		Cell airCell = ((Face)holon).getEdge().getFromCell();
+		Cell waterCell = ((Face)holon).getEdge().getToCell();
+		Face solarFace = airCell.getFacesArray("heat", REQ_BEHAVIOR_SOLAR)[0];
+
+		areaWetted = (StateDouble)createDependency(waterCell,
+				edu.montana.cerg.tempsignal.heat.cell.channel.Heat.REQ_STATE_TOCELL_AREA);
+		shortwaveFlux = (StateDouble)createDependency(solarFace, REQ_STATE_FLUX_SHORTWAVE);
+
+		pressureAtm = (StateDouble)createDependency(airCell, REQ_STATE_PRESSURE_ATM);
+		tempAirC = (StateDouble)createDependency(airCell,
+				edu.montana.cerg.tempsignal.heat.cell.atmosphere.Temp.class.getSimpleName());
+		tempAirK = (StateDouble)createDependency(airCell, REQ_STATE_TEMP_K);
+		emissivityAir = (StateDouble)createDependency(airCell, REQ_STATE_EMISSIVITY);
+		vaporPressureAir = (StateDouble)createDependency(airCell, Evaporation.REQ_STATE_VAPOR_PRESSURE);
+		speedWind = (StateDouble)createDependency(airCell, Evaporation.REQ_STATE_SPEED_WIND);
+
+		tempWaterC = (StateDouble)createDependency(waterCell, REQ_STATE_TEMP);
+		emissivityWater = (StateDouble)createDependency(waterCell, REQ_STATE_EMISSIVITY);
+		vaporPressureSat = (StateDouble)createDependency(waterCell, Evaporation.REQ_STATE_VAPOR_PRESSURE_SAT);
+		latentVapWater = (StateDouble)createDependency(waterCell, REQ_STATE_LATENT_VAP_WATER);
+
+		penmanInt = (StateDouble)createDependency(Evaporation.REQ_STATE_PENMAN_INT);
+		penmanSlope = (StateDouble)createDependency(Evaporation.REQ_STATE_PENMAN_SLOPE);
+
+		timeKeeper = holon.getSimulationModel().getTimeKeeper();
+		clock = new CoarseClock(OptionalStates.getValue(holon, OPT_STATE_EXCHANGE_INTERVAL, 0));
+	}
+
+	@Override
+	public void setInitDeps()
+	{
+		setCalcDeps();
+	}
+
+	@Override
+	public void setRegistrations()
+	{
+		shortwaveNetDynam = (FusedComponent)setRegistration(
+				edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat.REQ_STATE_SHORT_WAVE_NET);
+		longwaveNetDynam = (FusedComponent)setRegistration(
+				edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat.REQ_STATE_LONG_WAVE_NET);
+		heatLatentEvapDynam = (FusedComponent)setRegistration(
+				edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat.REQ_STATE_EVAP_LATENT_HEAT);
+		heatSensibleDynam = (FusedComponent)setRegistration(
+				edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat.REQ_STATE_SENSIBLE_HEAT);
+	}
+
+}
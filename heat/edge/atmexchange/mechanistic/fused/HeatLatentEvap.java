@@ -0,0 +1,11 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Publishes the heat flux due to evaporation and condensation of surface water, as computed by the fused <code>Heat</code>
+ * 
+ * @see Heat
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatLatentEvap
+ */
+public class HeatLatentEvap extends FusedComponent {
+
+}
@@ -0,0 +1,11 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Publishes the sensible heat flux across the air-water interface, as computed by the fused <code>Heat</code>
+ * 
+ * @see Heat
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.HeatSensible
+ */
+public class HeatSensible extends FusedComponent {
+
+}
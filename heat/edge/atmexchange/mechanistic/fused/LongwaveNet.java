@@ -0,0 +1,11 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Publishes the net longwave radiation exchanged between surface water and air, as computed by the fused <code>Heat</code>
+ * 
+ * @see Heat
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.LongwaveNet
+ */
+public class LongwaveNet extends FusedComponent {
+
+}
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Same as the mechanistic <code>PenmanIntercept</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.PenmanIntercept
+ */
+public class PenmanIntercept extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.PenmanIntercept {
+
+}
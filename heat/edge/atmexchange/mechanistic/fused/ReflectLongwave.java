@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Same as the mechanistic <code>ReflectLongwave</code>
+ * 
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ReflectLongwave
+ */
+public class ReflectLongwave extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ReflectLongwave {
+
+}
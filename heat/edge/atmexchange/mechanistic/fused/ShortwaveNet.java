@@ -0,0 +1,11 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused;
+
+/**
+ * Publishes the net shortwave radiation (unreflected radiation entering water), as computed by the fused <code>Heat</code>
+ * 
+ * @see Heat
+ * @see edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.ShortwaveNet
+ */
+public class ShortwaveNet extends FusedComponent {
+
+}
@@ -0,0 +1,30 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.recorded;
+
+import edu.montana.cerg.tempsignal.heat.output.RecordedValue;
+
+/**
+ * Net energy transfer between air and water, computed in a single pass, recorded to the output of the model every step.
+ * 
+ * @see RecordedValue
+ */
+public class Heat extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.Heat {
+
+	private RecordedValue output;
+
+	@Override
+	public double calculate()
+	{
+		return output.put(super.calculate());
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		super.setCalcDeps();
+		if (output == null)
+		{
+			output = RecordedValue.create(holon, getStateVal());
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.recorded;
+
+import edu.montana.cerg.tempsignal.heat.output.RecordedValue;
+
+/**
+ * Net longwave radiation, recorded to the output of the model every step.
+ * 
+ * @see RecordedValue
+ */
+public class LongwaveNet extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.LongwaveNet {
+
+	private RecordedValue output;
+
+	@Override
+	public double calculate()
+	{
+		return output.put(super.calculate());
+	}
+
+	@Override
+	protected void held(double value)
+	{
+		output.put(value);
+	}
+
+	@Override
+	public void setCalcDeps()
+	{
+		super.setCalcDeps();
+		if (output == null)
+		{
+			output = RecordedValue.create(holon, getStateVal());
+		}
+	}
+
+}
@@ -0,0 +1,8 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.recorded;
+
+/**
+ * Same as the fused <code>PenmanIntercept</code>
+ */
+public class PenmanIntercept extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.PenmanIntercept {
+
+}
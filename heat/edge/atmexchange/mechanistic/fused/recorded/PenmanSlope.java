@@ -0,0 +1,8 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.recorded;
+
+/**
+ * Same as the fused <code>PenmanSlope</code>
+ */
+public class PenmanSlope extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.PenmanSlope {
+
+}
@@ -0,0 +1,8 @@
+package edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.recorded;
+
+/**
+ * Same as the fused <code>ReflectShortwave</code>
+ */
+public class ReflectShortwave extends edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.fused.ReflectShortwave {
+
+}
@@ -0,0 +1,51 @@
+package edu.montana.cerg.tempsignal.heat.edge.bedexchange.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Conduction between the channel and the hyporheic zone, computed for all
+ * exchange faces of the model at once by the {@link ChannelNetworkBinding}.
+ * 
+ * <p>Values are identical to the bedexchange behavior. The water
+ * temperature is read from the network if the channel cell uses
+ * <code>heat.cell.channel.batched</code>, otherwise from its state.</p>
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+	private ChannelNetworkBinding binding;
+	private int face;
+
+	@Override
+	public double calculate() 
+	{
+		return binding.getExchangeHeat(face);
+	}
+
+	@Override
+	public void setCalcDeps() 
+	{
+		StateDouble thermCondEff = (StateDouble)createDependency(
+				edu.montana.cerg.tempsignal.heat.edge.bedexchange.Heat.REQ_STATE_THERM_COND_EFF);
+		Cell channelCell = ((Face)holon).getEdge().getFromCell();
+		StateDouble tempWater = (StateDouble)createDependency(channelCell, 
+				edu.montana.cerg.tempsignal.heat.cell.channel.Temp.class.getSimpleName());
+		
+		Cell bedCell = ((Face)holon).getEdge().getToCell();
+		
+		StateDouble tempHypo = (StateDouble)createDependency(bedCell, 
+				edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp.class.getSimpleName());
+		StateDouble area = (StateDouble)createDependency(bedCell, 
+				edu.montana.cerg.tempsignal.heat.edge.bedexchange.Heat.REQ_STATE_AREA);
+		StateDouble volume = (StateDouble)createDependency(bedCell, 
+				edu.montana.cerg.tempsignal.heat.edge.bedexchange.Heat.REQ_STATE_VOL);
+
+		binding = ChannelNetworkBinding.getInstance(holon);
+		face = binding.registerExchange(channelCell, tempWater, bedCell, tempHypo, thermCondEff, area, volume);
+	}
+
+}
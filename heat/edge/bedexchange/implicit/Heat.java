@@ -0,0 +1,75 @@
+package edu.montana.cerg.tempsignal.heat.edge.bedexchange.implicit;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.edge.ImplicitConduction;
+
+/**
+ * Conduction between channel water and the bed, solved implicitly with the
+ * rest of the column of the bed cell (see {@link ImplicitConduction}).
+ * Use with <code>heat.gwexchange.implicit</code> below the bed cell.
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+	public static final String REQ_STATE_THERM_COND_EFF = "ThermCondEff";
+	public static final String REQ_STATE_VOL = "Volume";
+	public static final String REQ_STATE_AREA = "Area";
+
+	private ImplicitConduction column;
+
+	@Override
+	public double calculate() 
+	{
+		return column.getBedFlux();
+	}
+
+	@Override
+	public void setCalcDeps() 
+	{
+		Cell channelCell = ((Face)holon).getEdge().getFromCell();
+		Cell bedCell = ((Face)holon).getEdge().getToCell();
+		column = ImplicitConduction.getInstance(bedCell);
+
+		StateDouble thermCondEff = (StateDouble)createDependency(REQ_STATE_THERM_COND_EFF);
+		StateDouble water = (StateDouble)createDependency(channelCell, 
+				HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
+		StateDouble tempWater = (StateDouble)createDependency(channelCell, 
+				edu.montana.cerg.tempsignal.heat.cell.channel.Temp.class.getSimpleName());
+		double spHeat = OptionalStates.getValue(channelCell, 
+				edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT, 
+				HeatCurrency.SP_HEAT_WATER_10);
+		boolean equationOfState = 
+				edu.montana.cerg.tempsignal.heat.cell.channel.Heat.usesEquationOfState(channelCell);
+		StateDouble density = null;
+		if (!equationOfState && OptionalStates.has(channelCell, 
+				edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY))
+		{
+			density = (StateDouble)createDependency(channelCell, 
+					edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY);
+		}
+		column.registerBed(channelCell, thermCondEff, water, tempWater, spHeat, density, equationOfState);
+
+		column.setHyporheic(
+				(StateDouble)createDependency(bedCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_DENSITY_WATER),
+				(StateDouble)createDependency(bedCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_DENSITY_SEDIMENT),
+				(StateDouble)createDependency(bedCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_SPHEAT_WATER),
+				(StateDouble)createDependency(bedCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_SPHEAT_SEDIMENT),
+				(StateDouble)createDependency(bedCell, REQ_STATE_VOL),
+				(StateDouble)createDependency(bedCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_POROSITY),
+				(StateDouble)createDependency(bedCell, REQ_STATE_AREA),
+				(StateDouble)createDependency(bedCell, 
+						edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp.class.getSimpleName()));
+
+		StateDouble timeStep = null;
+		if (OptionalStates.has(holon, ImplicitConduction.OPT_STATE_TIME_STEP))
+		{
+			timeStep = (StateDouble)createDependency(ImplicitConduction.OPT_STATE_TIME_STEP);
+		}
+		column.setTimeStep(timeStep);
+	}
+}
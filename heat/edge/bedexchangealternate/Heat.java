@@ -5,6 +5,8 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.FaceFluxDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.edge.ConductionKernel;
+
 public class Heat extends FaceFluxDynamDouble {
 
 	public static final String REQ_STATE_THERM_COND_EFF = "ThermCondEff";
@@ -13,19 +15,16 @@ public class Heat extends FaceFluxDynamDouble {
 	
 	private StateDouble thermCondEff;
 	private StateDouble volume;
-	private double length;
 	private StateDouble area;
 	private StateDouble tempHypo;
 	private StateDouble tempWater;
+	private final ConductionKernel conduction = new ConductionKernel();
 	
 	@Override
 	public double calculate() 
 	{
-		
-		length = ( volume.value / area.value ) / 2 ;
-		
-		return (thermCondEff.value / length) * area.value * 
-				(tempWater.value - tempHypo.value);
+		return conduction.flux(thermCondEff.value, volume.value, area.value, 
+				tempWater.value, tempHypo.value);
 	}
 
 	@Override
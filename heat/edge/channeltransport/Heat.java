@@ -7,6 +7,7 @@ import org.neosimulation.neo.user.FaceFluxDynamDouble;
 
 import edu.montana.cerg.tempsignal.heat.DensityCalculator;
 import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
 import edu.montana.cerg.tempsignal.heat.cell.channel.Temp;
 
 public class Heat extends FaceFluxDynamDouble {    
@@ -23,9 +24,9 @@ public class Heat extends FaceFluxDynamDouble {
     public double calculate()
     {
         if (water.value > 0)        
-            return water.value * (fromTemp.value + 273.15) * fromSpHeat * fromDensityCalc.getDensity();        
+            return fromDensityCalc.getHeat(water.value, fromTemp.value, fromSpHeat);        
         else        
-            return water.value * (toTemp.value + 273.15) * toSpHeat * toDensityCalc.getDensity();        
+            return toDensityCalc.getHeat(water.value, toTemp.value, toSpHeat);        
     }
 
     @Override
@@ -38,63 +39,45 @@ public class Heat extends FaceFluxDynamDouble {
         fromTemp = (StateDouble)createDependency(fromCell, Temp.class.getSimpleName());
         toTemp = (StateDouble)createDependency(toCell, Temp.class.getSimpleName());
         
-        try
-        {
-            StateDouble spHeatState = (StateDouble)fromCell.getStateVal(
-                    edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT);
-            fromSpHeat = spHeatState.value;
-        }
-        catch (Exception e)
-        {
-            fromSpHeat = HeatCurrency.SP_HEAT_WATER_10;
-        }
+        fromSpHeat = OptionalStates.getValue(fromCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT, 
+                HeatCurrency.SP_HEAT_WATER_10);
+        toSpHeat = OptionalStates.getValue(toCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT, 
+                HeatCurrency.SP_HEAT_WATER_10);
         
-        try
-        {
-            StateDouble spHeatState = (StateDouble)toCell.getStateVal(
-                    edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT);
-            toSpHeat = spHeatState.value;
-        }
-        catch (Exception e)
-        {
-            fromSpHeat = HeatCurrency.SP_HEAT_WATER_10;
-        }
+        boolean fromEquationOfState = edu.montana.cerg.tempsignal.heat.cell.channel.Heat.usesEquationOfState(fromCell);
+        boolean toEquationOfState = edu.montana.cerg.tempsignal.heat.cell.channel.Heat.usesEquationOfState(toCell);
         
         StateDouble density;
-        try
+        if (!fromEquationOfState && OptionalStates.has(fromCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY))
         {
-            // Check if density states exists
-            fromCell.getStateVal(
-                    edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY);
-            
             // If density state DOES exist, instantiate the dynamic calculator
             density = (StateDouble)createDependency(fromCell, 
                     edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY);            
         }
-        catch (Exception e)
+        else
         {
             // If density state DOES NOT exist, instantiate the static calculator
         	density = null;
         }
         
-        fromDensityCalc = DensityCalculator.createDensityCalculator(density);
+        fromDensityCalc = DensityCalculator.createDensityCalculator(density, fromEquationOfState);
         
-        try
+        if (!toEquationOfState && OptionalStates.has(toCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY))
         {
-            // Check if specific heat and density states exist
-            toCell.getStateVal(
-                    edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY);
-            
-            // If specific heat and density states DO exist, instantiate the dynamic calculator
+            // If density state DOES exist, instantiate the dynamic calculator
             density = (StateDouble)createDependency(toCell, 
                     edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY);                        
         }
-        catch (Exception e)
+        else
         {
-            // If specific heat and density states DO NOT exist, instantiate the static calculator
+            // If density state DOES NOT exist, instantiate the static calculator
             density = null;            
         }
         
-        toDensityCalc = DensityCalculator.createDensityCalculator(density);
+        toDensityCalc = DensityCalculator.createDensityCalculator(density, toEquationOfState);
     }
 }
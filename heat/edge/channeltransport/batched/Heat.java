@@ -0,0 +1,46 @@
+package edu.montana.cerg.tempsignal.heat.edge.channeltransport.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.cell.channel.Temp;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Advection of heat between channel cells, computed for all faces of the
+ * model at once by the {@link ChannelNetworkBinding}.
+ * 
+ * <p>Both cells must use <code>heat.cell.channel.batched</code>. Values are
+ * identical to the channeltransport behavior.</p>
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+    private ChannelNetworkBinding binding;
+    private int face;
+
+    @Override
+    public double calculate()
+    {
+        return binding.getFaceHeat(face);
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        StateDouble water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
+
+        // The temperatures are read from the network, but the dependencies
+        // keep NEO updating the cells before the face
+        Cell fromCell = ((Face)holon).getEdge().getFromCell();
+        Cell toCell = ((Face)holon).getEdge().getToCell();
+        createDependency(fromCell, Temp.class.getSimpleName());
+        createDependency(toCell, Temp.class.getSimpleName());
+
+        binding = ChannelNetworkBinding.getInstance(holon);
+        face = binding.registerFace(fromCell, toCell, water);
+    }
+
+}
@@ -5,6 +5,8 @@ import org.neosimulation.neo.framework.holon.Face;
 import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.user.FaceFluxDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.edge.ConductionKernel;
+
 public class Heat extends FaceFluxDynamDouble {
 
 	public static final String REQ_STATE_THERM_COND_EFF = "ThermCondEff";
@@ -15,18 +17,16 @@ public class Heat extends FaceFluxDynamDouble {
 	
 	private StateDouble thermCondEff;
 	private StateDouble volume;
-	private Double length;
 	private StateDouble area;
 	private StateDouble tempHypo;
 	private StateDouble tempGround;
+	private final ConductionKernel conduction = new ConductionKernel();
 	
 	@Override
 	public double calculate() 
-	{		
-		length = ( volume.value / area.value ) / 2 ;
-		
-		return (thermCondEff.value / length) * area.value * 
-				(tempHypo.value - tempGround.value);			
+	{
+		return conduction.flux(thermCondEff.value, volume.value, area.value, 
+				tempHypo.value, tempGround.value);
 	}
 
 	@Override
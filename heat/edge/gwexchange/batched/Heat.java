@@ -0,0 +1,47 @@
+package edu.montana.cerg.tempsignal.heat.edge.gwexchange.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Conduction between the hyporheic zone and groundwater, computed for all
+ * exchange faces of the model at once by the {@link ChannelNetworkBinding}.
+ * 
+ * <p>Values are identical to the gwexchange behavior.</p>
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+	private ChannelNetworkBinding binding;
+	private int face;
+
+	@Override
+	public double calculate() 
+	{
+		return binding.getExchangeHeat(face);
+	}
+
+	@Override
+	public void setCalcDeps() 
+	{
+		StateDouble thermCondEff = (StateDouble)createDependency(
+				edu.montana.cerg.tempsignal.heat.edge.gwexchange.Heat.REQ_STATE_THERM_COND_EFF);
+		Cell groundCell = ((Face)holon).getEdge().getToCell();
+		StateDouble tempGround = (StateDouble)createDependency(groundCell, 
+				edu.montana.cerg.tempsignal.heat.edge.gwexchange.Heat.REQ_STATE_GROUNDWATER_TEMP);
+		Cell hypoCell = ((Face)holon).getEdge().getFromCell();
+		StateDouble tempHypo = (StateDouble)createDependency(hypoCell, 
+				edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp.class.getSimpleName());
+		StateDouble area = (StateDouble)createDependency(hypoCell, 
+				edu.montana.cerg.tempsignal.heat.edge.gwexchange.Heat.REQ_STATE_AREA);
+		StateDouble volume = (StateDouble)createDependency(hypoCell, 
+				edu.montana.cerg.tempsignal.heat.edge.gwexchange.Heat.REQ_STATE_VOL);
+
+		binding = ChannelNetworkBinding.getInstance(holon);
+		face = binding.registerExchange(hypoCell, tempHypo, groundCell, tempGround, thermCondEff, area, volume);
+	}
+
+}
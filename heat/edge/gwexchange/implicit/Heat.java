@@ -0,0 +1,58 @@
+package edu.montana.cerg.tempsignal.heat.edge.gwexchange.implicit;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.edge.ImplicitConduction;
+
+/**
+ * Conduction between the hyporheic zone and groundwater, solved implicitly
+ * with the rest of the column of the hyporheic cell (see
+ * {@link ImplicitConduction}).
+ */
+public class Heat extends FaceFluxDynamDouble {
+
+	public static final String REQ_STATE_THERM_COND_EFF = "ThermCondEff";
+	public static final String REQ_STATE_AREA = "Area";
+	public static final String REQ_STATE_GROUNDWATER_TEMP = "Temp";
+	public static final String REQ_STATE_VOL = "Volume";
+
+	private ImplicitConduction column;
+
+	@Override
+	public double calculate() 
+	{
+		return column.getGroundFlux();
+	}
+
+	@Override
+	public void setCalcDeps() 
+	{
+		Cell hypoCell = ((Face)holon).getEdge().getFromCell();
+		column = ImplicitConduction.getInstance(hypoCell);
+
+		column.registerGround((StateDouble)createDependency(REQ_STATE_THERM_COND_EFF), 
+				(StateDouble)createDependency(((Face)holon).getEdge().getToCell(), REQ_STATE_GROUNDWATER_TEMP));
+
+		column.setHyporheic(
+				(StateDouble)createDependency(hypoCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_DENSITY_WATER),
+				(StateDouble)createDependency(hypoCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_DENSITY_SEDIMENT),
+				(StateDouble)createDependency(hypoCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_SPHEAT_WATER),
+				(StateDouble)createDependency(hypoCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_SPHEAT_SEDIMENT),
+				(StateDouble)createDependency(hypoCell, REQ_STATE_VOL),
+				(StateDouble)createDependency(hypoCell, edu.montana.cerg.tempsignal.heat.cell.hyporheic.Heat.REQ_STATE_POROSITY),
+				(StateDouble)createDependency(hypoCell, REQ_STATE_AREA),
+				(StateDouble)createDependency(hypoCell, 
+						edu.montana.cerg.tempsignal.heat.cell.hyporheic.Temp.class.getSimpleName()));
+
+		StateDouble timeStep = null;
+		if (OptionalStates.has(holon, ImplicitConduction.OPT_STATE_TIME_STEP))
+		{
+			timeStep = (StateDouble)createDependency(ImplicitConduction.OPT_STATE_TIME_STEP);
+		}
+		column.setTimeStep(timeStep);
+	}
+}
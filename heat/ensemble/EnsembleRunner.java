@@ -0,0 +1,168 @@
+package edu.montana.cerg.tempsignal.heat.ensemble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
+import edu.montana.cerg.tempsignal.heat.network.AdaptiveStepper;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetwork;
+
+/**
+ * Runs the members of an ensemble of a channel network in parallel in one
+ * JVM, on a network and forcing that are built once.
+ * 
+ * <p>The ensemble covers the channel network and its
+ * {@link AdaptiveStepper} only: advection between cells, with boundary
+ * temperatures and cell heat sources. The template network is built and
+ * initialized once; each member runs on
+ * {@link ChannelNetwork#createMember()}, which shares the template's
+ * immutable topology and copies only the cell and face state. The member's
+ * {@link ParameterSet} is applied to its copy through
+ * {@link NetworkParameters} (discharge, boundary temperatures, sources and
+ * step controls). Entries that the network does not use, such as the
+ * parameters of the atmosphere or bed dynamics, are rejected when the
+ * runner is created rather than silently ignored. Boundary temperature tables are loaded once into the
+ * <code>ForcingTableRegistry</code>; each member gets its own cursors,
+ * which hold only a position.</p>
+ * 
+ * <p>Results are returned in member order, whatever the order in which the
+ * members finish, so an ensemble is reproducible across thread counts.</p>
+ */
+public class EnsembleRunner {
+
+    /**
+     * Work of one member
+     * 
+     * @param <R> Result of a member (kept small: summaries, not series)
+     */
+    public interface MemberTask<R> {
+
+        /**
+         * Runs one member
+         * 
+         * @param member Index of the member
+         * @param stepper Stepper of the member's own copy of the network,
+         *          with the member's parameters and boundary forcing set
+         * @param parameters Member's parameters
+         * @return Result of the member
+         * @throws Exception if the member fails
+         */
+        R run(int member, AdaptiveStepper stepper, ParameterSet parameters) throws Exception;
+
+    }
+
+    private final ChannelNetwork template;
+
+    private final List<ParameterSet> members;
+
+    private final double startTime;
+
+    private final int threads;
+
+    private final Map<Integer, String> boundaryTables = new TreeMap<Integer, String>();
+
+    /**
+     * @param template Network with topology, properties and initial state
+     *          set; not modified by the members
+     * @param members Parameters of each member
+     * @param startTime Time at the start of every member (sec)
+     * @param threads Number of members run at once
+     * @throws IllegalArgumentException if a member has a parameter that is
+     *          not applied to the network (see
+     *          {@link NetworkParameters#check(ParameterSet, ChannelNetwork)})
+     */
+    public EnsembleRunner(ChannelNetwork template, List<ParameterSet> members, double startTime, int threads)
+    {
+        this.template = template;
+        this.members = Collections.unmodifiableList(new ArrayList<ParameterSet>(members));
+        this.startTime = startTime;
+        this.threads = threads;
+        for (ParameterSet parameters: this.members)
+        {
+            NetworkParameters.check(parameters, template);
+        }
+    }
+
+    /**
+     * Makes the boundary temperature of a face follow a forcing table in
+     * every member
+     * 
+     * @param face Index of the face
+     * @param tableName Path of the table, optionally ending with <code>#n</code>
+     * @throws ForcingTableException if the table cannot be loaded
+     */
+    public void setBoundaryTable(int face, String tableName) throws ForcingTableException
+    {
+        if (face < 0 || face >= template.getFaceCount())
+        {
+            throw new IllegalArgumentException("No face " + face + " in the network");
+        }
+        ForcingTableRegistry.getInstance().createCursor(tableName);
+        boundaryTables.put(face, tableName);
+    }
+
+    /**
+     * Runs every member
+     * 
+     * @param task Work of a member
+     * @return Result of each member, in member order
+     * @throws ExecutionException if a member fails (the other members are cancelled)
+     * @throws InterruptedException if interrupted while waiting for the members
+     */
+    public <R> List<R> run(final MemberTask<R> task) throws ExecutionException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<R>> futures = new ArrayList<Future<R>>(members.size());
+            for (int m = 0; m < members.size(); m++)
+            {
+                final int member = m;
+                futures.add(executor.submit(new Callable<R>() {
+                    @Override
+                    public R call() throws Exception
+                    {
+                        ChannelNetwork network;
+                        synchronized (template)
+                        {
+                            network = template.createMember();
+                        }
+                        ParameterSet parameters = members.get(member);
+                        AdaptiveStepper stepper = NetworkParameters.createStepper(parameters, network, startTime);
+                        ForcingTableRegistry registry = ForcingTableRegistry.getInstance();
+                        for (Map.Entry<Integer, String> entry: boundaryTables.entrySet())
+                        {
+                            stepper.setBoundaryForcing(entry.getKey(), registry.createCursor(entry.getValue()));
+                        }
+                        return task.run(member, stepper, parameters);
+                    }
+                }));
+            }
+            List<R> results = new ArrayList<R>(futures.size());
+            for (Future<R> future: futures)
+            {
+                results.add(future.get());
+            }
+            return results;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    public int getMemberCount()
+    {
+        return members.size();
+    }
+
+}
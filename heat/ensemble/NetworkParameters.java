@@ -0,0 +1,184 @@
+package edu.montana.cerg.tempsignal.heat.ensemble;
+
+import edu.montana.cerg.tempsignal.heat.network.AdaptiveStepper;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetwork;
+
+/**
+ * Maps the entries of a {@link ParameterSet} onto the state of a
+ * {@link ChannelNetwork} and its {@link AdaptiveStepper}.
+ *
+ * <p>Entries are named like states, with the index of a face or cell
+ * (network order) after a slash: <code>Discharge/<i>f</i></code> and
+ * <code>BoundaryTemp/<i>f</i></code> set the discharge
+ * (m<sup><small>3</small></sup> sec<sup><small>-1</small></sup>) and
+ * boundary temperature (&deg;C) of face <i>f</i>, and
+ * <code>Source/<i>c</i></code> sets the heat source of cell <i>c</i>
+ * (kJ sec<sup><small>-1</small></sup>) for processes outside the network.
+ * {@link #TOLERANCE}, {@link #MIN_STEP} and {@link #MAX_STEP} set the
+ * stepper. The network has no atmosphere or bed dynamics, so other entries
+ * (ThermCondEff, Porosity, ...) would not affect a member and are
+ * rejected by {@link #check(ParameterSet, ChannelNetwork)}.</p>
+ */
+public final class NetworkParameters {
+
+    public static final String DISCHARGE = "Discharge";
+    public static final String BOUNDARY_TEMP = "BoundaryTemp";
+    public static final String SOURCE = "Source";
+
+    /**
+     * Tolerance on the local temperature error of a step (&deg;C)
+     */
+    public static final String TOLERANCE = "Tolerance";
+    public static final String MIN_STEP = "MinStep";
+    public static final String MAX_STEP = "MaxStep";
+
+    public static final double DEFAULT_TOLERANCE = 0.01;
+    public static final double DEFAULT_MIN_STEP = 1;
+    public static final double DEFAULT_MAX_STEP = 3600;
+
+    private static final String INDEX_SEPARATOR = "/";
+
+    private NetworkParameters()
+    {
+    }
+
+    /**
+     * Checks if a name is a network parameter
+     *
+     * @param name Name of the parameter
+     * @return true if the name is an indexed network parameter
+     * @throws IllegalArgumentException if the name has an index but is not
+     *          a network parameter, or the index is not a number
+     */
+    public static boolean isNetworkParameter(String name)
+    {
+        int separator = name.indexOf(INDEX_SEPARATOR);
+        if (separator < 0)
+        {
+            return false;
+        }
+        String base = name.substring(0, separator);
+        if (!base.equals(DISCHARGE) && !base.equals(BOUNDARY_TEMP) && !base.equals(SOURCE))
+        {
+            throw new IllegalArgumentException("Unknown network parameter " + name);
+        }
+        parseIndex(name, separator);
+        return true;
+    }
+
+    /**
+     * Checks if a name is a step control of the stepper
+     *
+     * @param name Name of the parameter
+     * @return true for {@link #TOLERANCE}, {@link #MIN_STEP} and {@link #MAX_STEP}
+     */
+    public static boolean isStepParameter(String name)
+    {
+        return name.equals(TOLERANCE) || name.equals(MIN_STEP) || name.equals(MAX_STEP);
+    }
+
+    /**
+     * Creates a stepper for a network and applies the network parameters
+     *
+     * @param parameters Parameters to apply
+     * @param network Network in its initial state, modified by the parameters
+     * @param time Starting time (sec)
+     * @return Stepper with the step controls and sources of the parameters
+     * @throws IllegalArgumentException if an entry names a face or cell
+     *          that is not in the network
+     */
+    public static AdaptiveStepper createStepper(ParameterSet parameters, ChannelNetwork network, double time)
+    {
+        AdaptiveStepper stepper = new AdaptiveStepper(network, time,
+                parameters.get(TOLERANCE, DEFAULT_TOLERANCE),
+                parameters.get(MIN_STEP, DEFAULT_MIN_STEP),
+                parameters.get(MAX_STEP, DEFAULT_MAX_STEP));
+        apply(parameters, network, stepper.getSource());
+        return stepper;
+    }
+
+    /**
+     * Checks that every entry of a set is applied to a network
+     *
+     * @param parameters Parameters to check
+     * @param network Network the parameters are for
+     * @throws IllegalArgumentException if an entry is neither a network
+     *          parameter nor a step control, or names a face or cell that
+     *          is not in the network
+     */
+    public static void check(ParameterSet parameters, ChannelNetwork network)
+    {
+        for (String name: parameters.getNames())
+        {
+            if (isNetworkParameter(name))
+            {
+                int separator = name.indexOf(INDEX_SEPARATOR);
+                checkIndex(name, parseIndex(name, separator), name.startsWith(SOURCE) 
+                        ? network.getCellCount() : network.getFaceCount());
+            }
+            else if (!isStepParameter(name))
+            {
+                throw new IllegalArgumentException("Parameter " + name 
+                        + " is not applied to the channel network");
+            }
+        }
+    }
+
+    /**
+     * Applies the network parameters of a set
+     *
+     * @param parameters Parameters to apply
+     * @param network Network whose discharge and boundary temperatures are set
+     * @param source Heat source of each cell, set by the Source entries
+     * @throws IllegalArgumentException if an entry names a face or cell
+     *          that is not in the network
+     */
+    public static void apply(ParameterSet parameters, ChannelNetwork network, double[] source)
+    {
+        for (String name: parameters.getNames())
+        {
+            if (!isNetworkParameter(name))
+            {
+                continue;
+            }
+            int separator = name.indexOf(INDEX_SEPARATOR);
+            String base = name.substring(0, separator);
+            int index = parseIndex(name, separator);
+            double value = parameters.get(name, 0);
+            if (base.equals(SOURCE))
+            {
+                source[checkIndex(name, index, network.getCellCount())] = value;
+            }
+            else if (base.equals(DISCHARGE))
+            {
+                network.getDischarge()[checkIndex(name, index, network.getFaceCount())] = value;
+            }
+            else
+            {
+                network.getBoundaryTemp()[checkIndex(name, index, network.getFaceCount())] = value;
+            }
+        }
+    }
+
+    private static int parseIndex(String name, int separator)
+    {
+        try
+        {
+            return Integer.parseInt(name.substring(separator + 1));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid index in parameter " + name);
+        }
+    }
+
+    private static int checkIndex(String name, int index, int count)
+    {
+        if (index < 0 || index >= count)
+        {
+            throw new IllegalArgumentException("Parameter " + name + " is outside the network");
+        }
+        return index;
+    }
+
+}
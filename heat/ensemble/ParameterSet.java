@@ -0,0 +1,114 @@
+package edu.montana.cerg.tempsignal.heat.ensemble;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of parameter values for one ensemble member, keyed by
+ * state name (see {@link NetworkParameters} for the names applied to a
+ * channel network).
+ * 
+ * <p>All members share the base values; a member only stores the names and
+ * values it overrides, so a member with a handful of calibrated parameters
+ * costs a few hundred bytes whatever the size of the base set.</p>
+ */
+public final class ParameterSet {
+
+    private final Map<String, Double> base;
+
+    private final String[] names;
+
+    private final double[] values;
+
+    /**
+     * Creates a base parameter set
+     * 
+     * @param base Values of the parameters, copied
+     */
+    public ParameterSet(Map<String, Double> base)
+    {
+        this(Collections.unmodifiableMap(new HashMap<String, Double>(base)), 
+                new String[0], new double[0]);
+    }
+
+    private ParameterSet(Map<String, Double> base, String[] names, double[] values)
+    {
+        this.base = base;
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * Creates a set that differs from this one in one parameter
+     * 
+     * @param name State name of the parameter
+     * @param value New value
+     * @return New parameter set sharing the base values
+     */
+    public ParameterSet withOverride(String name, double value)
+    {
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(name))
+            {
+                double[] newValues = values.clone();
+                newValues[i] = value;
+                return new ParameterSet(base, names, newValues);
+            }
+        }
+        String[] newNames = Arrays.copyOf(names, names.length + 1);
+        double[] newValues = Arrays.copyOf(values, values.length + 1);
+        newNames[names.length] = name;
+        newValues[values.length] = value;
+        return new ParameterSet(base, newNames, newValues);
+    }
+
+    /**
+     * Gets the value of a parameter
+     * 
+     * @param name State name of the parameter
+     * @param defaultValue Value if the parameter is neither overridden nor in the base set
+     * @return Value of the parameter
+     */
+    public double get(String name, double defaultValue)
+    {
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(name))
+            {
+                return values[i];
+            }
+        }
+        Double value = base.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Checks if a parameter has a value
+     * 
+     * @param name State name of the parameter
+     * @return true if overridden or in the base set
+     */
+    public boolean has(String name)
+    {
+        return Arrays.asList(names).contains(name) || base.containsKey(name);
+    }
+
+    /**
+     * Gets the names of the parameters that have a value
+     * 
+     * @return Overridden names in the order they were first overridden,
+     *          then the other names of the base set
+     */
+    public Set<String> getNames()
+    {
+        Set<String> result = new LinkedHashSet<String>(Arrays.asList(names));
+        result.addAll(base.keySet());
+        return result;
+    }
+
+}
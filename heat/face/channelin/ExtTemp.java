@@ -2,9 +2,10 @@ package edu.montana.cerg.tempsignal.heat.face.channelin;
 
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 
 /**
  * Controls the external temperature on the boundary of a channel
@@ -16,9 +17,9 @@ import org.neosimulation.neo.user.interpolator.MathInterpolator;
 public class ExtTemp extends AutoDynamDouble {
 
     /**
-     * Interpolator for external temperature input data
+     * Cursor over the shared forcing table for external temperature
      */
-    private MathInterpolator interp;
+    private ForcingCursor forcing;
     
     /**
      * Interpolate the current value of external temperature
@@ -26,12 +27,12 @@ public class ExtTemp extends AutoDynamDouble {
     @Override
     public double calculate()
     {
-        return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+        return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
 //    	return 0.0;
     }
 
     /**
-     * Define the states and set up the interpolator needed to calculate external temperature
+     * Define the states and set up the forcing table cursor needed to calculate external temperature
      */
     @Override
     public void setCalcDeps()
@@ -41,15 +42,13 @@ public class ExtTemp extends AutoDynamDouble {
                 Heat.REQ_STATE_EXTERNAL_TEMP_TABLE)).value;
         try
         {
-            interp = InterpolatorFactory.getInstance().createMathInterpolator(
-                    tableName, 
-                    holon.getSimulationModel());
+            forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
         }
-        catch (InterpolatorFactoryException e)
+        catch (ForcingTableException e)
         {
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
         }
   
         
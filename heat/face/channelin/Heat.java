@@ -7,6 +7,7 @@ import org.neosimulation.neo.user.FaceFluxDynamDouble;
 
 import edu.montana.cerg.tempsignal.heat.DensityCalculator;
 import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
 import edu.montana.cerg.tempsignal.heat.cell.channel.Temp;
 
 /**
@@ -87,8 +88,8 @@ public class Heat extends FaceFluxDynamDouble {
     public double calculate()
     {               
         return water.value > 0 ? 
-        		water.value * (extTemp.value + 273.15) * extSpHeat * extDensityCalc.getDensity() :
-        		water.value * (toTemp.value + 273.15) * toSpHeat * toDensityCalc.getDensity();
+        		extDensityCalc.getHeat(water.value, extTemp.value, extSpHeat) :
+        		toDensityCalc.getHeat(water.value, toTemp.value, toSpHeat);
     }
 
     /**
@@ -100,62 +101,47 @@ public class Heat extends FaceFluxDynamDouble {
         water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
         extTemp = (StateDouble)createDependency(ExtTemp.class.getSimpleName());
         
-        try
-        {
-            StateDouble spHeatState = (StateDouble)holon.getStateVal(OPT_STATE_EXT_SPHEAT);
-            extSpHeat = spHeatState.value;
-        }
-        catch (Exception e)
-        {
-            extSpHeat = HeatCurrency.SP_HEAT_WATER_10;
-        }
+        extSpHeat = OptionalStates.getValue(holon, OPT_STATE_EXT_SPHEAT, HeatCurrency.SP_HEAT_WATER_10);
 
         Cell toCell = ((Face)holon).getCell();
         toTemp = (StateDouble)createDependency(toCell, Temp.class.getSimpleName());
 
-        try
-        {
-            StateDouble spHeatState = (StateDouble)holon.getStateVal(
-                    edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT);
-            toSpHeat = spHeatState.value;
-        }
-        catch (Exception e)
-        {
-            toSpHeat = HeatCurrency.SP_HEAT_WATER_10;
-        }
+        toSpHeat = OptionalStates.getValue(toCell, 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT, 
+                HeatCurrency.SP_HEAT_WATER_10);
 
+        // External water follows the connected cell's equation of state 
+        // unless external density is given
+        boolean equationOfState = 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.usesEquationOfState(toCell);
+        
         StateDouble density;
-        try
+        if (OptionalStates.has(holon, OPT_STATE_EXT_DENSITY))
         {
-            // Check if density states exists
-            holon.getStateVal(OPT_STATE_EXT_DENSITY);
-            
             // If density state DOES exist, instantiate the dynamic calculator
             density = (StateDouble)createDependency(OPT_STATE_EXT_DENSITY);                       
         }
-        catch (Exception e)
+        else
         {
             // If density state DOES NOT exist, instantiate the static calculator
             density = null;            
         }
         
-        extDensityCalc = DensityCalculator.createDensityCalculator(density);
+        extDensityCalc = DensityCalculator.createDensityCalculator(density, 
+                equationOfState && density == null);
         
-        try
+        if (!equationOfState && OptionalStates.has(toCell, OPT_STATE_DENSITY))
         {
-            // Check if specific heat and density states exist
-            toCell.getStateVal(OPT_STATE_DENSITY);
-            
-            // If specific heat and density states DO exist, instantiate the dynamic calculator
+            // If density state DOES exist, instantiate the dynamic calculator
             density = (StateDouble)createDependency(toCell, OPT_STATE_DENSITY);                       
         }
-        catch (Exception e)
+        else
         {
-            // If specific heat and density states DO NOT exist, instantiate the static calculator
+            // If density state DOES NOT exist, instantiate the static calculator
             density = null;            
         }
         
-        toDensityCalc = DensityCalculator.createDensityCalculator(density);
+        toDensityCalc = DensityCalculator.createDensityCalculator(density, equationOfState);
     }
 
 }
@@ -0,0 +1,10 @@
+package edu.montana.cerg.tempsignal.heat.face.channelin.batched;
+
+/**
+ * Controls the external temperature on the boundary of a channel from a
+ * forcing table, as the channelin behavior does
+ */
+@SuppressWarnings("serial")
+public class ExtTemp extends edu.montana.cerg.tempsignal.heat.face.channelin.ExtTemp {
+
+}
@@ -0,0 +1,68 @@
+package edu.montana.cerg.tempsignal.heat.face.channelin.batched;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.user.FaceFluxDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.cell.channel.Temp;
+import edu.montana.cerg.tempsignal.heat.network.ChannelNetworkBinding;
+
+/**
+ * Heat movement into or out of a model at a channel boundary, computed for
+ * all faces of the model at once by the {@link ChannelNetworkBinding}.
+ * 
+ * <p>The cell must use <code>heat.cell.channel.batched</code>. The network
+ * gives inflow the properties of the receiving cell, so the face takes no
+ * ExtSpHeat or ExtDensity, and the cell has the default specific heat and
+ * density or uses the equation of state; within those limits values are
+ * identical to the channelin behavior.</p>
+ */
+@SuppressWarnings("serial")
+public class Heat extends FaceFluxDynamDouble {
+
+    private ChannelNetworkBinding binding;
+    private int face;
+
+    @Override
+    public double calculate()
+    {
+        return binding.getFaceHeat(face);
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        StateDouble water = (StateDouble)createDependency(HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
+        StateDouble extTemp = (StateDouble)createDependency(ExtTemp.class.getSimpleName());
+
+        // The temperature is read from the network, but the dependency keeps
+        // NEO updating the cell before the face
+        Cell toCell = ((Face)holon).getCell();
+        createDependency(toCell, Temp.class.getSimpleName());
+
+        boolean equationOfState = 
+                edu.montana.cerg.tempsignal.heat.cell.channel.Heat.usesEquationOfState(toCell);
+        if (OptionalStates.has(holon, edu.montana.cerg.tempsignal.heat.face.channelin.Heat.OPT_STATE_EXT_SPHEAT)
+                || OptionalStates.has(holon, edu.montana.cerg.tempsignal.heat.face.channelin.Heat.OPT_STATE_EXT_DENSITY)
+                || (!equationOfState && (OptionalStates.has(toCell, 
+                        edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_DENSITY)
+                        || OptionalStates.has(toCell, 
+                        edu.montana.cerg.tempsignal.heat.face.channelin.Heat.OPT_STATE_DENSITY)
+                        || OptionalStates.getValue(toCell, 
+                        edu.montana.cerg.tempsignal.heat.cell.channel.Heat.OPT_STATE_SP_HEAT, 
+                        HeatCurrency.SP_HEAT_WATER_10) != HeatCurrency.SP_HEAT_WATER_10)))
+        {
+            String message = stateVal.getName() + " in " + holon.getName() 
+                    + " needs water properties other than those of its cell; use heat.face.channelin";
+            holon.getSimulationModel().getLogger().logSevere(message);
+            throw new IllegalStateException(message);
+        }
+
+        binding = ChannelNetworkBinding.getInstance(holon);
+        face = binding.registerInflow(toCell, water, extTemp);
+    }
+
+}
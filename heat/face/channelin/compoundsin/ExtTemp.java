@@ -8,6 +8,7 @@ import org.neosimulation.neo.framework.time.TimeKeeper;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
 import edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.StartDay;
+import edu.montana.cerg.tempsignal.heat.signal.HarmonicSignal;
 
 public class ExtTemp extends AutoDynamDouble {
     
@@ -18,13 +19,13 @@ public class ExtTemp extends AutoDynamDouble {
     private StateDouble daily;
     private StateDouble phaseDay;
     private StateDouble phase;
+    private final HarmonicSignal signal = new HarmonicSignal();
 
     @Override
     public double calculate()
     { 
-        double phaseTime = (timeKeeper.getCurrentTime() + phaseDay.value*86400);
-    	
-    	return average.value + (daily.value * amplitude.value )/2* Math.sin(phaseTime*2*Math.PI*(1/period.value) + phase.value);
+    	return average.value + (daily.value * amplitude.value )/2* 
+    	        signal.sin(timeKeeper.getCurrentTime(), period.value, -phaseDay.value*86400, phase.value);
     }
 
     @Override
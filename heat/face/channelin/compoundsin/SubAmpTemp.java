@@ -7,6 +7,7 @@ import org.neosimulation.neo.framework.time.TimeKeeper;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
 import edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.StartDay;
+import edu.montana.cerg.tempsignal.heat.signal.HarmonicSignal;
 
 
 public class SubAmpTemp extends AutoDynamDouble {
@@ -18,14 +19,13 @@ public class SubAmpTemp extends AutoDynamDouble {
     private StateDouble phaseDay;
     private StateDouble phase;
     private TimeKeeper timeKeeper;
+    private final HarmonicSignal signal = new HarmonicSignal();
 
     @Override
     public double calculate()
     {
-        double phaseTime = (timeKeeper.getCurrentTime() + phaseDay.value*86400);
-         
-    	
-    	return (average.value + amplitude.value/2 * Math.sin(phaseTime*2*Math.PI*(1/period.value) + phase.value));
+    	return (average.value + amplitude.value/2 * 
+    	        signal.sin(timeKeeper.getCurrentTime(), period.value, -phaseDay.value*86400, phase.value));
     	
     }
 
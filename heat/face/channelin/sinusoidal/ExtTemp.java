@@ -4,6 +4,8 @@ import org.neosimulation.neo.framework.stateval.StateDouble;
 import org.neosimulation.neo.framework.time.TimeKeeper;
 import org.neosimulation.neo.user.AutoDynamDouble;
 
+import edu.montana.cerg.tempsignal.heat.signal.HarmonicSignal;
+
 public class ExtTemp extends AutoDynamDouble {
     
     private StateDouble period;
@@ -11,13 +13,13 @@ public class ExtTemp extends AutoDynamDouble {
     private StateDouble amplitude;
     private StateDouble phase;
     private TimeKeeper timeKeeper;
+    private final HarmonicSignal signal = new HarmonicSignal();
 
     @Override
     public double calculate()
     {
-        double angle = 2 * Math.PI * 
-            (Math.IEEEremainder(timeKeeper.getCurrentTime() - phase.value, period.value) / period.value); 
-        return average.value + (amplitude.value / 2) * Math.sin(angle);
+        return average.value + (amplitude.value / 2) * 
+            signal.sin(timeKeeper.getCurrentTime(), period.value, phase.value, 0);
     }
 
     @Override
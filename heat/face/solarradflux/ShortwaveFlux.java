@@ -2,9 +2,10 @@ package edu.montana.cerg.tempsignal.heat.face.solarradflux;
 
 import org.neosimulation.neo.framework.stateval.StateGeneric;
 import org.neosimulation.neo.user.AutoDynamDouble;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
-import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
-import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableException;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 
 
 
@@ -22,9 +23,9 @@ public class ShortwaveFlux extends AutoDynamDouble {
 
 	private static final String REQ_STATE_SW_RAD_TABLE = "ExtInsolationTable";
 	/**
-	 * Interpolator containing table input data for shortwave radiation
+	 * Cursor over the shared forcing table for shortwave radiation
 	 */
-	private MathInterpolator interp;
+	private ForcingCursor forcing;
 	/**
 	 * Calculates the flux of shortwave radiation from air to water
 	 * 
@@ -36,7 +37,7 @@ public class ShortwaveFlux extends AutoDynamDouble {
 	{	
 		// interpolate the shortwave flux between the two closest time
 		// steps in the interpolation table
-		return interp.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
+		return forcing.getValue(holon.getSimulationModel().getTimeKeeper().getCurrentTime());
 	}
 
 	/**
@@ -59,14 +60,13 @@ public class ShortwaveFlux extends AutoDynamDouble {
 
 		try
 		{
-			interp = InterpolatorFactory.getInstance().createMathInterpolator(
-					tableName, holon.getSimulationModel());
+			forcing = ForcingTableRegistry.getInstance().createCursor(tableName, holon);
 		}
-		catch(InterpolatorFactoryException e)
+		catch (ForcingTableException e)
 		{
             holon.getSimulationModel().getLogger().logSevere(
                     stateVal.getName() + " in " +
-                    holon.getName() + " cannot create an interpolator");
+                    holon.getName() + " cannot load its forcing table");
 		}
 		
 	}
@@ -9,11 +9,21 @@ import org.neosimulation.neo.user.AutoDynamDouble;
 import edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Pressure;
 import edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.StartDay;
 import edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Heat;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingTableRegistry;
 /**
  * Controls the flux of shortwave radiation transmitted through 
  * air cell on "from" side of edge to water cell on "to" side of edge
  * 
  * following some biophysics textbook
+ * 
+ * <p>Declination and equation of time are taken from an ephemeris shared by
+ * all solar faces for the current day, so each step only evaluates the hour
+ * angle (and the air mass while the sun is up). With a ForcingInterval
+ * state in the air cell, the flux is computed on that coarser clock and
+ * interpolated in between.</p>
+ * 
+ * @see SolarEphemeris
 */
 public class ShortwaveFlux extends AutoDynamDouble {
 	private StateDouble pressure;
@@ -26,20 +36,40 @@ public class ShortwaveFlux extends AutoDynamDouble {
 	private StateDouble startDay;
 	private StateDouble longitudeCorrection;
 	private StateDouble transmissivity;
+	/**
+	 * Position of the sun for the current day, shared with other solar faces
+	 */
+	private SolarEphemeris ephemeris;
+	
+	/**
+	 * Flux on the model clock, or on the coarse forcing clock of the air cell
+	 */
+	private ForcingCursor forcing;
 	
 	@Override
 	public double calculate() 
 	{	
-		jDay = (Math.floor(timeKeeper.getCurrentTime()/86400)) + startDay.value;
-		timeHours = (timeKeeper.getCurrentTime()/86400 - Math.floor(timeKeeper.getCurrentTime()/86400)) * 24;
-		return groundPerpRad() * Math.max((cosZenithAngle()),0.0) ;
-	}
-
-	private double cosZenithAngle() {
-		return (Math.sin(latitude.value*degToRad)*Math.sin(solarDeclination()*degToRad)+
-				Math.cos(latitude.value*degToRad)*Math.cos(degToRad*solarDeclination())*Math.cos(degToRad*degreesFromSolarNoon()));
+		return forcing.getValue(timeKeeper.getCurrentTime());
 	}
 	
+	private double fluxAt(double time)
+	{
+		double days = time/86400;
+		jDay = (Math.floor(days)) + startDay.value;
+		timeHours = (days - Math.floor(days)) * 24;
+		
+		// Declination and equation of time only change with the day
+		if (ephemeris == null || !ephemeris.isFor(jDay, latitude.value)) {
+			ephemeris = SolarEphemeris.getEphemeris(jDay, latitude.value);
+		}
+		
+		double cosZenith = ephemeris.cosZenithAngle(degreesFromSolarNoon());
+		if (cosZenith <= 0) {
+			// Sun is below the horizon
+			return 0;
+		}
+		return groundPerpRad(cosZenith) * cosZenith;
+	}
 
 	private double degreesFromSolarNoon() {
 		return ( 15 * (timeHours - solarNoonTime()));
@@ -47,26 +77,15 @@ public class ShortwaveFlux extends AutoDynamDouble {
 
 	private double solarNoonTime() {
 
-		return 12 - longitudeCorrection.value - equationTime();
-	}
-
-	private double equationTime() {
-		double f = degToRad*(-279.575 + 0.9856*jDay);
-		return (-104.7*Math.sin(f)+596.2*Math.sin(2*f)+4.3*Math.sin(3*f)-12.7*Math.sin(4*f)
-				-429.3*Math.cos(f)-2.0*Math.cos(2*f)+19.3*Math.cos(3*f))/
-				3600;	
-	}
-
-	private double solarDeclination() {
-		return (1/degToRad)*Math.asin(0.39785*Math.sin(degToRad*(278.97 + 0.9856*jDay + 1.9165*Math.sin(degToRad*(356.6 + 0.9856*jDay)))));
+		return 12 - longitudeCorrection.value - ephemeris.equationTime;
 	}
 
-	private double groundPerpRad() {
-		return spacePerpRad()*Math.pow(transmissivity.value, opticalAir());
+	private double groundPerpRad(double cosZenith) {
+		return spacePerpRad()*Math.pow(transmissivity.value, opticalAir(cosZenith));
 	}
 
-	private double opticalAir() {
-		return pressure.value / (1013 * Math.cos(degToRad*cosZenithAngle()));
+	private double opticalAir(double cosZenith) {
+		return pressure.value / (1013 * Math.cos(degToRad*cosZenith));
 	}
 
 	private double spacePerpRad() {
@@ -91,6 +110,14 @@ public class ShortwaveFlux extends AutoDynamDouble {
 		longitudeCorrection = (StateDouble)createDependency(atmCell,Heat.REQ_STATE_LONG_CORRECT);
 		transmissivity = (StateDouble)createDependency(atmCell,Heat.REQ_STATE_TRANSMIT);
 		solarConstant = (StateDouble)createDependency(atmCell,Heat.REQ_STATE_SOLAR_CONST);
+		
+		forcing = ForcingTableRegistry.resample(new ForcingCursor() {
+			@Override
+			public double getValue(double time)
+			{
+				return fluxAt(time);
+			}
+		}, atmCell);
 
 	}
 
@@ -0,0 +1,126 @@
+package edu.montana.cerg.tempsignal.heat.face.solarradflux.mechanistic;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Position of the sun for one day of the simulation at one latitude.
+ *
+ * <p>Solar declination and the equation of time only change with the day,
+ * so they are computed once per day and shared by every solar face at the
+ * same latitude. <code>ShortwaveFlux</code> is then left with the hour angle
+ * as its only trigonometry for the position of the sun.</p>
+ *
+ * <p>Instances are immutable. The shared cache holds the most recent day
+ * for each latitude, so its size is bounded by the number of distinct
+ * latitudes in the model.</p>
+ *
+ * @see ShortwaveFlux
+ */
+public final class SolarEphemeris {
+
+	private static final double DEG_TO_RAD = (2*Math.PI/360);
+
+	/**
+	 * Most recent ephemeris for each latitude
+	 */
+	private static final ConcurrentHashMap<Double, SolarEphemeris> CACHE =
+			new ConcurrentHashMap<Double, SolarEphemeris>();
+
+	/**
+	 * Day of the simulation (Julian day, may exceed 365 on multi-year runs)
+	 */
+	public final double jDay;
+
+	/**
+	 * Latitude (degrees)
+	 */
+	public final double latitude;
+
+	/**
+	 * Solar declination (degrees)
+	 */
+	public final double declination;
+
+	/**
+	 * Equation of time (hours)
+	 */
+	public final double equationTime;
+
+	/**
+	 * Product of the sines of latitude and declination
+	 */
+	public final double sinLatSinDecl;
+
+	/**
+	 * Product of the cosines of latitude and declination
+	 */
+	public final double cosLatCosDecl;
+
+	private SolarEphemeris(double jDay, double latitude)
+	{
+		this.jDay = jDay;
+		this.latitude = latitude;
+		declination = solarDeclination(jDay);
+		equationTime = equationTime(jDay);
+		sinLatSinDecl = Math.sin(latitude*DEG_TO_RAD)*Math.sin(declination*DEG_TO_RAD);
+		cosLatCosDecl = Math.cos(latitude*DEG_TO_RAD)*Math.cos(DEG_TO_RAD*declination);
+	}
+
+	/**
+	 * Gets the ephemeris for a day and latitude, computing it only if no
+	 * solar face has asked for that day at that latitude yet
+	 *
+	 * @param jDay Day of the simulation (Julian day)
+	 * @param latitude Latitude (degrees)
+	 * @return Shared ephemeris
+	 */
+	public static SolarEphemeris getEphemeris(double jDay, double latitude)
+	{
+		Double key = Double.valueOf(latitude);
+		SolarEphemeris ephemeris = CACHE.get(key);
+		if (ephemeris == null || ephemeris.jDay != jDay)
+		{
+			ephemeris = new SolarEphemeris(jDay, latitude);
+			CACHE.put(key, ephemeris);
+		}
+		return ephemeris;
+	}
+
+	/**
+	 * Checks if this ephemeris applies to a day and latitude
+	 *
+	 * @param jDay Day of the simulation (Julian day)
+	 * @param latitude Latitude (degrees)
+	 * @return true if this ephemeris can be used
+	 */
+	public boolean isFor(double jDay, double latitude)
+	{
+		return this.jDay == jDay && this.latitude == latitude;
+	}
+
+	/**
+	 * Cosine of the solar zenith angle
+	 *
+	 * @param degreesFromSolarNoon Hour angle (degrees)
+	 * @return Cosine of the zenith angle
+	 */
+	public double cosZenithAngle(double degreesFromSolarNoon)
+	{
+		return sinLatSinDecl + cosLatCosDecl*Math.cos(DEG_TO_RAD*degreesFromSolarNoon);
+	}
+
+	private static double equationTime(double jDay)
+	{
+		double f = DEG_TO_RAD*(-279.575 + 0.9856*jDay);
+		return (-104.7*Math.sin(f)+596.2*Math.sin(2*f)+4.3*Math.sin(3*f)-12.7*Math.sin(4*f)
+				-429.3*Math.cos(f)-2.0*Math.cos(2*f)+19.3*Math.cos(3*f))/
+				3600;
+	}
+
+	private static double solarDeclination(double jDay)
+	{
+		return (1/DEG_TO_RAD)*Math.asin(0.39785*Math.sin(DEG_TO_RAD*(278.97 + 0.9856*jDay +
+				1.9165*Math.sin(DEG_TO_RAD*(356.6 + 0.9856*jDay)))));
+	}
+
+}
@@ -0,0 +1,268 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Forcing table read zero-copy from a memory-mapped binary columnar file.
+ *
+ * <p>Layout (little-endian): a 16 byte header (magic <code>TSFF</code>,
+ * format version, number of rows, number of value columns), then the time
+ * column and each value column as contiguous arrays of doubles. A table
+ * maps only the time column and its own value column; the pages are
+ * shared through the operating system cache, so heap use does not grow
+ * with the length of the record and opening a table does no parsing.
+ * Times must be finite and strictly increasing, which the cursors' binary
+ * search relies on; this is checked when a file is written and when it is
+ * mapped (one pass over the time column).</p>
+ *
+ * @see ForcingTableConverter
+ */
+public class BinaryForcingTable extends ForcingTable {
+
+    /**
+     * First four bytes of a binary forcing file ("TSFF")
+     */
+    public static final int MAGIC = 0x54534646;
+
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+
+    private final DoubleBuffer times;
+
+    private final DoubleBuffer values;
+
+    private BinaryForcingTable(String name, DoubleBuffer times, DoubleBuffer values)
+    {
+        super(name);
+        this.times = times;
+        this.values = values;
+    }
+
+    /**
+     * Maps one value column of a binary forcing file
+     *
+     * @param file Binary forcing file
+     * @param column Index of the value column (the time column is 0)
+     * @return Memory-mapped table
+     * @throws ForcingTableException if the file cannot be mapped or is malformed
+     */
+    public static BinaryForcingTable map(File file, int column) throws ForcingTableException
+    {
+        RandomAccessFile raf = null;
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0)
+            {
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+            {
+                throw new ForcingTableException(file.getPath() + " is not a binary forcing table");
+            }
+            int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new ForcingTableException(file.getPath() + ": unsupported version " + version);
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            if (rows < 1 || columns < 1)
+            {
+                throw new ForcingTableException(file.getPath() + " has a corrupt header: "
+                        + rows + " rows, " + columns + " value columns");
+            }
+            if (column < 1 || column > columns)
+            {
+                throw new ForcingTableException(file.getPath() + " has no value column " + column);
+            }
+            long columnBytes = 8L * rows;
+            if (columnBytes > Integer.MAX_VALUE
+                    || columns >= (Long.MAX_VALUE - HEADER_BYTES) / columnBytes)
+            {
+                throw new ForcingTableException(file.getPath() + " has a corrupt header: "
+                        + rows + " rows, " + columns + " value columns");
+            }
+            if (channel.size() < HEADER_BYTES + columnBytes * (columns + 1L))
+            {
+                throw new ForcingTableException(file.getPath() + " is truncated");
+            }
+            // The mappings remain valid after the channel is closed
+            DoubleBuffer times = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES, columnBytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            DoubleBuffer values = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + columnBytes * column, columnBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            int bad = findUnorderedTime(times);
+            if (bad >= 0)
+            {
+                throw new ForcingTableException(file.getPath() + ", row " + bad + 
+                        ": time is not finite or not increasing");
+            }
+            return new BinaryForcingTable(file.getPath(), times, values);
+        }
+        catch (IOException e)
+        {
+            throw new ForcingTableException("Cannot map forcing table " + file.getPath(), e);
+        }
+        finally
+        {
+            close(raf);
+        }
+    }
+
+    /**
+     * Checks if a file starts with the binary forcing magic number
+     *
+     * @param file File to check
+     * @return true if the file is a binary forcing table
+     */
+    public static boolean isBinary(File file)
+    {
+        FileInputStream in = null;
+        try
+        {
+            in = new FileInputStream(file);
+            byte[] bytes = new byte[4];
+            if (in.read(bytes) != 4)
+            {
+                return false;
+            }
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+        finally
+        {
+            close(in);
+        }
+    }
+
+    /**
+     * Writes a binary forcing file
+     *
+     * @param file Destination
+     * @param times Time column (sec), finite and strictly increasing
+     * @param values Value columns, each the same length as the time column
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the times are not finite and
+     *          strictly increasing
+     */
+    public static void write(File file, double[] times, double[][] values) throws IOException
+    {
+        int bad = findUnorderedTime(DoubleBuffer.wrap(times));
+        if (bad >= 0)
+        {
+            throw new IllegalArgumentException("Row " + bad + ": time is not finite or not increasing");
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            FileChannel channel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(times.length).putInt(values.length);
+            header.flip();
+            writeFully(channel, header);
+            writeColumn(channel, times);
+            for (double[] column: values)
+            {
+                if (column.length != times.length)
+                {
+                    throw new IOException("Value column length differs from time column length");
+                }
+                writeColumn(channel, column);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * @return First row whose time is not finite or not above the time of
+     *          the row before, or -1 if the time column is ordered
+     */
+    private static int findUnorderedTime(DoubleBuffer times)
+    {
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < times.limit(); row++)
+        {
+            double time = times.get(row);
+            if (!(time > previous) || Double.isInfinite(time))
+            {
+                return row;
+            }
+            previous = time;
+        }
+        return -1;
+    }
+
+    private static void writeColumn(FileChannel channel, double[] column) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 8192).order(ByteOrder.LITTLE_ENDIAN);
+        for (int start = 0; start < column.length; start += 8192)
+        {
+            int count = Math.min(8192, column.length - start);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(column, start, count);
+            buffer.limit(8 * count);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    private static void close(Closeable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException e)
+            {
+            }
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return times.limit();
+    }
+
+    @Override
+    public double getTime(int row)
+    {
+        return times.get(row);
+    }
+
+    @Override
+    public double getValue(int row)
+    {
+        return values.get(row);
+    }
+
+}
@@ -0,0 +1,20 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+/**
+ * Position of one consumer in a shared forcing source.
+ * 
+ * <p>Each dynam owns its cursor; cursors are not shared between dynams.</p>
+ * 
+ * @see ForcingTableRegistry#createCursor(String, org.neosimulation.neo.framework.holon.Holon)
+ */
+public abstract class ForcingCursor {
+
+    /**
+     * Gets the value of the forcing at a time
+     * 
+     * @param time Simulation time (sec)
+     * @return Interpolated value
+     */
+    public abstract double getValue(double time);
+
+}
@@ -0,0 +1,56 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+/**
+ * A time series of forcing data (time column and one value column), shared
+ * read-only by every dynam that references it.
+ * 
+ * <p>Rows are sorted by increasing time. Consumers read the table through a
+ * {@link ForcingCursor}, which holds their position in the table.</p>
+ * 
+ * @see ForcingTableRegistry
+ */
+public abstract class ForcingTable {
+
+    /**
+     * Name of the table (path of its source)
+     */
+    private final String name;
+
+    protected ForcingTable(String name)
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return Number of rows in the table
+     */
+    public abstract int size();
+
+    /**
+     * @param row Row index
+     * @return Time of the row (sec)
+     */
+    public abstract double getTime(int row);
+
+    /**
+     * @param row Row index
+     * @return Value of the row
+     */
+    public abstract double getValue(int row);
+
+    /**
+     * Creates a cursor positioned at the start of the table
+     * 
+     * @return New cursor for a single consumer
+     */
+    public ForcingCursor createCursor()
+    {
+        return new TableCursor(this);
+    }
+
+}
@@ -0,0 +1,78 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts a registry text table (a <code>.tsf</code> file read by
+ * {@link TextForcingTable}) to the binary columnar format read by
+ * {@link BinaryForcingTable}.
+ *
+ * <p>Usage: <code>ForcingTableConverter &lt;text table&gt; &lt;binary table&gt;</code>.
+ * All columns of the text table are converted; the first one is time. The
+ * binary table can then replace the text table in the table states, using
+ * the <code>#n</code> suffix to select a value column when several series
+ * share one file. Tables read by the NEO interpolators are not accepted:
+ * their format and column semantics are NEO's, so they are converted to
+ * <code>.tsf</code> first, with the columns checked by hand.</p>
+ */
+public class ForcingTableConverter {
+
+    public static void main(String[] args)
+    {
+        if (args.length != 2)
+        {
+            System.err.println("Usage: ForcingTableConverter <text table> <binary table>");
+            System.exit(-1);
+        }
+        try
+        {
+            convert(new File(args[0]), new File(args[1]));
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Converts a text forcing table to the binary columnar format
+     *
+     * @param text Source text table
+     * @param binary Destination binary table
+     * @throws ForcingTableException if the text table is not a registry
+     *          table, cannot be read or its times are not strictly increasing
+     * @throws IOException if the binary table cannot be written
+     */
+    public static void convert(File text, File binary) throws ForcingTableException, IOException
+    {
+        if (!text.getName().endsWith(ForcingTableRegistry.TEXT_TABLE_EXTENSION))
+        {
+            throw new ForcingTableException(text.getPath() + " is not a registry text table (" + 
+                    ForcingTableRegistry.TEXT_TABLE_EXTENSION + ")");
+        }
+        int count = TextForcingTable.countColumns(text);
+        if (count < 2)
+        {
+            throw new ForcingTableException(text.getPath() + " has no value column");
+        }
+        int[] columns = new int[count];
+        for (int c = 0; c < count; c++)
+        {
+            columns[c] = c;
+        }
+        double[][] data = TextForcingTable.readColumns(text, columns);
+        double[][] values = new double[count - 1][];
+        System.arraycopy(data, 1, values, 0, count - 1);
+        try
+        {
+            BinaryForcingTable.write(binary, data[0], values);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ForcingTableException(text.getPath() + ": " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+/**
+ * Thrown when a forcing table cannot be found, read or interpolated
+ */
+@SuppressWarnings("serial")
+public class ForcingTableException extends Exception {
+
+    public ForcingTableException(String message)
+    {
+        super(message);
+    }
+
+    public ForcingTableException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,232 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.user.interpolator.InterpolatorFactory;
+import org.neosimulation.neo.user.interpolator.InterpolatorFactoryException;
+import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+
+/**
+ * Loads each named forcing table once and shares it read-only between all
+ * holons that reference it.
+ * 
+ * <p>Tables marked as registry tables are read by the registry and
+ * consumers get a {@link ForcingCursor} that walks the shared rows: files
+ * in the binary columnar format, recognized by their magic number, are
+ * memory-mapped ({@link BinaryForcingTable}), and files named with the
+ * {@link #TEXT_TABLE_EXTENSION} extension are parsed as text
+ * ({@link TextForcingTable}). The file is found as given or relative to
+ * the working directory, and a name may end with <code>#n</code> to select
+ * value column <i>n</i> of a file with several value columns (default 1).
+ * Any other name, including other existing files, is handed to the NEO
+ * <code>InterpolatorFactory</code>, once per table and simulation model,
+ * so existing inputs keep the format and column semantics of NEO.</p>
+ * 
+ * <p>If the consuming holon has a positive {@link #OPT_STATE_FORCING_INTERVAL}
+ * state, a cursor over a NEO interpolator evaluates it on that coarser
+ * clock and interpolates in between ({@link ResampledCursor}). Cursors over
+ * registry tables are not resampled: their lookup is already O(1) for a
+ * forward-moving clock, and resampling would cost two lookups and smooth
+ * out rows finer than the interval.</p>
+ */
+public class ForcingTableRegistry {
+
+    /**
+     * Name of the optional state for the interval at which forcing is 
+     * evaluated (sec); forcing follows the model timestep if absent
+     */
+    public static final String OPT_STATE_FORCING_INTERVAL = "ForcingInterval";
+
+    /**
+     * Extension of text files read by the registry instead of NEO
+     */
+    public static final String TEXT_TABLE_EXTENSION = ".tsf";
+
+    private static final String COLUMN_SEPARATOR = "#";
+
+    private static final ForcingTableRegistry instance = new ForcingTableRegistry();
+
+    /**
+     * Tables read by the registry, by canonical path and column
+     */
+    private final Map<String, ForcingTable> tables = new HashMap<String, ForcingTable>();
+
+    /**
+     * Interpolators created by NEO, by simulation model and table name
+     */
+    private final Map<Object, Map<String, MathInterpolator>> interpolators =
+            new WeakHashMap<Object, Map<String, MathInterpolator>>();
+
+    public static ForcingTableRegistry getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Creates a cursor for a consumer of a forcing table
+     * 
+     * @param tableName Name of the table (value of the table state)
+     * @param holon Holon of the consuming dynam
+     * @return New cursor over the shared table
+     * @throws ForcingTableException if the table cannot be loaded
+     */
+    public synchronized ForcingCursor createCursor(String tableName, Holon holon) 
+            throws ForcingTableException
+    {
+        ForcingCursor cursor = createFileCursor(tableName);
+        if (cursor == null)
+        {
+            cursor = resample(new InterpolatorCursor(getInterpolator(tableName, holon)), holon);
+        }
+        return cursor;
+    }
+
+    /**
+     * Creates a cursor over a forcing table file, for consumers outside a
+     * NEO model
+     * 
+     * @param tableName Path of the table, optionally ending with <code>#n</code>
+     * @return New cursor over the shared table
+     * @throws ForcingTableException if the file does not exist, is not a
+     *          registry table or cannot be loaded
+     */
+    public synchronized ForcingCursor createCursor(String tableName) throws ForcingTableException
+    {
+        ForcingCursor cursor = createFileCursor(tableName);
+        if (cursor == null)
+        {
+            throw new ForcingTableException("Forcing table " + tableName + " is not a registry table");
+        }
+        return cursor;
+    }
+
+    /**
+     * @return Cursor over the registry table named by a table name, or null
+     *          if the name is not a registry table
+     */
+    private ForcingCursor createFileCursor(String tableName) throws ForcingTableException
+    {
+        String path = tableName;
+        int column = 1;
+        int separator = tableName.lastIndexOf(COLUMN_SEPARATOR);
+        if (separator > 0)
+        {
+            try
+            {
+                column = Integer.parseInt(tableName.substring(separator + 1));
+                path = tableName.substring(0, separator);
+            }
+            catch (NumberFormatException e)
+            {
+                // '#' is part of the name
+            }
+        }
+        File file = findFile(path);
+        if (file == null || !(path.endsWith(TEXT_TABLE_EXTENSION) || BinaryForcingTable.isBinary(file)))
+        {
+            return null;
+        }
+        return getTable(file, column).createCursor();
+    }
+
+    /**
+     * Puts a cursor on the coarse forcing clock of a holon, if it has one.
+     * Only worth it for cursors that are expensive to evaluate (NEO
+     * interpolators, computed forcing such as the solar position).
+     * 
+     * @param cursor Cursor evaluated on the coarse clock
+     * @param holon Holon of the consuming dynam
+     * @return Resampled cursor, or the cursor itself if the holon has no
+     *          positive forcing interval
+     */
+    public static ForcingCursor resample(ForcingCursor cursor, Holon holon)
+    {
+        double interval = OptionalStates.getValue(holon, OPT_STATE_FORCING_INTERVAL, 0);
+        return interval > 0 ? new ResampledCursor(cursor, interval) : cursor;
+    }
+
+    /**
+     * Gets a table read by the registry, loading it on first use
+     * 
+     * @param file Table file
+     * @param column Index of the value column
+     * @return Shared table
+     * @throws ForcingTableException if the table cannot be loaded
+     */
+    public synchronized ForcingTable getTable(File file, int column) throws ForcingTableException
+    {
+        String key;
+        try
+        {
+            key = file.getCanonicalPath() + COLUMN_SEPARATOR + column;
+        }
+        catch (IOException e)
+        {
+            throw new ForcingTableException("Cannot resolve forcing table " + file.getPath(), e);
+        }
+        ForcingTable table = tables.get(key);
+        if (table == null)
+        {
+            if (BinaryForcingTable.isBinary(file))
+            {
+                table = BinaryForcingTable.map(file, column);
+            }
+            else
+            {
+                table = TextForcingTable.load(file, column);
+            }
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    private MathInterpolator getInterpolator(String tableName, Holon holon) 
+            throws ForcingTableException
+    {
+        Object model = holon.getSimulationModel();
+        Map<String, MathInterpolator> modelInterpolators = interpolators.get(model);
+        if (modelInterpolators == null)
+        {
+            modelInterpolators = new HashMap<String, MathInterpolator>();
+            interpolators.put(model, modelInterpolators);
+        }
+        MathInterpolator interp = modelInterpolators.get(tableName);
+        if (interp == null)
+        {
+            try
+            {
+                interp = InterpolatorFactory.getInstance().createMathInterpolator(
+                        tableName, holon.getSimulationModel());
+            }
+            catch (InterpolatorFactoryException e)
+            {
+                throw new ForcingTableException("Cannot create an interpolator for " + tableName, e);
+            }
+            modelInterpolators.put(tableName, interp);
+        }
+        return interp;
+    }
+
+    private static File findFile(String path)
+    {
+        File file = new File(path);
+        if (file.isFile())
+        {
+            return file;
+        }
+        file = new File(System.getProperty("user.dir"), path);
+        if (file.isFile())
+        {
+            return file;
+        }
+        return null;
+    }
+
+}
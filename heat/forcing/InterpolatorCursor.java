@@ -0,0 +1,24 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+import org.neosimulation.neo.user.interpolator.MathInterpolator;
+
+/**
+ * Cursor over a NEO interpolator, used for tables the registry cannot read
+ * directly. The interpolator is still created once per table and shared.
+ */
+class InterpolatorCursor extends ForcingCursor {
+
+    private final MathInterpolator interp;
+
+    InterpolatorCursor(MathInterpolator interp)
+    {
+        this.interp = interp;
+    }
+
+    @Override
+    public double getValue(double time)
+    {
+        return interp.getValue(time);
+    }
+
+}
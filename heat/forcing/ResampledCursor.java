@@ -0,0 +1,55 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+/**
+ * Cursor that evaluates another cursor only on a coarse clock and
+ * interpolates linearly in between.
+ * 
+ * <p>The coarse clock ticks at multiples of the interval from time zero.
+ * For a time in [t<sub>k</sub>, t<sub>k+1</sub>) the source is evaluated at
+ * both ticks once, and the end of one window is reused as the start of the
+ * next, so a simulation that steps forward evaluates the source once per
+ * interval whatever its own timestep.</p>
+ */
+public class ResampledCursor extends ForcingCursor {
+
+    private final ForcingCursor source;
+
+    private final double interval;
+
+    private double start = Double.NaN;
+    private double end = Double.NaN;
+    private double startValue;
+    private double endValue;
+
+    /**
+     * @param source Cursor evaluated on the coarse clock
+     * @param interval Interval of the coarse clock (sec), positive
+     */
+    public ResampledCursor(ForcingCursor source, double interval)
+    {
+        this.source = source;
+        this.interval = interval;
+    }
+
+    @Override
+    public double getValue(double time)
+    {
+        if (!(time >= start && time < end))
+        {
+            double tick = Math.floor(time / interval) * interval;
+            if (tick == end)
+            {
+                startValue = endValue;
+            }
+            else
+            {
+                startValue = source.getValue(tick);
+            }
+            start = tick;
+            end = tick + interval;
+            endValue = source.getValue(end);
+        }
+        return startValue + (endValue - startValue) * ((time - start) / interval);
+    }
+
+}
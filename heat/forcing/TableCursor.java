@@ -0,0 +1,80 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+/**
+ * Cursor over a {@link ForcingTable}.
+ * 
+ * <p>Remembers the row found by the previous lookup and walks from there,
+ * so lookups at monotonically advancing times cost O(1) amortized instead
+ * of a binary search. Moving back in time is supported by walking
+ * backwards. The first lookup finds its row by binary search, so a model
+ * that warm-starts late in a long record does not walk the rows it skipped.
+ * Values are linearly interpolated between rows and held constant beyond
+ * the first and last rows.</p>
+ */
+class TableCursor extends ForcingCursor {
+
+    private final ForcingTable table;
+
+    private final int last;
+
+    /**
+     * Row with the largest time less than or equal to the time of the
+     * previous lookup (or 0 before the start of the table), -1 before the
+     * first lookup
+     */
+    private int row;
+
+    TableCursor(ForcingTable table)
+    {
+        this.table = table;
+        this.last = table.size() - 1;
+        this.row = -1;
+    }
+
+    @Override
+    public double getValue(double time)
+    {
+        int i = row < 0 ? search(time) : row;
+        while (i < last && table.getTime(i + 1) <= time)
+        {
+            i++;
+        }
+        while (i > 0 && table.getTime(i) > time)
+        {
+            i--;
+        }
+        row = i;
+
+        double time0 = table.getTime(i);
+        if (i == last || time <= time0)
+        {
+            return table.getValue(i);
+        }
+        double time1 = table.getTime(i + 1);
+        double value0 = table.getValue(i);
+        return value0 + (table.getValue(i + 1) - value0) * ((time - time0) / (time1 - time0));
+    }
+
+    /**
+     * Finds the last row with a time less than or equal to a time
+     */
+    private int search(double time)
+    {
+        int low = 0;
+        int high = last;
+        while (low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if (table.getTime(mid) <= time)
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+}
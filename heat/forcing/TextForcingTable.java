@@ -0,0 +1,208 @@
+package edu.montana.cerg.tempsignal.heat.forcing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Forcing table parsed from a delimited text file into heap arrays.
+ * 
+ * <p>Columns are separated by commas, tabs or spaces. The first column is
+ * time (sec) and must be increasing; lines that do not start with a number
+ * (headers) and lines starting with <code>#</code> are skipped.</p>
+ */
+public class TextForcingTable extends ForcingTable {
+
+    private final double[] times;
+
+    private final double[] values;
+
+    private TextForcingTable(String name, double[] times, double[] values)
+    {
+        super(name);
+        this.times = times;
+        this.values = values;
+    }
+
+    /**
+     * Reads one value column of a text table
+     * 
+     * @param file Text table
+     * @param column Index of the value column (the time column is 0)
+     * @return Table held in memory
+     * @throws ForcingTableException if the file cannot be read or is malformed
+     */
+    public static TextForcingTable load(File file, int column) throws ForcingTableException
+    {
+        double[][] columns = readColumns(file, new int[] {0, column});
+        return new TextForcingTable(file.getPath(), columns[0], columns[1]);
+    }
+
+    /**
+     * Reads columns of a text table
+     * 
+     * @param file Text table
+     * @param columns Indices of the columns to read
+     * @return Values of each requested column, in the order requested
+     * @throws ForcingTableException if the file cannot be read or is malformed
+     */
+    public static double[][] readColumns(File file, int[] columns) throws ForcingTableException
+    {
+        double[][] data = new double[columns.length][1024];
+        int rows = 0;
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#"))
+                {
+                    continue;
+                }
+                String[] tokens = line.split("[,\\s]+");
+                if (!isNumber(tokens[0]))
+                {
+                    continue;
+                }
+                if (rows == data[0].length)
+                {
+                    for (int c = 0; c < columns.length; c++)
+                    {
+                        data[c] = Arrays.copyOf(data[c], rows * 2);
+                    }
+                }
+                for (int c = 0; c < columns.length; c++)
+                {
+                    if (columns[c] >= tokens.length)
+                    {
+                        throw new ForcingTableException(file.getPath() + ", line " + lineNumber +
+                                ": missing column " + columns[c]);
+                    }
+                    data[c][rows] = Double.parseDouble(tokens[columns[c]]);
+                }
+                if (rows > 0 && columns[0] == 0 && data[0][rows] < data[0][rows - 1])
+                {
+                    throw new ForcingTableException(file.getPath() + ", line " + lineNumber +
+                            ": time is decreasing");
+                }
+                rows++;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ForcingTableException("Cannot read forcing table " + file.getPath(), e);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ForcingTableException("Malformed forcing table " + file.getPath(), e);
+        }
+        finally
+        {
+            if (reader != null)
+            {
+                try
+                {
+                    reader.close();
+                }
+                catch (IOException e)
+                {
+                }
+            }
+        }
+        if (rows == 0)
+        {
+            throw new ForcingTableException("Forcing table " + file.getPath() + " has no rows");
+        }
+        for (int c = 0; c < columns.length; c++)
+        {
+            data[c] = Arrays.copyOf(data[c], rows);
+        }
+        return data;
+    }
+
+    /**
+     * Counts the columns of the first data line of a text table
+     * 
+     * @param file Text table
+     * @return Number of columns, including the time column
+     * @throws ForcingTableException if the file cannot be read or has no data
+     */
+    public static int countColumns(File file) throws ForcingTableException
+    {
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#"))
+                {
+                    String[] tokens = line.split("[,\\s]+");
+                    if (isNumber(tokens[0]))
+                    {
+                        return tokens.length;
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ForcingTableException("Cannot read forcing table " + file.getPath(), e);
+        }
+        finally
+        {
+            if (reader != null)
+            {
+                try
+                {
+                    reader.close();
+                }
+                catch (IOException e)
+                {
+                }
+            }
+        }
+        throw new ForcingTableException("Forcing table " + file.getPath() + " has no rows");
+    }
+
+    private static boolean isNumber(String token)
+    {
+        try
+        {
+            Double.parseDouble(token);
+            return true;
+        }
+        catch (NumberFormatException e)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return times.length;
+    }
+
+    @Override
+    public double getTime(int row)
+    {
+        return times[row];
+    }
+
+    @Override
+    public double getValue(int row)
+    {
+        return values[row];
+    }
+
+}
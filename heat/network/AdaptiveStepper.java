@@ -0,0 +1,252 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import edu.montana.cerg.tempsignal.heat.WaterProperties;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+
+/**
+ * Integrates the heat of a {@link ChannelNetwork} with an adaptive
+ * timestep.
+ * 
+ * <p>Each step is a Heun (second order) update with the forward Euler
+ * update embedded in it. The difference between the two, converted to
+ * temperature with the heat capacity of each cell, estimates the local
+ * error of the Euler update; the largest one over the network is compared
+ * with the tolerance. A step whose error is above the tolerance is
+ * repeated with a shorter step, and the next step is scaled by
+ * 0.9&middot;(tolerance/error)<sup>1/2</sup>, limited to between 0.2 and 5
+ * times the last step and to the minimum and maximum steps. Steps grow
+ * while temperatures change slowly (nights, steady flow) and shrink around
+ * sharp boundary events.</p>
+ * 
+ * <p>Boundary temperatures can follow forcing cursors, which are evaluated
+ * at the time of each stage, so forcing stays consistent whatever the
+ * steps; rejected steps only move the cursors backward within the step.
+ * Discharge and the heat sources of the cells ({@link #getSource()}, for
+ * processes outside the network) are held over a call to
+ * {@link #advanceTo(double)}.</p>
+ * 
+ * <p>A step shortened to land on the end time of {@link #advanceTo(double)}
+ * does not shrink the step that follows unless its own error asks for a
+ * shorter one, so repeated calls at short intervals keep the step the
+ * error allows.</p>
+ * 
+ * <p>The stepper integrates a standalone network, such as the members of
+ * an ensemble. NEO schedules the steps of a NEO model itself, so a model
+ * run through NEO keeps its fixed timestep.</p>
+ * 
+ * <p>Cells without water have no heat capacity to convert an error to a
+ * temperature, and are left out of the error estimate.</p>
+ */
+public class AdaptiveStepper {
+
+    private static final double SAFETY = 0.9;
+    private static final double MIN_SCALE = 0.2;
+    private static final double MAX_SCALE = 5;
+
+    private final ChannelNetwork network;
+
+    /**
+     * Tolerance on the local temperature error of a step (&deg;C)
+     */
+    private final double tolerance;
+
+    private final double minStep;
+    private final double maxStep;
+
+    /**
+     * Cursors for the boundary temperature of each face (null to hold)
+     */
+    private final ForcingCursor[] boundaryForcing;
+
+    /**
+     * Heat sources of each cell from outside the network (kJ sec<sup><small>-1</small></sup>)
+     */
+    private final double[] source;
+
+    private final double[] heatStart;
+    private final double[] rateStart;
+
+    private double time;
+    private double step;
+
+    private long accepted;
+    private long rejected;
+
+    /**
+     * @param network Network to integrate, with heat, water and properties set
+     * @param time Starting time (sec)
+     * @param tolerance Tolerance on the local temperature error (&deg;C)
+     * @param minStep Smallest step (sec); steps at this size are always accepted
+     * @param maxStep Largest step (sec)
+     * @throws IllegalArgumentException if the tolerance or the minimum
+     *          step is not positive, or the maximum step is below the
+     *          minimum step
+     */
+    public AdaptiveStepper(ChannelNetwork network, double time, double tolerance, 
+            double minStep, double maxStep)
+    {
+        if (!(tolerance > 0))
+        {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        if (!(minStep > 0) || Double.isInfinite(minStep))
+        {
+            throw new IllegalArgumentException("Minimum step must be positive and finite: " + minStep);
+        }
+        if (!(maxStep >= minStep))
+        {
+            throw new IllegalArgumentException("Maximum step " + maxStep 
+                    + " is below the minimum step " + minStep);
+        }
+        this.network = network;
+        this.time = time;
+        this.tolerance = tolerance;
+        this.minStep = minStep;
+        this.maxStep = maxStep;
+        step = minStep;
+        boundaryForcing = new ForcingCursor[network.getFaceCount()];
+        source = new double[network.getCellCount()];
+        heatStart = new double[network.getCellCount()];
+        rateStart = new double[network.getCellCount()];
+    }
+
+    /**
+     * Makes the boundary temperature of a face follow a forcing cursor
+     * 
+     * @param face Index of the face
+     * @param forcing Cursor of the boundary temperature
+     */
+    public void setBoundaryForcing(int face, ForcingCursor forcing)
+    {
+        boundaryForcing[face] = forcing;
+    }
+
+    public ChannelNetwork getNetwork()
+    {
+        return network;
+    }
+
+    /**
+     * Heat sources of the cells from outside the network, shared, not copied
+     * 
+     * @return Source of each cell (kJ sec<sup><small>-1</small></sup>)
+     */
+    public double[] getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Integrates to a time
+     * 
+     * @param endTime Time to stop at (sec)
+     */
+    public void advanceTo(double endTime)
+    {
+        int cells = network.getCellCount();
+        double[] heat = network.getHeat();
+        double[] netHeat = network.getNetHeat();
+        double[] water = network.getWater();
+        double[] spHeat = network.getSpHeat();
+        double[] density = network.getDensity();
+        double[] temp = network.getTemp();
+        boolean[] equationOfState = network.getEquationOfState();
+
+        while (time < endTime)
+        {
+            double dt = Math.min(step, endTime - time);
+            boolean last = dt == endTime - time;
+            boolean clipped = dt < step;
+
+            System.arraycopy(heat, 0, heatStart, 0, cells);
+            computeRate(time);
+            System.arraycopy(netHeat, 0, rateStart, 0, cells);
+
+            // Euler stage, then the Heun correction
+            for (int c = 0; c < cells; c++)
+            {
+                heat[c] = heatStart[c] + dt * rateStart[c];
+            }
+            computeRate(time + dt);
+            double error = 0;
+            for (int c = 0; c < cells; c++)
+            {
+                double change = 0.5 * dt * (netHeat[c] - rateStart[c]);
+                heat[c] = heatStart[c] + 0.5 * dt * (rateStart[c] + netHeat[c]);
+                if (!(water[c] > 0))
+                {
+                    continue;
+                }
+                double capacity = equationOfState[c] ? 
+                        WaterProperties.heatCapacity(temp[c]) : spHeat[c] * density[c];
+                error = Math.max(error, Math.abs(change) / (water[c] * capacity));
+            }
+            double ratio = error / tolerance;
+
+            if (ratio <= 1 || dt <= minStep)
+            {
+                time = last ? endTime : time + dt;
+                accepted++;
+            }
+            else
+            {
+                System.arraycopy(heatStart, 0, heat, 0, cells);
+                rejected++;
+            }
+            double scale = ratio > 0 ? SAFETY / Math.sqrt(ratio) : MAX_SCALE;
+            double next = Math.max(minStep, Math.min(maxStep, 
+                    dt * Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale))));
+            // A step clipped to the end time says nothing about a longer
+            // step, so it only sets the next step if its error asks to shrink
+            if (!clipped || scale < 1)
+            {
+                step = next;
+            }
+        }
+        network.computeTemps();
+    }
+
+    private void computeRate(double time)
+    {
+        double[] boundaryTemp = network.getBoundaryTemp();
+        for (int f = 0; f < boundaryForcing.length; f++)
+        {
+            if (boundaryForcing[f] != null)
+            {
+                boundaryTemp[f] = boundaryForcing[f].getValue(time);
+            }
+        }
+        network.computeTemps();
+        network.computeAdvection();
+        network.computeNetHeat();
+        double[] netHeat = network.getNetHeat();
+        for (int c = 0; c < source.length; c++)
+        {
+            netHeat[c] += source[c];
+        }
+    }
+
+    public double getTime()
+    {
+        return time;
+    }
+
+    /**
+     * Step the next call will try first (sec)
+     */
+    public double getStep()
+    {
+        return step;
+    }
+
+    public long getAcceptedSteps()
+    {
+        return accepted;
+    }
+
+    public long getRejectedSteps()
+    {
+        return rejected;
+    }
+
+}
@@ -0,0 +1,440 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.montana.cerg.tempsignal.heat.WaterProperties;
+
+/**
+ * Channel network laid out as primitive arrays (struct of arrays).
+ * 
+ * <p>Cells are numbered in topological order (upstream before downstream)
+ * and faces are numbered by their upstream cell, so the batch loops below
+ * walk each array forward instead of following references from holon to
+ * dynam to state. Cell arrays hold heat, water volume, temperature and the
+ * water properties; face arrays hold the cell on each side, the discharge
+ * and the advected heat. A face with no 'from' cell ({@link #BOUNDARY}) is
+ * a boundary of the network: inflow arrives at its boundary temperature
+ * with the properties of the 'to' cell, outflow leaves with the
+ * temperature of the 'to' cell. The 'to' side of every face is a cell.</p>
+ * 
+ * <p>The arithmetic is the same, in the same order, as
+ * <code>cell.channel.Temp</code> and <code>edge.channeltransport.Heat</code>
+ * with their density calculators, so results are identical to the holon
+ * based behaviors.</p>
+ * 
+ * <p>Each batch step also has a parallel form that splits the cells or
+ * faces into contiguous blocks on a <code>ForkJoinPool</code>. Every task
+ * writes only its own elements: the net heat of a cell is gathered from
+ * its faces in face order, so the parallel sums are bitwise identical to
+ * the serial ones for any number of threads.</p>
+ * 
+ * @see ChannelNetworkBuilder
+ */
+public class ChannelNetwork {
+
+    /**
+     * Cell index of the missing side of a boundary face
+     */
+    public static final int BOUNDARY = -1;
+
+    private final int cellCount;
+    private final int faceCount;
+
+    /**
+     * Heat in each cell (kJ)
+     */
+    private final double[] heat;
+    /**
+     * Water volume of each cell (m<sup><small>3</small></sup>)
+     */
+    private final double[] water;
+    /**
+     * Temperature of each cell (&deg;C)
+     */
+    private final double[] temp;
+    /**
+     * Specific heat of water in each cell (kJ kg<sup><small>-1</small></sup> K<sup><small>-1</small></sup>)
+     */
+    private final double[] spHeat;
+    /**
+     * Density of water in each cell (kg m<sup><small>-3</small></sup>)
+     */
+    private final double[] density;
+    /**
+     * Cells using the equation of state tables
+     */
+    private final boolean[] equationOfState;
+    /**
+     * Net advected heat into each cell (kJ sec<sup><small>-1</small></sup>)
+     */
+    private final double[] netHeat;
+
+    private final int[] faceFrom;
+    private final int[] faceTo;
+    /**
+     * Discharge through each face, positive from 'from' to 'to' (m<sup><small>3</small></sup> sec<sup><small>-1</small></sup>)
+     */
+    private final double[] discharge;
+    /**
+     * Advected heat through each face (kJ sec<sup><small>-1</small></sup>)
+     */
+    private final double[] faceHeat;
+    /**
+     * Temperature of inflow at boundary faces (&deg;C)
+     */
+    private final double[] boundaryTemp;
+
+    /**
+     * Faces of each cell in face order: faces of cell c are
+     * cellFaces[cellFaceStart[c]] to cellFaces[cellFaceStart[c + 1] - 1]
+     */
+    private final int[] cellFaceStart;
+    private final int[] cellFaces;
+
+    private final RangeTask.Kernel tempKernel = new RangeTask.Kernel() {
+        @Override
+        public void run(int from, int to)
+        {
+            computeTemps(from, to);
+        }
+    };
+
+    private final RangeTask.Kernel advectionKernel = new RangeTask.Kernel() {
+        @Override
+        public void run(int from, int to)
+        {
+            computeAdvection(from, to);
+        }
+    };
+
+    private final RangeTask.Kernel netHeatKernel = new RangeTask.Kernel() {
+        @Override
+        public void run(int from, int to)
+        {
+            gatherNetHeat(from, to);
+        }
+    };
+
+    ChannelNetwork(int cellCount, int[] faceFrom, int[] faceTo)
+    {
+        this.cellCount = cellCount;
+        this.faceCount = faceFrom.length;
+        heat = new double[cellCount];
+        water = new double[cellCount];
+        temp = new double[cellCount];
+        spHeat = new double[cellCount];
+        density = new double[cellCount];
+        equationOfState = new boolean[cellCount];
+        netHeat = new double[cellCount];
+        this.faceFrom = faceFrom;
+        this.faceTo = faceTo;
+        discharge = new double[faceCount];
+        faceHeat = new double[faceCount];
+        boundaryTemp = new double[faceCount];
+
+        cellFaceStart = new int[cellCount + 1];
+        for (int f = 0; f < faceCount; f++)
+        {
+            if (faceFrom[f] != BOUNDARY)
+                cellFaceStart[faceFrom[f] + 1]++;
+            cellFaceStart[faceTo[f] + 1]++;
+        }
+        for (int c = 0; c < cellCount; c++)
+        {
+            cellFaceStart[c + 1] += cellFaceStart[c];
+        }
+        cellFaces = new int[cellFaceStart[cellCount]];
+        int[] fill = Arrays.copyOf(cellFaceStart, cellCount);
+        for (int f = 0; f < faceCount; f++)
+        {
+            if (faceFrom[f] != BOUNDARY)
+                cellFaces[fill[faceFrom[f]]++] = f;
+            cellFaces[fill[faceTo[f]]++] = f;
+        }
+    }
+
+    /**
+     * Creates a copy of a network's state sharing its topology
+     */
+    private ChannelNetwork(ChannelNetwork template)
+    {
+        cellCount = template.cellCount;
+        faceCount = template.faceCount;
+        heat = template.heat.clone();
+        water = template.water.clone();
+        temp = template.temp.clone();
+        spHeat = template.spHeat.clone();
+        density = template.density.clone();
+        equationOfState = template.equationOfState.clone();
+        netHeat = template.netHeat.clone();
+        faceFrom = template.faceFrom;
+        faceTo = template.faceTo;
+        discharge = template.discharge.clone();
+        faceHeat = template.faceHeat.clone();
+        boundaryTemp = template.boundaryTemp.clone();
+        cellFaceStart = template.cellFaceStart;
+        cellFaces = template.cellFaces;
+    }
+
+    /**
+     * Creates a network for an ensemble member. The topology arrays, which
+     * are never written after construction, are shared with this network;
+     * the cell and face state is copied, so the member costs six doubles per cell
+     * and three per face instead of a rebuilt network.
+     * 
+     * @return Network with the same topology and a copy of the current state
+     */
+    public ChannelNetwork createMember()
+    {
+        return new ChannelNetwork(this);
+    }
+
+    /**
+     * Converts heat to temperature in every cell
+     */
+    public void computeTemps()
+    {
+        computeTemps(0, cellCount);
+    }
+
+    /**
+     * Converts heat to temperature in every cell, in parallel
+     * 
+     * @param pool Pool to run on
+     */
+    public void computeTemps(ForkJoinPool pool)
+    {
+        pool.invoke(new RangeTask(tempKernel, 0, cellCount));
+    }
+
+    private void computeTemps(int from, int to)
+    {
+        for (int c = from; c < to; c++)
+        {
+            if (equationOfState[c])
+                temp[c] = WaterProperties.tempFromHeatContent(heat[c] / water[c]);
+            else
+                temp[c] = (heat[c] / (water[c] * spHeat[c] * density[c])) - 273.15;
+        }
+    }
+
+    /**
+     * Converts temperature to heat in every cell (initialization)
+     */
+    public void computeHeats()
+    {
+        for (int c = 0; c < cellCount; c++)
+        {
+            if (equationOfState[c])
+                heat[c] = water[c] * WaterProperties.heatContent(temp[c]);
+            else
+                heat[c] = water[c] * (temp[c] + 273.15) * spHeat[c] * density[c];
+        }
+    }
+
+    /**
+     * Computes the heat advected through every face by upwind transport
+     */
+    public void computeAdvection()
+    {
+        computeAdvection(0, faceCount);
+    }
+
+    /**
+     * Computes the heat advected through every face, in parallel
+     * 
+     * @param pool Pool to run on
+     */
+    public void computeAdvection(ForkJoinPool pool)
+    {
+        pool.invoke(new RangeTask(advectionKernel, 0, faceCount));
+    }
+
+    /**
+     * Computes the heat advected through one face
+     * 
+     * @param face Index of the face
+     */
+    void computeFaceHeat(int face)
+    {
+        computeAdvection(face, face + 1);
+    }
+
+    private void computeAdvection(int start, int end)
+    {
+        for (int f = start; f < end; f++)
+        {
+            double q = discharge[f];
+            int c = q > 0 ? faceFrom[f] : faceTo[f];
+            if (c == BOUNDARY)
+            {
+                // Inflow has the properties of the receiving cell
+                int to = faceTo[f];
+                if (equationOfState[to])
+                    faceHeat[f] = q * WaterProperties.heatContent(boundaryTemp[f]);
+                else
+                    faceHeat[f] = q * (boundaryTemp[f] + 273.15) * spHeat[to] * density[to];
+            }
+            else if (equationOfState[c])
+                faceHeat[f] = q * WaterProperties.heatContent(temp[c]);
+            else
+                faceHeat[f] = q * (temp[c] + 273.15) * spHeat[c] * density[c];
+        }
+    }
+
+    /**
+     * Sums the advected heat of the faces into the cells on either side
+     */
+    public void computeNetHeat()
+    {
+        Arrays.fill(netHeat, 0);
+        for (int f = 0; f < faceCount; f++)
+        {
+            int from = faceFrom[f];
+            if (from != BOUNDARY)
+                netHeat[from] -= faceHeat[f];
+            netHeat[faceTo[f]] += faceHeat[f];
+        }
+    }
+
+    /**
+     * Gathers the advected heat of the faces into the cells on either side,
+     * in parallel; each cell sums its own faces in face order, which gives
+     * the same result as {@link #computeNetHeat()}
+     * 
+     * @param pool Pool to run on
+     */
+    public void computeNetHeat(ForkJoinPool pool)
+    {
+        pool.invoke(new RangeTask(netHeatKernel, 0, cellCount));
+    }
+
+    private void gatherNetHeat(int from, int to)
+    {
+        for (int c = from; c < to; c++)
+        {
+            double sum = 0;
+            for (int k = cellFaceStart[c]; k < cellFaceStart[c + 1]; k++)
+            {
+                int f = cellFaces[k];
+                if (faceFrom[f] == c)
+                    sum -= faceHeat[f];
+                else
+                    sum += faceHeat[f];
+            }
+            netHeat[c] = sum;
+        }
+    }
+
+    /**
+     * Advances the network by one explicit step of advective transport,
+     * for use outside a NEO model
+     * 
+     * @param dt Timestep (sec)
+     */
+    public void advance(double dt)
+    {
+        computeAdvection();
+        computeNetHeat();
+        for (int c = 0; c < cellCount; c++)
+        {
+            heat[c] += dt * netHeat[c];
+        }
+        computeTemps();
+    }
+
+    /**
+     * Advances the network by one explicit step of advective transport,
+     * in parallel, with the same result as {@link #advance(double)}
+     * 
+     * @param dt Timestep (sec)
+     * @param pool Pool to run on
+     */
+    public void advance(double dt, ForkJoinPool pool)
+    {
+        computeAdvection(pool);
+        computeNetHeat(pool);
+        for (int c = 0; c < cellCount; c++)
+        {
+            heat[c] += dt * netHeat[c];
+        }
+        computeTemps(pool);
+    }
+
+    public int getCellCount()
+    {
+        return cellCount;
+    }
+
+    public int getFaceCount()
+    {
+        return faceCount;
+    }
+
+    /*
+     * The arrays below are shared, not copied, so callers can fill inputs
+     * and read results in bulk. Cells and faces are in network order.
+     */
+
+    public double[] getHeat()
+    {
+        return heat;
+    }
+
+    public double[] getWater()
+    {
+        return water;
+    }
+
+    public double[] getTemp()
+    {
+        return temp;
+    }
+
+    public double[] getSpHeat()
+    {
+        return spHeat;
+    }
+
+    public double[] getDensity()
+    {
+        return density;
+    }
+
+    public boolean[] getEquationOfState()
+    {
+        return equationOfState;
+    }
+
+    public double[] getNetHeat()
+    {
+        return netHeat;
+    }
+
+    public int getFaceFrom(int face)
+    {
+        return faceFrom[face];
+    }
+
+    public int getFaceTo(int face)
+    {
+        return faceTo[face];
+    }
+
+    public double[] getDischarge()
+    {
+        return discharge;
+    }
+
+    public double[] getFaceHeat()
+    {
+        return faceHeat;
+    }
+
+    public double[] getBoundaryTemp()
+    {
+        return boundaryTemp;
+    }
+
+}
@@ -0,0 +1,607 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.time.TimeKeeper;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+
+/**
+ * Connects the batched channel behaviors of a NEO model to one
+ * {@link ChannelNetwork}.
+ * 
+ * <p>During wiring, each batched <code>Temp</code> registers its cell, each
+ * batched <code>channeltransport</code> and <code>channelin</code> face
+ * registers its discharge (and external temperature), and each batched
+ * <code>atmexchange</code>, <code>bedexchange</code> and
+ * <code>gwexchange</code> face registers its temperatures and conductance
+ * inputs. The network is built on the first calculation, with an
+ * {@link ExchangeNetwork} over the exchange faces. NEO still integrates the
+ * heat pools and calls every dynam; the first cell <code>Temp</code> called
+ * at a simulation time gathers heat and water from the states into the
+ * arrays and converts all cells at once, the first advective face called
+ * at a time gathers discharge and computes the advection of all faces, and
+ * the first exchange face called at a time gathers the temperatures of the
+ * cells outside the channel network and the conductance inputs and
+ * computes the flux of all exchange faces. The other dynams called at that
+ * time return their element of the result arrays, however many times each
+ * one is called.</p>
+ * 
+ * <p>NEO does not promise to update the dynams a face depends on before
+ * the first face of a round, so a boundary or exchange face checks its own
+ * inputs against the gathered values and recomputes its element if one of
+ * them has moved since, as the faces of <code>LongwaveBatch</code> do.</p>
+ * 
+ * <p>The face computation converts the cells itself if their temperatures
+ * have not been computed at the current time, for example while the model
+ * is initialized (the batched <code>Temp</code> initializes from its
+ * state), so no face reads a temperature from another time.</p>
+ * 
+ * <p>Networks of at least {@link #PARALLEL_CELLS} cells or exchange faces
+ * run the batch steps on the common <code>ForkJoinPool</code>; the
+ * parallel steps give the same values as the serial ones. NEO sums the
+ * face fluxes into the channel and hyporheic pools itself;
+ * {@link ExchangeNetwork#advance(double, ForkJoinPool)} does that sum in
+ * parallel where the pools stay in the arrays.</p>
+ * 
+ * <p>NEO still integrates the pools and updates every dynam, so each step
+ * adds a gather pass to the work of the holon behaviors: on one core the
+ * <code>batched</code> case of <code>ChannelNetworkBenchmark</code> costs
+ * about 1.5 times the <code>holon</code> case. The arrays pay off where the
+ * pools stay in them, in the {@link AdaptiveStepper}, the ensembles and the
+ * {@link PeriodicCycle} (<code>network</code>, at half the holon cost or
+ * less); {@link #createSnapshot()} carries a model's network into them.</p>
+ * 
+ * <p>A binding is confined to the thread that runs its model: cells and
+ * faces register during wiring, the dynams read it during the updates, and
+ * the snapshot is taken between updates. Apart from the registry of
+ * bindings, nothing in it is synchronized; the parallel steps hand the
+ * arrays to the pool and wait for it.</p>
+ */
+public class ChannelNetworkBinding {
+
+    /**
+     * Smallest network evaluated in parallel
+     */
+    public static final int PARALLEL_CELLS = 16384;
+
+    /**
+     * Binding of each simulation model, held weakly: the binding refers to
+     * states of the model and is kept alive by the batched dynams
+     */
+    private static final Map<Object, WeakReference<ChannelNetworkBinding>> bindings = 
+            new WeakHashMap<Object, WeakReference<ChannelNetworkBinding>>();
+
+    private final ChannelNetworkBuilder builder = new ChannelNetworkBuilder();
+
+    private final Map<Holon, Integer> cellNumbers = new IdentityHashMap<Holon, Integer>();
+
+    private final List<StateDouble> heatStates = new ArrayList<StateDouble>();
+    private final List<StateDouble> waterStates = new ArrayList<StateDouble>();
+    private final List<StateDouble> densityStates = new ArrayList<StateDouble>();
+    private final List<Double> spHeats = new ArrayList<Double>();
+    private final List<Boolean> equationsOfState = new ArrayList<Boolean>();
+
+    private final List<Holon[]> faceCells = new ArrayList<Holon[]>();
+    private final List<StateDouble> dischargeStates = new ArrayList<StateDouble>();
+    private final List<StateDouble> boundaryTempStates = new ArrayList<StateDouble>();
+
+    /*
+     * Per exchange face: 'from' and 'to' cells, then 'from' temperature,
+     * 'to' temperature, ThermCondEff, Area and Volume (null for a surface)
+     */
+    private final List<Holon[]> exchangeCells = new ArrayList<Holon[]>();
+    private final List<StateDouble[]> exchangeStates = new ArrayList<StateDouble[]>();
+
+    private ChannelNetwork network;
+
+    private ExchangeNetwork exchange;
+
+    /*
+     * States in network order, for the gather loops
+     */
+    private StateDouble[] cellHeat;
+    private StateDouble[] cellWater;
+    private StateDouble[] cellDensity;
+    private StateDouble[] faceDischarge;
+    private StateDouble[] faceBoundaryTemp;
+    private Holon[] cellHolons;
+
+    /*
+     * Exchange states in face order, and the temperature state of each
+     * exchange node outside the channel network
+     */
+    private StateDouble[] exchangeThermCondEff;
+    private StateDouble[] exchangeArea;
+    private StateDouble[] exchangeVolume;
+    private StateDouble[] nodeTemp;
+
+    private int[] cellIndex;
+    private int[] faceIndex;
+
+    /**
+     * Pool for the batch steps, or null to run them serially
+     */
+    private ForkJoinPool pool;
+
+    private TimeKeeper timeKeeper;
+
+    /*
+     * Simulation time of the last temperature and advection computations
+     */
+    private double tempTime = Double.NaN;
+    private double faceTime = Double.NaN;
+    private double exchangeTime = Double.NaN;
+
+    /**
+     * Gets the binding of a simulation model
+     * 
+     * @param holon Any holon of the model
+     * @return Binding shared by the batched behaviors of the model
+     */
+    public static synchronized ChannelNetworkBinding getInstance(Holon holon)
+    {
+        Object model = holon.getSimulationModel();
+        WeakReference<ChannelNetworkBinding> reference = bindings.get(model);
+        ChannelNetworkBinding binding = reference == null ? null : reference.get();
+        if (binding == null)
+        {
+            binding = new ChannelNetworkBinding();
+            binding.timeKeeper = holon.getSimulationModel().getTimeKeeper();
+            bindings.put(model, new WeakReference<ChannelNetworkBinding>(binding));
+        }
+        return binding;
+    }
+
+    /**
+     * Registers a channel cell
+     * 
+     * @param cell Channel cell
+     * @param heat Heat state of the cell
+     * @param water Water state of the cell
+     * @param spHeat Specific heat of water in the cell
+     * @param density Density state, or null for the default density
+     * @param equationOfState true if the cell uses the equation of state tables
+     * @return Number of the cell in the binding
+     */
+    public int registerCell(Holon cell, StateDouble heat, StateDouble water, 
+            double spHeat, StateDouble density, boolean equationOfState)
+    {
+        checkNotBuilt();
+        int number = builder.addCell();
+        cellNumbers.put(cell, number);
+        heatStates.add(heat);
+        waterStates.add(water);
+        densityStates.add(density);
+        spHeats.add(spHeat);
+        equationsOfState.add(equationOfState);
+        return number;
+    }
+
+    /**
+     * Registers a transport face between two channel cells
+     * 
+     * @param fromCell Cell on the 'from' side
+     * @param toCell Cell on the 'to' side
+     * @param discharge Water state of the face
+     * @return Number of the face in the binding
+     */
+    public int registerFace(Holon fromCell, Holon toCell, StateDouble discharge)
+    {
+        checkNotBuilt();
+        faceCells.add(new Holon[] {fromCell, toCell});
+        dischargeStates.add(discharge);
+        boundaryTempStates.add(null);
+        return faceCells.size() - 1;
+    }
+
+    /**
+     * Registers a boundary face into a channel cell
+     * 
+     * @param toCell Channel cell inside the boundary
+     * @param discharge Water state of the face
+     * @param extTemp External temperature state of the face
+     * @return Number of the face in the binding
+     */
+    public int registerInflow(Holon toCell, StateDouble discharge, StateDouble extTemp)
+    {
+        checkNotBuilt();
+        faceCells.add(new Holon[] {null, toCell});
+        dischargeStates.add(discharge);
+        boundaryTempStates.add(extTemp);
+        return faceCells.size() - 1;
+    }
+
+    /**
+     * Registers a conductive exchange face; a cell that is not a registered
+     * channel cell becomes a node whose temperature is read from its state
+     * 
+     * @param fromCell Cell on the 'from' side
+     * @param fromTemp Temperature state of the 'from' cell
+     * @param toCell Cell on the 'to' side
+     * @param toTemp Temperature state of the 'to' cell
+     * @param thermCondEff Effective thermal conductivity state of the face
+     * @param area Area state of the exchange
+     * @param volume Volume state of the layer, or null for a surface
+     * @return Number of the exchange face in the binding
+     */
+    public int registerExchange(Holon fromCell, StateDouble fromTemp, Holon toCell, StateDouble toTemp, 
+            StateDouble thermCondEff, StateDouble area, StateDouble volume)
+    {
+        checkNotBuilt();
+        exchangeCells.add(new Holon[] {fromCell, toCell});
+        exchangeStates.add(new StateDouble[] {fromTemp, toTemp, thermCondEff, area, volume});
+        return exchangeCells.size() - 1;
+    }
+
+    /**
+     * Gets the temperature of a cell at the current time
+     * 
+     * @param cell Number of the cell
+     * @return Temperature (&deg;C)
+     */
+    public double getTemp(int cell)
+    {
+        if (network == null)
+        {
+            build();
+        }
+        updateTemps(timeKeeper.getCurrentTime());
+        return network.getTemp()[cellIndex[cell]];
+    }
+
+    /**
+     * Gets the advected heat through a face at the current time
+     * 
+     * @param face Number of the face
+     * @return Rate of heat transfer (kJ sec<sup><small>-1</small></sup>)
+     */
+    public double getFaceHeat(int face)
+    {
+        if (network == null)
+        {
+            build();
+        }
+        double time = timeKeeper.getCurrentTime();
+        if (time != faceTime)
+        {
+            updateTemps(time);
+            gatherFaces(network);
+            if (pool == null)
+                network.computeAdvection();
+            else
+                network.computeAdvection(pool);
+            faceTime = time;
+        }
+        int i = faceIndex[face];
+        if (faceBoundaryTemp[i] != null && (faceBoundaryTemp[i].value != network.getBoundaryTemp()[i] 
+                || faceDischarge[i].value != network.getDischarge()[i]))
+        {
+            network.getBoundaryTemp()[i] = faceBoundaryTemp[i].value;
+            network.getDischarge()[i] = faceDischarge[i].value;
+            network.computeFaceHeat(i);
+        }
+        return network.getFaceHeat()[i];
+    }
+
+    /**
+     * Gets the heat conducted through an exchange face at the current time
+     * 
+     * @param face Number of the exchange face
+     * @return Rate of heat transfer from the 'from' cell to the 'to' cell 
+     *          (kJ sec<sup><small>-1</small></sup>)
+     */
+    public double getExchangeHeat(int face)
+    {
+        if (network == null)
+        {
+            build();
+        }
+        double time = timeKeeper.getCurrentTime();
+        if (time != exchangeTime)
+        {
+            updateTemps(time);
+            gatherExchange();
+            if (pool == null)
+                exchange.computeFluxes();
+            else
+                exchange.computeFluxes(pool);
+            exchangeTime = time;
+        }
+        else if (exchangeMoved(face))
+        {
+            exchange.computeFlux(face);
+        }
+        return exchange.getFlux()[face];
+    }
+
+    private void gatherExchange()
+    {
+        double[] temp = exchange.getNodeTemp();
+        for (int n = 0; n < nodeTemp.length; n++)
+        {
+            temp[n] = nodeTemp[n].value;
+        }
+        double[] thermCondEff = exchange.getThermCondEff();
+        double[] area = exchange.getArea();
+        double[] volume = exchange.getVolume();
+        for (int f = 0; f < exchangeThermCondEff.length; f++)
+        {
+            thermCondEff[f] = exchangeThermCondEff[f].value;
+            area[f] = exchangeArea[f].value;
+            if (exchangeVolume[f] != null)
+            {
+                volume[f] = exchangeVolume[f].value;
+            }
+        }
+    }
+
+    /**
+     * Regathers the inputs of an exchange face that moved after the round
+     * was computed
+     * 
+     * @return true if an input of the face moved
+     */
+    private boolean exchangeMoved(int face)
+    {
+        boolean moved = false;
+        int channelCells = network.getCellCount();
+        double[] temp = exchange.getNodeTemp();
+        int[] nodes = {exchange.getFaceFrom(face), exchange.getFaceTo(face)};
+        for (int node: nodes)
+        {
+            int n = node - channelCells;
+            if (n >= 0 && nodeTemp[n].value != temp[n])
+            {
+                temp[n] = nodeTemp[n].value;
+                moved = true;
+            }
+        }
+        if (exchangeThermCondEff[face].value != exchange.getThermCondEff()[face])
+        {
+            exchange.getThermCondEff()[face] = exchangeThermCondEff[face].value;
+            moved = true;
+        }
+        if (exchangeArea[face].value != exchange.getArea()[face])
+        {
+            exchange.getArea()[face] = exchangeArea[face].value;
+            moved = true;
+        }
+        if (exchangeVolume[face] != null && exchangeVolume[face].value != exchange.getVolume()[face])
+        {
+            exchange.getVolume()[face] = exchangeVolume[face].value;
+            moved = true;
+        }
+        return moved;
+    }
+
+    /**
+     * Gathers the cells and converts their temperatures, unless done at
+     * this time already
+     */
+    private void updateTemps(double time)
+    {
+        if (time != tempTime)
+        {
+            gatherCells(network);
+            if (pool == null)
+                network.computeTemps();
+            else
+                network.computeTemps(pool);
+            tempTime = time;
+        }
+    }
+
+    /**
+     * Gets the network, building it if needed
+     * 
+     * @return Network of the registered cells and faces
+     */
+    public ChannelNetwork getNetwork()
+    {
+        if (network == null)
+        {
+            build();
+        }
+        return network;
+    }
+
+    /**
+     * Gets the exchange network, building it if needed
+     * 
+     * @return Network of the registered exchange faces
+     */
+    public ExchangeNetwork getExchange()
+    {
+        if (network == null)
+        {
+            build();
+        }
+        return exchange;
+    }
+
+    /**
+     * Gets the registered cells, building the network if needed
+     * 
+     * @return Cell of each network index
+     */
+    public Holon[] getCells()
+    {
+        if (network == null)
+        {
+            build();
+        }
+        return cellHolons.clone();
+    }
+
+    private void build()
+    {
+        if (network != null)
+        {
+            return;
+        }
+        for (Holon[] cells: faceCells)
+        {
+            Integer from = cells[0] == null ? Integer.valueOf(ChannelNetwork.BOUNDARY) : cellNumbers.get(cells[0]);
+            Integer to = cellNumbers.get(cells[1]);
+            if (from == null || to == null)
+            {
+                throw new IllegalStateException(
+                        "Batched channel face connects a cell without batched channel behavior");
+            }
+            builder.addFace(from, to);
+        }
+        ChannelNetwork built = builder.build();
+
+        int cells = heatStates.size();
+        cellIndex = new int[cells];
+        cellHeat = new StateDouble[cells];
+        cellWater = new StateDouble[cells];
+        cellDensity = new StateDouble[cells];
+        cellHolons = new Holon[cells];
+        for (Map.Entry<Holon, Integer> entry: cellNumbers.entrySet())
+        {
+            cellHolons[builder.getCellIndex(entry.getValue())] = entry.getKey();
+        }
+        for (int c = 0; c < cells; c++)
+        {
+            int i = builder.getCellIndex(c);
+            cellIndex[c] = i;
+            cellHeat[i] = heatStates.get(c);
+            cellWater[i] = waterStates.get(c);
+            cellDensity[i] = densityStates.get(c);
+            built.getSpHeat()[i] = spHeats.get(c);
+            built.getDensity()[i] = HeatCurrency.DENSITY_WATER_10;
+            built.getEquationOfState()[i] = equationsOfState.get(c);
+        }
+        int faces = dischargeStates.size();
+        faceIndex = new int[faces];
+        faceDischarge = new StateDouble[faces];
+        faceBoundaryTemp = new StateDouble[faces];
+        for (int f = 0; f < faces; f++)
+        {
+            int i = builder.getFaceIndex(f);
+            faceIndex[f] = i;
+            faceDischarge[i] = dischargeStates.get(f);
+            faceBoundaryTemp[i] = boundaryTempStates.get(f);
+        }
+
+        int exchangeFaces = exchangeCells.size();
+        Map<Holon, Integer> nodeNumbers = new IdentityHashMap<Holon, Integer>();
+        List<StateDouble> nodeTemps = new ArrayList<StateDouble>();
+        int[] exchangeFrom = new int[exchangeFaces];
+        int[] exchangeTo = new int[exchangeFaces];
+        exchangeThermCondEff = new StateDouble[exchangeFaces];
+        exchangeArea = new StateDouble[exchangeFaces];
+        exchangeVolume = new StateDouble[exchangeFaces];
+        for (int f = 0; f < exchangeFaces; f++)
+        {
+            Holon[] sides = exchangeCells.get(f);
+            StateDouble[] states = exchangeStates.get(f);
+            exchangeFrom[f] = getNode(sides[0], states[0], cells, nodeNumbers, nodeTemps);
+            exchangeTo[f] = getNode(sides[1], states[1], cells, nodeNumbers, nodeTemps);
+            exchangeThermCondEff[f] = states[2];
+            exchangeArea[f] = states[3];
+            exchangeVolume[f] = states[4];
+        }
+        nodeTemp = nodeTemps.toArray(new StateDouble[nodeTemps.size()]);
+        exchange = new ExchangeNetwork(built, nodeTemp.length, exchangeFrom, exchangeTo);
+
+        if (cells >= PARALLEL_CELLS || exchangeFaces >= PARALLEL_CELLS)
+        {
+            pool = ForkJoinPool.commonPool();
+        }
+        network = built;
+    }
+
+    /**
+     * Gets the exchange node of a cell: its network index if it is a
+     * channel cell, otherwise a node after the channel cells
+     */
+    private int getNode(Holon cell, StateDouble temp, int cells, 
+            Map<Holon, Integer> nodeNumbers, List<StateDouble> nodeTemps)
+    {
+        Integer number = cellNumbers.get(cell);
+        if (number != null)
+        {
+            return cellIndex[number];
+        }
+        number = nodeNumbers.get(cell);
+        if (number == null)
+        {
+            number = nodeTemps.size();
+            nodeNumbers.put(cell, number);
+            nodeTemps.add(temp);
+        }
+        return cells + number;
+    }
+
+    /**
+     * Copies the network with the current values of the states, leaving the
+     * arrays read by the batched dynams as they are
+     * 
+     * @return Network sharing the topology of the binding's network, with 
+     *          the heat, water, density, discharge and boundary 
+     *          temperatures of the states and the temperatures computed 
+     *          from them
+     */
+    public ChannelNetwork createSnapshot()
+    {
+        if (network == null)
+        {
+            build();
+        }
+        ChannelNetwork snapshot = network.createMember();
+        gatherCells(snapshot);
+        gatherFaces(snapshot);
+        snapshot.computeTemps();
+        return snapshot;
+    }
+
+    private void gatherCells(ChannelNetwork target)
+    {
+        double[] heat = target.getHeat();
+        double[] water = target.getWater();
+        double[] density = target.getDensity();
+        for (int c = 0; c < cellHeat.length; c++)
+        {
+            heat[c] = cellHeat[c].value;
+            water[c] = cellWater[c].value;
+            if (cellDensity[c] != null)
+            {
+                density[c] = cellDensity[c].value;
+            }
+        }
+    }
+
+    private void gatherFaces(ChannelNetwork target)
+    {
+        double[] discharge = target.getDischarge();
+        double[] boundaryTemp = target.getBoundaryTemp();
+        for (int f = 0; f < faceDischarge.length; f++)
+        {
+            discharge[f] = faceDischarge[f].value;
+            if (faceBoundaryTemp[f] != null)
+            {
+                boundaryTemp[f] = faceBoundaryTemp[f].value;
+            }
+        }
+    }
+
+    private void checkNotBuilt()
+    {
+        if (network != null)
+        {
+            throw new IllegalStateException("Channel network is already built");
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a {@link ChannelNetwork} from cells and faces added in any order.
+ * 
+ * <p>Cells and faces are identified by the number returned when they are
+ * added. {@link #build()} sorts the cells topologically along the
+ * orientation of the faces (upstream first; cells in a cycle keep the
+ * order in which they were added) and the faces by their upstream cell,
+ * then {@link #getCellIndex(int)} and {@link #getFaceIndex(int)} map the
+ * numbers to positions in the network arrays.</p>
+ */
+public class ChannelNetworkBuilder {
+
+    private int cellCount;
+
+    private final List<int[]> faces = new ArrayList<int[]>();
+
+    private int[] cellIndex;
+
+    private int[] faceIndex;
+
+    /**
+     * Adds a cell
+     * 
+     * @return Number of the cell
+     */
+    public int addCell()
+    {
+        return cellCount++;
+    }
+
+    /**
+     * Adds a face
+     * 
+     * @param from Number of the 'from' cell, or {@link ChannelNetwork#BOUNDARY}
+     * @param to Number of the 'to' cell
+     * @return Number of the face
+     */
+    public int addFace(int from, int to)
+    {
+        if (to < 0 || to >= cellCount || from < ChannelNetwork.BOUNDARY || from >= cellCount)
+        {
+            throw new IllegalArgumentException("Face references an unknown cell");
+        }
+        faces.add(new int[] {from, to});
+        return faces.size() - 1;
+    }
+
+    /**
+     * Creates the network
+     * 
+     * @return Network with cells and faces in network order
+     */
+    public ChannelNetwork build()
+    {
+        // Kahn's algorithm over the internal faces
+        int[] inDegree = new int[cellCount];
+        int[] outCount = new int[cellCount + 1];
+        for (int[] face: faces)
+        {
+            if (face[0] != ChannelNetwork.BOUNDARY)
+            {
+                inDegree[face[1]]++;
+                outCount[face[0] + 1]++;
+            }
+        }
+        for (int c = 0; c < cellCount; c++)
+        {
+            outCount[c + 1] += outCount[c];
+        }
+        int[] downstream = new int[outCount[cellCount]];
+        int[] fill = Arrays.copyOf(outCount, cellCount);
+        for (int[] face: faces)
+        {
+            if (face[0] != ChannelNetwork.BOUNDARY)
+            {
+                downstream[fill[face[0]]++] = face[1];
+            }
+        }
+
+        cellIndex = new int[cellCount];
+        Arrays.fill(cellIndex, -1);
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < cellCount; c++)
+        {
+            if (inDegree[c] == 0)
+            {
+                queue[tail++] = c;
+                cellIndex[c] = c;
+            }
+        }
+        int next = 0;
+        while (head < cellCount)
+        {
+            if (head == tail)
+            {
+                // Only cycles remain, so take the lowest numbered unsorted cell
+                while (cellIndex[next] >= 0)
+                {
+                    next++;
+                }
+                queue[tail++] = next;
+                cellIndex[next] = next;
+            }
+            int c = queue[head++];
+            for (int d = outCount[c]; d < outCount[c + 1]; d++)
+            {
+                int down = downstream[d];
+                if (--inDegree[down] == 0 && cellIndex[down] < 0)
+                {
+                    queue[tail++] = down;
+                    cellIndex[down] = down;
+                }
+            }
+        }
+        for (int i = 0; i < cellCount; i++)
+        {
+            cellIndex[queue[i]] = i;
+        }
+
+        // Faces in order of their upstream cell (boundary faces by their cell)
+        Integer[] order = new Integer[faces.size()];
+        for (int f = 0; f < order.length; f++)
+        {
+            order[f] = f;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                int ka = sortKey(faces.get(a));
+                int kb = sortKey(faces.get(b));
+                return ka < kb ? -1 : (ka == kb ? a.compareTo(b) : 1);
+            }
+        });
+        faceIndex = new int[order.length];
+        int[] faceFrom = new int[order.length];
+        int[] faceTo = new int[order.length];
+        for (int f = 0; f < order.length; f++)
+        {
+            int[] face = faces.get(order[f]);
+            faceIndex[order[f]] = f;
+            faceFrom[f] = face[0] == ChannelNetwork.BOUNDARY ? ChannelNetwork.BOUNDARY : cellIndex[face[0]];
+            faceTo[f] = cellIndex[face[1]];
+        }
+        return new ChannelNetwork(cellCount, faceFrom, faceTo);
+    }
+
+    /**
+     * Gets the position of a cell in the network arrays
+     * 
+     * @param cell Number of the cell
+     * @return Index of the cell
+     */
+    public int getCellIndex(int cell)
+    {
+        return cellIndex[cell];
+    }
+
+    /**
+     * Gets the position of a face in the network arrays
+     * 
+     * @param face Number of the face
+     * @return Index of the face
+     */
+    public int getFaceIndex(int face)
+    {
+        return faceIndex[face];
+    }
+
+    private int sortKey(int[] face)
+    {
+        return face[0] == ChannelNetwork.BOUNDARY ? cellIndex[face[1]] : cellIndex[face[0]];
+    }
+
+}
@@ -0,0 +1,384 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Conductive exchange faces of a {@link ChannelNetwork} laid out as
+ * primitive arrays: the atmospheric, bed and groundwater exchange of the
+ * channel cells and of the cells around them.
+ *
+ * <p>Nodes 0 to {@link ChannelNetwork#getCellCount()} - 1 are the channel
+ * cells, in network order; the other nodes are cells outside the channel
+ * network. A node with a heat capacity, such as a hyporheic cell, is a
+ * pool whose heat is integrated by {@link #advance(double)}; a node
+ * without one, such as an atmosphere or groundwater cell, keeps the
+ * temperature it is given. Each face conducts heat from its 'from' node to
+ * its 'to' node, with the flux of the <code>atmexchange</code> behavior,
+ * ThermCondEff&middot;Area&middot;(T<sub>from</sub> &minus;
+ * T<sub>to</sub>), or, with a layer volume, the flux of
+ * <code>ConductionKernel</code> through half the layer, as the
+ * <code>bedexchange</code> and <code>gwexchange</code> behaviors. The
+ * arithmetic is in the same order as those behaviors, so the fluxes are
+ * identical.</p>
+ *
+ * <p>As in the channel network, each batch step has a parallel form on a
+ * <code>ForkJoinPool</code> in which every task writes only its own
+ * elements. The net heat of a node is gathered from its faces in face
+ * order through a compressed list of the faces of each node, so the
+ * parallel sums are bitwise identical to the serial ones for any number of
+ * threads.</p>
+ */
+public class ExchangeNetwork {
+
+    private final ChannelNetwork channel;
+    private final int channelCells;
+    private final int nodeCount;
+    private final int faceCount;
+
+    /**
+     * Heat of each node outside the channel network (kJ)
+     */
+    private final double[] nodeHeat;
+    /**
+     * Heat capacity of each node outside the channel network, 0 for a node
+     * at a given temperature (kJ &deg;C<sup><small>-1</small></sup>)
+     */
+    private final double[] nodeCapacity;
+    /**
+     * Temperature of each node outside the channel network (&deg;C)
+     */
+    private final double[] nodeTemp;
+    /**
+     * Net exchanged heat into each node, channel cells first (kJ sec<sup><small>-1</small></sup>)
+     */
+    private final double[] netHeat;
+
+    private final int[] faceFrom;
+    private final int[] faceTo;
+    /**
+     * Effective thermal conductivity of each face (kJ m<sup><small>-2</small></sup> sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>
+     * for a surface, kJ m<sup><small>-1</small></sup> sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup> for a layer)
+     */
+    private final double[] thermCondEff;
+    /**
+     * Area of each face (m<sup><small>2</small></sup>)
+     */
+    private final double[] area;
+    /**
+     * Volume of the layer of each face, NaN for a surface (m<sup><small>3</small></sup>)
+     */
+    private final double[] volume;
+    /**
+     * Exchanged heat through each face, positive from 'from' to 'to' (kJ sec<sup><small>-1</small></sup>)
+     */
+    private final double[] flux;
+
+    /**
+     * Faces of each node in face order: faces of node n are
+     * nodeFaces[nodeFaceStart[n]] to nodeFaces[nodeFaceStart[n + 1] - 1]
+     */
+    private final int[] nodeFaceStart;
+    private final int[] nodeFaces;
+
+    private final RangeTask.Kernel fluxKernel = new RangeTask.Kernel() {
+        @Override
+        public void run(int from, int to)
+        {
+            computeFluxes(from, to);
+        }
+    };
+
+    private final RangeTask.Kernel netHeatKernel = new RangeTask.Kernel() {
+        @Override
+        public void run(int from, int to)
+        {
+            gatherNetHeat(from, to);
+        }
+    };
+
+    /**
+     * @param channel Channel network whose cells are the first nodes
+     * @param nodeCount Number of nodes outside the channel network
+     * @param faceFrom Node on the 'from' side of each face
+     * @param faceTo Node on the 'to' side of each face
+     * @throws IllegalArgumentException if a face references an unknown node
+     */
+    public ExchangeNetwork(ChannelNetwork channel, int nodeCount, int[] faceFrom, int[] faceTo)
+    {
+        this.channel = channel;
+        this.channelCells = channel.getCellCount();
+        this.nodeCount = nodeCount;
+        this.faceCount = faceFrom.length;
+        int nodes = channelCells + nodeCount;
+        for (int f = 0; f < faceCount; f++)
+        {
+            if (faceFrom[f] < 0 || faceFrom[f] >= nodes || faceTo[f] < 0 || faceTo[f] >= nodes)
+            {
+                throw new IllegalArgumentException("Exchange face references an unknown node");
+            }
+        }
+        nodeHeat = new double[nodeCount];
+        nodeCapacity = new double[nodeCount];
+        nodeTemp = new double[nodeCount];
+        netHeat = new double[nodes];
+        this.faceFrom = faceFrom.clone();
+        this.faceTo = faceTo.clone();
+        thermCondEff = new double[faceCount];
+        area = new double[faceCount];
+        volume = new double[faceCount];
+        Arrays.fill(volume, Double.NaN);
+        flux = new double[faceCount];
+
+        nodeFaceStart = new int[nodes + 1];
+        for (int f = 0; f < faceCount; f++)
+        {
+            nodeFaceStart[faceFrom[f] + 1]++;
+            nodeFaceStart[faceTo[f] + 1]++;
+        }
+        for (int n = 0; n < nodes; n++)
+        {
+            nodeFaceStart[n + 1] += nodeFaceStart[n];
+        }
+        nodeFaces = new int[nodeFaceStart[nodes]];
+        int[] fill = Arrays.copyOf(nodeFaceStart, nodes);
+        for (int f = 0; f < faceCount; f++)
+        {
+            nodeFaces[fill[faceFrom[f]]++] = f;
+            nodeFaces[fill[faceTo[f]]++] = f;
+        }
+    }
+
+    /**
+     * Computes the heat exchanged through every face
+     */
+    public void computeFluxes()
+    {
+        computeFluxes(0, faceCount);
+    }
+
+    /**
+     * Computes the heat exchanged through every face, in parallel
+     *
+     * @param pool Pool to run on
+     */
+    public void computeFluxes(ForkJoinPool pool)
+    {
+        pool.invoke(new RangeTask(fluxKernel, 0, faceCount));
+    }
+
+    /**
+     * Computes the heat exchanged through one face
+     *
+     * @param face Index of the face
+     */
+    void computeFlux(int face)
+    {
+        computeFluxes(face, face + 1);
+    }
+
+    private void computeFluxes(int start, int end)
+    {
+        double[] temp = channel.getTemp();
+        for (int f = start; f < end; f++)
+        {
+            int from = faceFrom[f];
+            int to = faceTo[f];
+            double tempFrom = from < channelCells ? temp[from] : nodeTemp[from - channelCells];
+            double tempTo = to < channelCells ? temp[to] : nodeTemp[to - channelCells];
+            if (Double.isNaN(volume[f]))
+            {
+                flux[f] = thermCondEff[f] * area[f] * (tempFrom - tempTo);
+            }
+            else
+            {
+                double length = (volume[f] / area[f]) / 2;
+                flux[f] = (thermCondEff[f] / length) * area[f] * (tempFrom - tempTo);
+            }
+        }
+    }
+
+    /**
+     * Sums the exchanged heat of the faces into the nodes on either side
+     */
+    public void computeNetHeat()
+    {
+        Arrays.fill(netHeat, 0);
+        for (int f = 0; f < faceCount; f++)
+        {
+            netHeat[faceFrom[f]] -= flux[f];
+            netHeat[faceTo[f]] += flux[f];
+        }
+    }
+
+    /**
+     * Gathers the exchanged heat of the faces into the nodes on either side,
+     * in parallel; each node sums its own faces in face order, which gives
+     * the same result as {@link #computeNetHeat()}
+     *
+     * @param pool Pool to run on
+     */
+    public void computeNetHeat(ForkJoinPool pool)
+    {
+        pool.invoke(new RangeTask(netHeatKernel, 0, channelCells + nodeCount));
+    }
+
+    private void gatherNetHeat(int from, int to)
+    {
+        for (int n = from; n < to; n++)
+        {
+            double sum = 0;
+            for (int k = nodeFaceStart[n]; k < nodeFaceStart[n + 1]; k++)
+            {
+                int f = nodeFaces[k];
+                if (faceFrom[f] == n)
+                    sum -= flux[f];
+                else
+                    sum += flux[f];
+            }
+            netHeat[n] = sum;
+        }
+    }
+
+    /**
+     * Converts heat to temperature in every node with a heat capacity
+     */
+    public void computeNodeTemps()
+    {
+        for (int n = 0; n < nodeCount; n++)
+        {
+            if (nodeCapacity[n] > 0)
+            {
+                nodeTemp[n] = (nodeHeat[n] / nodeCapacity[n]) - 273.15;
+            }
+        }
+    }
+
+    /**
+     * Advances the channel network and the nodes by one explicit step of
+     * advective transport and exchange, for use outside a NEO model
+     *
+     * @param dt Timestep (sec)
+     */
+    public void advance(double dt)
+    {
+        channel.computeAdvection();
+        channel.computeNetHeat();
+        computeFluxes();
+        computeNetHeat();
+        integrate(dt);
+        channel.computeTemps();
+        computeNodeTemps();
+    }
+
+    /**
+     * Advances the channel network and the nodes by one explicit step of
+     * advective transport and exchange, in parallel, with the same result
+     * as {@link #advance(double)}
+     *
+     * @param dt Timestep (sec)
+     * @param pool Pool to run on
+     */
+    public void advance(double dt, ForkJoinPool pool)
+    {
+        channel.computeAdvection(pool);
+        computeFluxes(pool);
+        channel.computeNetHeat(pool);
+        computeNetHeat(pool);
+        integrate(dt);
+        channel.computeTemps(pool);
+        computeNodeTemps();
+    }
+
+    private void integrate(double dt)
+    {
+        double[] heat = channel.getHeat();
+        double[] advected = channel.getNetHeat();
+        for (int c = 0; c < channelCells; c++)
+        {
+            heat[c] += dt * (advected[c] + netHeat[c]);
+        }
+        for (int n = 0; n < nodeCount; n++)
+        {
+            if (nodeCapacity[n] > 0)
+            {
+                nodeHeat[n] += dt * netHeat[channelCells + n];
+            }
+        }
+    }
+
+    public ChannelNetwork getChannel()
+    {
+        return channel;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int getFaceCount()
+    {
+        return faceCount;
+    }
+
+    public int getFaceFrom(int face)
+    {
+        return faceFrom[face];
+    }
+
+    public int getFaceTo(int face)
+    {
+        return faceTo[face];
+    }
+
+    /*
+     * The arrays below are shared, not copied, so callers can fill inputs
+     * and read results in bulk. Nodes outside the channel network are
+     * numbered from 0 in the node arrays.
+     */
+
+    public double[] getNodeHeat()
+    {
+        return nodeHeat;
+    }
+
+    public double[] getNodeCapacity()
+    {
+        return nodeCapacity;
+    }
+
+    public double[] getNodeTemp()
+    {
+        return nodeTemp;
+    }
+
+    /**
+     * @return Net exchanged heat of every node, the channel cells first
+     */
+    public double[] getNetHeat()
+    {
+        return netHeat;
+    }
+
+    public double[] getThermCondEff()
+    {
+        return thermCondEff;
+    }
+
+    public double[] getArea()
+    {
+        return area;
+    }
+
+    public double[] getVolume()
+    {
+        return volume;
+    }
+
+    public double[] getFlux()
+    {
+        return flux;
+    }
+
+}
@@ -0,0 +1,282 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import edu.montana.cerg.tempsignal.heat.WaterProperties;
+import edu.montana.cerg.tempsignal.heat.edge.ConductionColumn;
+import edu.montana.cerg.tempsignal.heat.edge.ImplicitConduction;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+
+/**
+ * Period map of a {@link ChannelNetwork} with an optional bed (hyporheic)
+ * cell under each channel cell, for {@link PeriodicSteadyState}.
+ * 
+ * <p>The state vector holds the channel temperatures in network order,
+ * then the hyporheic temperatures (cells without a bed keep 0). Each step
+ * of the period is a Heun step of advection, of the exchange of each
+ * channel cell with a prescribed temperature and of the cell heat sources,
+ * followed by backward Euler conduction in each channel-bed-groundwater
+ * column ({@link ConductionColumn}). Boundary temperatures, exchange
+ * temperatures and heat sources follow periodic forcing cursors, for
+ * example the sinusoidal or compound sine boundaries evaluated as
+ * functions of time. {@link PeriodicCycle} builds the map of a NEO
+ * model from its batched channel network and boundary states.</p>
+ * 
+ * <p>The exchange is k&middot;A&middot;(T<sub>ext</sub> &minus; T), the form
+ * of the <code>atmexchange</code> behavior with the ThermCondEff of the face
+ * and the area of the cell, so it depends on the channel temperature of
+ * each stage; heat sources are for fluxes that do not. The bed column of a
+ * cell can be taken from the {@link ImplicitConduction} of the model's
+ * hyporheic cell, so the conductances, capacity and groundwater
+ * temperature are those of the model's states.</p>
+ * 
+ * <p>The advection step is explicit, so the number of steps per period
+ * must keep each step below the travel time through the smallest cell.</p>
+ */
+public class NetworkPeriodMap implements PeriodicSteadyState.PeriodMap {
+
+    private final ChannelNetwork network;
+    private final int cells;
+
+    private final double period;
+    private final int steps;
+    private final double startTime;
+
+    private final ForcingCursor[] boundaryForcing;
+    private final ForcingCursor[] sourceForcing;
+
+    /*
+     * Exchange of each channel cell with a prescribed temperature
+     */
+    private final double[] exchangeConductance;
+    private final ForcingCursor[] exchangeForcing;
+
+    /*
+     * Bed column of each channel cell (conductances of zero for none)
+     */
+    private final double[] bedConductance;
+    private final double[] bedCapacity;
+    private final double[] groundConductance;
+    private final double[] groundTemp;
+    private final ConductionColumn column = new ConductionColumn(2);
+
+    private final double[] bedTemp;
+    private final double[] heatStart;
+    private final double[] rateStart;
+
+    /**
+     * @param network Network with water, discharge and properties set
+     * @param period Length of the period (sec)
+     * @param steps Number of steps per period
+     * @param startTime Time at the start of the period (sec)
+     */
+    public NetworkPeriodMap(ChannelNetwork network, double period, int steps, double startTime)
+    {
+        this.network = network;
+        this.period = period;
+        this.steps = steps;
+        this.startTime = startTime;
+        cells = network.getCellCount();
+        boundaryForcing = new ForcingCursor[network.getFaceCount()];
+        sourceForcing = new ForcingCursor[cells];
+        exchangeConductance = new double[cells];
+        exchangeForcing = new ForcingCursor[cells];
+        bedConductance = new double[cells];
+        bedCapacity = new double[cells];
+        groundConductance = new double[cells];
+        groundTemp = new double[cells];
+        bedTemp = new double[cells];
+        heatStart = new double[cells];
+        rateStart = new double[cells];
+    }
+
+    /**
+     * Makes the boundary temperature of a face follow a periodic forcing
+     */
+    public void setBoundaryForcing(int face, ForcingCursor forcing)
+    {
+        boundaryForcing[face] = forcing;
+    }
+
+    /**
+     * Adds a periodic heat source (kJ sec<sup><small>-1</small></sup>) to a channel cell
+     * that does not depend on the channel temperature, such as net shortwave
+     * radiation; use {@link #setExchange(int, double, ForcingCursor)} for an
+     * exchange with a prescribed temperature
+     */
+    public void setSourceForcing(int cell, ForcingCursor forcing)
+    {
+        sourceForcing[cell] = forcing;
+    }
+
+    /**
+     * Adds an exchange k&middot;A&middot;(T<sub>ext</sub> &minus; T) with a
+     * periodic prescribed temperature to a channel cell, such as the
+     * atmospheric exchange of the <code>atmexchange</code> behavior
+     * 
+     * @param cell Index of the channel cell
+     * @param conductance k&middot;A, ThermCondEff times the area of the cell (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+     * @param temp Prescribed temperature T<sub>ext</sub> (&deg;C), such as the air temperature
+     */
+    public void setExchange(int cell, double conductance, ForcingCursor temp)
+    {
+        exchangeConductance[cell] = conductance;
+        exchangeForcing[cell] = temp;
+    }
+
+    /**
+     * Puts the bed of a model's hyporheic cell under a channel cell, with
+     * the current values of the states of its implicit conduction column
+     * 
+     * @param cell Index of the channel cell
+     * @param bed Implicit conduction column of the hyporheic cell under it
+     */
+    public void setBed(int cell, ImplicitConduction bed)
+    {
+        setBed(cell, bed.getBedConductance(), bed.getHyporheicCapacity(), 
+                bed.getGroundConductance(), bed.getGroundConductance() > 0 ? bed.getGroundTemp() : 0);
+    }
+
+    /**
+     * Puts a bed cell under a channel cell
+     * 
+     * @param cell Index of the channel cell
+     * @param bedConductance Conductance between channel and bed (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+     * @param bedCapacity Heat capacity of the bed cell (kJ &deg;C<sup><small>-1</small></sup>)
+     * @param groundConductance Conductance between bed and groundwater (kJ sec<sup><small>-1</small></sup> &deg;C<sup><small>-1</small></sup>)
+     * @param groundTemp Groundwater temperature (&deg;C)
+     */
+    public void setBed(int cell, double bedConductance, double bedCapacity, 
+            double groundConductance, double groundTemp)
+    {
+        this.bedConductance[cell] = bedConductance;
+        this.bedCapacity[cell] = bedCapacity;
+        this.groundConductance[cell] = groundConductance;
+        this.groundTemp[cell] = groundTemp;
+    }
+
+    @Override
+    public int size()
+    {
+        return 2 * cells;
+    }
+
+    @Override
+    public void advance(double[] state)
+    {
+        setState(state);
+        for (int s = 0; s < steps; s++)
+        {
+            step(startTime + s * (period / steps), period / steps);
+        }
+        getState(state);
+    }
+
+    /**
+     * Records one period starting from a state
+     * 
+     * @param state State at the start of the period
+     * @param samples Number of samples (evenly spaced, the first at the start)
+     * @return State at each sample
+     */
+    public double[][] sampleCycle(double[] state, int samples)
+    {
+        double[][] cycle = new double[samples][];
+        setState(state);
+        int sample = 0;
+        for (int s = 0; s < steps && sample < samples; s++)
+        {
+            if ((long)sample * steps <= (long)s * samples)
+            {
+                cycle[sample] = new double[size()];
+                getState(cycle[sample++]);
+            }
+            step(startTime + s * (period / steps), period / steps);
+        }
+        return cycle;
+    }
+
+    private void setState(double[] state)
+    {
+        System.arraycopy(state, 0, network.getTemp(), 0, cells);
+        System.arraycopy(state, cells, bedTemp, 0, cells);
+        network.computeHeats();
+    }
+
+    private void getState(double[] state)
+    {
+        network.computeTemps();
+        System.arraycopy(network.getTemp(), 0, state, 0, cells);
+        System.arraycopy(bedTemp, 0, state, cells, cells);
+    }
+
+    private void step(double time, double dt)
+    {
+        double[] heat = network.getHeat();
+        double[] netHeat = network.getNetHeat();
+        System.arraycopy(heat, 0, heatStart, 0, cells);
+        computeRate(time);
+        System.arraycopy(netHeat, 0, rateStart, 0, cells);
+        for (int c = 0; c < cells; c++)
+        {
+            heat[c] = heatStart[c] + dt * rateStart[c];
+        }
+        computeRate(time + dt);
+        for (int c = 0; c < cells; c++)
+        {
+            heat[c] = heatStart[c] + 0.5 * dt * (rateStart[c] + netHeat[c]);
+        }
+        network.computeTemps();
+
+        // Conduction, implicit in each column
+        double[] temp = network.getTemp();
+        double[] water = network.getWater();
+        double[] spHeat = network.getSpHeat();
+        double[] density = network.getDensity();
+        boolean[] equationOfState = network.getEquationOfState();
+        for (int c = 0; c < cells; c++)
+        {
+            if (bedConductance[c] > 0 || groundConductance[c] > 0)
+            {
+                double capacity = water[c] * (equationOfState[c] ? 
+                        WaterProperties.heatCapacity(temp[c]) : spHeat[c] * density[c]);
+                column.setNode(0, capacity, temp[c]);
+                column.setNode(1, bedCapacity[c], bedTemp[c]);
+                column.setConductance(0, bedConductance[c]);
+                column.setConductance(1, groundConductance[c]);
+                column.setBoundaryTemp(groundTemp[c]);
+                column.solve(dt);
+                heat[c] -= dt * column.getFlux(0);
+                bedTemp[c] = column.getTempImplicit(1);
+            }
+        }
+        network.computeTemps();
+    }
+
+    private void computeRate(double time)
+    {
+        double[] boundaryTemp = network.getBoundaryTemp();
+        for (int f = 0; f < boundaryForcing.length; f++)
+        {
+            if (boundaryForcing[f] != null)
+            {
+                boundaryTemp[f] = boundaryForcing[f].getValue(time);
+            }
+        }
+        network.computeTemps();
+        network.computeAdvection();
+        network.computeNetHeat();
+        double[] netHeat = network.getNetHeat();
+        double[] temp = network.getTemp();
+        for (int c = 0; c < cells; c++)
+        {
+            if (sourceForcing[c] != null)
+            {
+                netHeat[c] += sourceForcing[c].getValue(time);
+            }
+            if (exchangeForcing[c] != null)
+            {
+                netHeat[c] += exchangeConductance[c] * (exchangeForcing[c].getValue(time) - temp[c]);
+            }
+        }
+    }
+
+}
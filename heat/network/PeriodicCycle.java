@@ -0,0 +1,368 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Edge;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.holon.Holon;
+
+import edu.montana.cerg.tempsignal.heat.HeatCurrency;
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.edge.ImplicitConduction;
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+import edu.montana.cerg.tempsignal.heat.signal.HarmonicCursor;
+
+/**
+ * Finds the periodic cycle of the batched channel network of a NEO model
+ * with sinusoidal or compound sine boundaries, without spinning it up.
+ *
+ * <p>The {@link NetworkPeriodMap} is built from the model as it is when the
+ * cycle is created, usually after initialization: the cells, transport
+ * faces, water, discharge and properties of the
+ * {@link ChannelNetworkBinding}, a boundary face for each
+ * <code>channelin</code> face of a channel cell, the
+ * <code>atmexchange</code> face of each channel cell as an exchange with the
+ * temperature of its atmosphere cell, and the implicit
+ * <code>bedexchange</code> column under each channel cell. Boundary and air
+ * temperatures are {@link HarmonicCursor}s built from the states of the
+ * <code>sinusoidal</code>, <code>compoundsin</code> and
+ * <code>mechanistic</code> boundary dynams, so they repeat exactly with the
+ * period of the signal. A boundary the map cannot represent (a forcing
+ * table, the mechanistic atmospheric exchange, an explicit bed face) is a
+ * severe error rather than being left out of the cycle.</p>
+ *
+ * <p>The discharge and water are those of the model at creation and stay
+ * fixed over the cycle, as in the model with steady flow.</p>
+ */
+public class PeriodicCycle {
+
+    private static final double SECONDS_PER_DAY = 86400;
+
+    private static final String EXT_TEMP =
+            edu.montana.cerg.tempsignal.heat.face.channelin.ExtTemp.class.getSimpleName();
+
+    private final Holon[] cells;
+
+    private final NetworkPeriodMap map;
+
+    private final PeriodicSteadyState solver;
+
+    /**
+     * Initial guess: the current channel and hyporheic temperatures
+     */
+    private final double[] guess;
+
+    private double[] start;
+
+    /**
+     * @param binding Binding of the model's batched channel behaviors
+     * @param period Length of the period (sec)
+     * @param steps Number of steps per period
+     * @param startTime Time at the start of the period (sec)
+     * @param tolerance Tolerance on the largest change of a temperature over one period (&deg;C)
+     * @throws IllegalStateException if a channel cell has a boundary the
+     *          period map cannot represent
+     */
+    public PeriodicCycle(ChannelNetworkBinding binding, double period, int steps,
+            double startTime, double tolerance)
+    {
+        ChannelNetwork source = binding.createSnapshot();
+        Holon[] bound = binding.getCells();
+        int cellCount = bound.length;
+        Map<Holon, Integer> numbers = new IdentityHashMap<Holon, Integer>();
+        ChannelNetworkBuilder builder = new ChannelNetworkBuilder();
+        for (int c = 0; c < cellCount; c++)
+        {
+            numbers.put(bound[c], builder.addCell());
+        }
+        for (int f = 0; f < source.getFaceCount(); f++)
+        {
+            builder.addFace(source.getFaceFrom(f), source.getFaceTo(f));
+        }
+
+        // Boundaries of each channel cell
+        List<Face> inflows = new ArrayList<Face>();
+        List<Integer> inflowFaces = new ArrayList<Integer>();
+        Face[] exchanges = new Face[cellCount];
+        ImplicitConduction[] beds = new ImplicitConduction[cellCount];
+        for (int c = 0; c < cellCount; c++)
+        {
+            Cell cell = (Cell)bound[c];
+            for (Face face: cell.getFacesArray())
+            {
+                Edge edge = face.getEdge();
+                if (edge == null)
+                {
+                    if (OptionalStates.has(face, EXT_TEMP))
+                    {
+                        inflows.add(face);
+                        inflowFaces.add(builder.addFace(ChannelNetwork.BOUNDARY, c));
+                    }
+                    continue;
+                }
+                Cell other = edge.getFromCell() == cell ? edge.getToCell() : edge.getFromCell();
+                if (numbers.containsKey(other))
+                {
+                    continue;
+                }
+                if (edge.getToCell() == cell)
+                {
+                    if (OptionalStates.has(face,
+                            edu.montana.cerg.tempsignal.heat.edge.atmexchange.mechanistic.Heat.REQ_STATE_SHORT_WAVE_NET))
+                    {
+                        fail(face, "Mechanistic atmospheric exchange of face " + face.getName() +
+                                " is not supported by the periodic cycle");
+                    }
+                    if (OptionalStates.has(face,
+                            edu.montana.cerg.tempsignal.heat.edge.atmexchange.Heat.REQ_STATE_THERM_COND_EFF))
+                    {
+                        if (exchanges[c] != null)
+                        {
+                            fail(face, "Channel cell " + cell.getName() +
+                                    " has more than one atmospheric exchange");
+                        }
+                        exchanges[c] = face;
+                    }
+                }
+                else if (OptionalStates.has(face,
+                        edu.montana.cerg.tempsignal.heat.edge.bedexchange.Heat.REQ_STATE_THERM_COND_EFF))
+                {
+                    beds[c] = ImplicitConduction.findBed(cell);
+                    if (beds[c] == null)
+                    {
+                        fail(face, "Bed face " + face.getName() +
+                                " is not implicit, as required by the periodic cycle");
+                    }
+                }
+            }
+        }
+
+        ChannelNetwork network = builder.build();
+        cells = new Holon[cellCount];
+        guess = new double[2 * cellCount];
+        for (int c = 0; c < cellCount; c++)
+        {
+            int i = builder.getCellIndex(c);
+            cells[i] = bound[c];
+            network.getWater()[i] = source.getWater()[c];
+            network.getSpHeat()[i] = source.getSpHeat()[c];
+            network.getDensity()[i] = source.getDensity()[c];
+            network.getEquationOfState()[i] = source.getEquationOfState()[c];
+            guess[i] = source.getTemp()[c];
+        }
+        for (int f = 0; f < source.getFaceCount(); f++)
+        {
+            network.getDischarge()[builder.getFaceIndex(f)] = source.getDischarge()[f];
+        }
+
+        map = new NetworkPeriodMap(network, period, steps, startTime);
+        for (int b = 0; b < inflows.size(); b++)
+        {
+            Face face = inflows.get(b);
+            int f = builder.getFaceIndex(inflowFaces.get(b));
+            network.getDischarge()[f] = value(face, HeatCurrency.REQ_CURRENCY_ADVECT_MEDIUM);
+            map.setBoundaryForcing(f, createInflowTemp(face));
+        }
+        for (int c = 0; c < cellCount; c++)
+        {
+            int i = builder.getCellIndex(c);
+            if (exchanges[c] != null)
+            {
+                Face face = exchanges[c];
+                double area = value(bound[c],
+                        edu.montana.cerg.tempsignal.heat.cell.channel.Heat.REQ_STATE_TOCELL_AREA);
+                map.setExchange(i, value(face,
+                        edu.montana.cerg.tempsignal.heat.edge.atmexchange.Heat.REQ_STATE_THERM_COND_EFF) * area,
+                        createAirTemp(face.getEdge().getFromCell()));
+            }
+            if (beds[c] != null)
+            {
+                map.setBed(i, beds[c]);
+                guess[cellCount + i] = beds[c].getHyporheicTemp();
+            }
+        }
+        solver = new PeriodicSteadyState(map, tolerance);
+    }
+
+    /**
+     * Solves for the cycle, starting from the current temperatures of the model
+     *
+     * @return Channel temperatures in the order of {@link #getCells()}, then
+     *          the hyporheic temperatures (0 for cells without a bed), at
+     *          the start of the period (&deg;C)
+     */
+    public double[] solve()
+    {
+        start = solver.solve(guess);
+        return start.clone();
+    }
+
+    /**
+     * Records the solved cycle
+     *
+     * @param samples Number of samples (evenly spaced, the first at the start)
+     * @return State at each sample, laid out as the result of {@link #solve()}
+     */
+    public double[][] sampleCycle(int samples)
+    {
+        if (start == null)
+        {
+            solve();
+        }
+        return map.sampleCycle(start, samples);
+    }
+
+    /**
+     * @return Channel cell of each position of the state
+     */
+    public Holon[] getCells()
+    {
+        return cells.clone();
+    }
+
+    /**
+     * @return Solver, with the counts of the last solution
+     */
+    public PeriodicSteadyState getSolver()
+    {
+        return solver;
+    }
+
+    /**
+     * Creates the external temperature of a <code>channelin</code> face
+     */
+    private static ForcingCursor createInflowTemp(Face face)
+    {
+        if (OptionalStates.has(face,
+                edu.montana.cerg.tempsignal.heat.face.channelin.sinusoidal.Heat.REQ_STATE_PERIOD))
+        {
+            return new HarmonicCursor(
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.sinusoidal.Heat.REQ_STATE_AVG),
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.sinusoidal.Heat.REQ_STATE_AMP),
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.sinusoidal.Heat.REQ_STATE_PERIOD),
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.sinusoidal.Heat.REQ_STATE_PHASE), 0);
+        }
+        if (OptionalStates.has(face,
+                edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_CARRIER_PERIOD))
+        {
+            // The start day is a state of the atmosphere cell over the channel
+            Cell atmCell = null;
+            for (Face other: face.getCell().getFacesArray())
+            {
+                if (other.getName().startsWith("atm"))
+                {
+                    atmCell = other.getEdge().getFromCell();
+                }
+            }
+            if (atmCell == null)
+            {
+                fail(face, "Compound sine inflow " + face.getName() + " has no atmosphere cell");
+            }
+            double shift = -value(atmCell,
+                    edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Heat.REQ_STATE_START_DAY) * SECONDS_PER_DAY;
+            return createCompound(face, shift,
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_ANNUAL_OR_NOT),
+                    value(face, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_DAILY_SIN_OR_NOT));
+        }
+        fail(face, "Inflow " + face.getName() + " is not periodic (only sinusoidal and " +
+                "compound sine inflows are supported by the periodic cycle)");
+        return null;
+    }
+
+    /**
+     * Creates the air temperature of an atmosphere cell
+     */
+    private static ForcingCursor createAirTemp(Cell cell)
+    {
+        if (OptionalStates.has(cell,
+                edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Heat.REQ_STATE_START_DAY))
+        {
+            return createCompound(cell, -value(cell,
+                    edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Heat.REQ_STATE_START_DAY) * SECONDS_PER_DAY,
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.mechanistic.Heat.REQ_STATE_ANNUAL_OR_NOT), 1);
+        }
+        if (OptionalStates.has(cell,
+                edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_CARRIER_PERIOD))
+        {
+            // The phases of this form are time shifts
+            return new HarmonicCursor(
+                    new HarmonicCursor(
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_CARRIER_AVG),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_CARRIER_AMP),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_CARRIER_PERIOD),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_CARRIER_PHASE), 0),
+                    new HarmonicCursor(
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_AMP_AVG),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_AMP_AMP),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_AMP_PERIOD),
+                            value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_AMP_PHASE), 0),
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_PERIOD),
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat.REQ_STATE_SUB_PHASE), 0);
+        }
+        if (OptionalStates.has(cell,
+                edu.montana.cerg.tempsignal.heat.cell.atmosphere.sinusoidal.Heat.REQ_STATE_PERIOD))
+        {
+            return new HarmonicCursor(
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.sinusoidal.Heat.REQ_STATE_AVG),
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.sinusoidal.Heat.REQ_STATE_AMP),
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.sinusoidal.Heat.REQ_STATE_PERIOD),
+                    value(cell, edu.montana.cerg.tempsignal.heat.cell.atmosphere.sinusoidal.Heat.REQ_STATE_PHASE), 0);
+        }
+        fail(cell, "Air temperature of " + cell.getName() + " is not periodic (only sinusoidal, " +
+                "compound sine and mechanistic atmospheres are supported by the periodic cycle)");
+        return null;
+    }
+
+    /**
+     * Creates a compound sine with the start day as time shift and the
+     * phases as angles, the form of the mechanistic atmosphere and the
+     * compound sine inflow (both use the same state names)
+     *
+     * @param holon Holon with the carrier and sub-period states
+     * @param shift Time shift of every component (sec)
+     * @param annual Factor on the carrier amplitude
+     * @param daily Factor on the sub-period amplitude
+     */
+    private static ForcingCursor createCompound(Holon holon, double shift, double annual, double daily)
+    {
+        ForcingCursor mean = new HarmonicCursor(
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_CARRIER_AVG),
+                annual * value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_CARRIER_AMP),
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_CARRIER_PERIOD),
+                shift,
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_CARRIER_PHASE));
+        ForcingCursor amplitude = new HarmonicCursor(
+                daily * value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_AMP_AVG),
+                daily * value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_AMP_AMP),
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_AMP_PERIOD),
+                shift,
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_AMP_PHASE));
+        return new HarmonicCursor(mean, amplitude,
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_PERIOD),
+                shift,
+                value(holon, edu.montana.cerg.tempsignal.heat.face.channelin.compoundsin.Heat.REQ_STATE_SUB_PHASE));
+    }
+
+    /**
+     * Gets the current value of a required state
+     */
+    private static double value(Holon holon, String name)
+    {
+        if (!OptionalStates.has(holon, name))
+        {
+            fail(holon, holon.getName() + " has no " + name + " state for the periodic cycle");
+        }
+        return OptionalStates.getValue(holon, name, Double.NaN);
+    }
+
+    private static void fail(Holon holon, String message)
+    {
+        holon.getSimulationModel().getLogger().logSevere(message);
+        throw new IllegalStateException(message);
+    }
+
+}
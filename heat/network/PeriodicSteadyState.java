@@ -0,0 +1,321 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.Arrays;
+
+/**
+ * Finds the periodic steady state of a model forced with a periodic
+ * boundary, without spinning it up.
+ * 
+ * <p>The cycle is a fixed point of the period map &Phi;, which advances the
+ * model state by one period. Shooting with Newton's method solves
+ * &Phi;(y) - y = 0; each Newton correction solves (J - I)&delta; = -(&Phi;(y) - y)
+ * with restarted GMRES, where the products with the Jacobian J are finite
+ * differences of &Phi;. For the linear conduction and advection operators
+ * one Newton step converges to the GMRES tolerance, and each GMRES
+ * iteration costs one period, so a cycle is found in tens of periods
+ * instead of years of transient.</p>
+ */
+public class PeriodicSteadyState {
+
+    /**
+     * Model advanced over one period
+     */
+    public interface PeriodMap {
+
+        /**
+         * @return Length of the state vector
+         */
+        int size();
+
+        /**
+         * Advances a state by one period, in place
+         * 
+         * @param state State at the start of the period, replaced with the 
+         *          state at its end
+         */
+        void advance(double[] state);
+
+    }
+
+    private final PeriodMap map;
+
+    /**
+     * Tolerance on the largest change of the state over one period
+     */
+    private final double tolerance;
+
+    private final int maxNewton;
+
+    /**
+     * Dimension of the Krylov space before GMRES restarts
+     */
+    private final int krylov;
+
+    private final int maxRestarts;
+
+    private int newtonIterations;
+
+    private long periods;
+
+    private double residual;
+
+    /**
+     * @param map Period map of the model
+     * @param tolerance Tolerance on the largest change of the state over 
+     *          one period (same units as the state)
+     */
+    public PeriodicSteadyState(PeriodMap map, double tolerance)
+    {
+        this(map, tolerance, 10, 40, 10);
+    }
+
+    /**
+     * @param map Period map of the model
+     * @param tolerance Tolerance on the largest change of the state over one period
+     * @param maxNewton Maximum number of Newton steps
+     * @param krylov Dimension of the Krylov space before GMRES restarts
+     * @param maxRestarts Maximum number of GMRES restarts per Newton step
+     */
+    public PeriodicSteadyState(PeriodMap map, double tolerance, int maxNewton, 
+            int krylov, int maxRestarts)
+    {
+        this.map = map;
+        this.tolerance = tolerance;
+        this.maxNewton = maxNewton;
+        this.krylov = krylov;
+        this.maxRestarts = maxRestarts;
+    }
+
+    /**
+     * Solves for the state at the start of the periodic cycle
+     * 
+     * @param guess Initial guess (for example the initial conditions of a 
+     *          spin-up run); not modified
+     * @return State at the start of the cycle
+     */
+    public double[] solve(double[] guess)
+    {
+        int n = map.size();
+        double[] y = guess.clone();
+        double[] mapped = new double[n];
+        double[] r = new double[n];
+        newtonIterations = 0;
+        periods = 0;
+        while (true)
+        {
+            System.arraycopy(y, 0, mapped, 0, n);
+            advance(mapped);
+            for (int i = 0; i < n; i++)
+            {
+                r[i] = mapped[i] - y[i];
+            }
+            residual = maxNorm(r);
+            if (residual <= tolerance || newtonIterations == maxNewton)
+            {
+                return y;
+            }
+            double[] delta = gmres(y, mapped, r);
+            for (int i = 0; i < n; i++)
+            {
+                y[i] += delta[i];
+            }
+            newtonIterations++;
+        }
+    }
+
+    /**
+     * Solves (J - I) x = -r with restarted GMRES
+     */
+    private double[] gmres(double[] y, double[] mapped, double[] r)
+    {
+        int n = y.length;
+        int m = Math.min(krylov, n);
+        double[] x = new double[n];
+        double[] residualVec = new double[n];
+        double[] w = new double[n];
+        double[][] v = new double[m + 1][];
+        double[][] h = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+        // Stop at a fraction of the Newton residual; the Newton loop checks the rest
+        double target = 0.1 * tolerance;
+
+        for (int restart = 0; restart <= maxRestarts; restart++)
+        {
+            // residualVec = -r - (J - I) x
+            if (restart == 0)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    residualVec[i] = -r[i];
+                }
+            }
+            else
+            {
+                applyJacobian(y, mapped, x, w);
+                for (int i = 0; i < n; i++)
+                {
+                    residualVec[i] = -r[i] - w[i];
+                }
+            }
+            double beta = norm(residualVec);
+            if (beta <= target)
+            {
+                break;
+            }
+            v[0] = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                v[0][i] = residualVec[i] / beta;
+            }
+            Arrays.fill(g, 0);
+            g[0] = beta;
+            int k = 0;
+            for (; k < m; k++)
+            {
+                applyJacobian(y, mapped, v[k], w);
+                // Modified Gram-Schmidt
+                for (int j = 0; j <= k; j++)
+                {
+                    h[j][k] = dot(w, v[j]);
+                    for (int i = 0; i < n; i++)
+                    {
+                        w[i] -= h[j][k] * v[j][i];
+                    }
+                }
+                h[k + 1][k] = norm(w);
+                v[k + 1] = new double[n];
+                if (h[k + 1][k] > 0)
+                {
+                    for (int i = 0; i < n; i++)
+                    {
+                        v[k + 1][i] = w[i] / h[k + 1][k];
+                    }
+                }
+                // Apply the previous rotations, then a new one to zero h[k + 1][k]
+                for (int j = 0; j < k; j++)
+                {
+                    double t = cs[j] * h[j][k] + sn[j] * h[j + 1][k];
+                    h[j + 1][k] = -sn[j] * h[j][k] + cs[j] * h[j + 1][k];
+                    h[j][k] = t;
+                }
+                double d = Math.hypot(h[k][k], h[k + 1][k]);
+                cs[k] = h[k][k] / d;
+                sn[k] = h[k + 1][k] / d;
+                h[k][k] = d;
+                h[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+                if (Math.abs(g[k + 1]) <= target)
+                {
+                    k++;
+                    break;
+                }
+            }
+            // Back substitution for the Krylov coefficients
+            double[] c = new double[k];
+            for (int j = k - 1; j >= 0; j--)
+            {
+                double sum = g[j];
+                for (int l = j + 1; l < k; l++)
+                {
+                    sum -= h[j][l] * c[l];
+                }
+                c[j] = sum / h[j][j];
+            }
+            for (int j = 0; j < k; j++)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    x[i] += c[j] * v[j][i];
+                }
+            }
+            if (Math.abs(g[k]) <= target)
+            {
+                break;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * out = (J - I) direction, with J by a forward difference of the period map
+     */
+    private void applyJacobian(double[] y, double[] mapped, double[] direction, double[] out)
+    {
+        int n = y.length;
+        double norm = norm(direction);
+        if (norm == 0)
+        {
+            Arrays.fill(out, 0);
+            return;
+        }
+        double eps = 1e-7 * (1 + norm(y) / Math.sqrt(n)) / norm;
+        for (int i = 0; i < n; i++)
+        {
+            out[i] = y[i] + eps * direction[i];
+        }
+        advance(out);
+        for (int i = 0; i < n; i++)
+        {
+            out[i] = (out[i] - mapped[i]) / eps - direction[i];
+        }
+    }
+
+    private void advance(double[] state)
+    {
+        map.advance(state);
+        periods++;
+    }
+
+    private static double dot(double[] a, double[] b)
+    {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++)
+        {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double norm(double[] a)
+    {
+        return Math.sqrt(dot(a, a));
+    }
+
+    private static double maxNorm(double[] a)
+    {
+        double max = 0;
+        for (double value: a)
+        {
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+
+    /**
+     * @return Number of Newton steps of the last solution
+     */
+    public int getNewtonIterations()
+    {
+        return newtonIterations;
+    }
+
+    /**
+     * @return Number of periods simulated by the last solution
+     */
+    public long getPeriods()
+    {
+        return periods;
+    }
+
+    /**
+     * @return Largest change of the state over the last period simulated
+     */
+    public double getResidual()
+    {
+        return residual;
+    }
+
+}
@@ -0,0 +1,54 @@
+package edu.montana.cerg.tempsignal.heat.network;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that splits a range of indices into contiguous blocks
+ * and runs a kernel on each block.
+ * 
+ * <p>Kernels write only to the elements of their own block, so blocks need
+ * no locks and the result does not depend on how the range was split.</p>
+ */
+@SuppressWarnings("serial")
+class RangeTask extends RecursiveAction {
+
+    /**
+     * Work on a block of indices
+     */
+    interface Kernel {
+
+        void run(int from, int to);
+
+    }
+
+    /**
+     * Smallest block worth a task
+     */
+    static final int GRAIN = 2048;
+
+    private final Kernel kernel;
+    private final int from;
+    private final int to;
+
+    RangeTask(Kernel kernel, int from, int to)
+    {
+        this.kernel = kernel;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+        if (to - from <= GRAIN)
+        {
+            kernel.run(from, to);
+        }
+        else
+        {
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(kernel, from, mid), new RangeTask(kernel, mid, to));
+        }
+    }
+
+}
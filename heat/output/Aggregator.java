@@ -0,0 +1,193 @@
+package edu.montana.cerg.tempsignal.heat.output;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of one recorded state over successive periods, kept in
+ * constant memory.
+ * 
+ * <p>For each period the aggregator gives the time-weighted mean, minimum
+ * and maximum of the values added, the mean of the maxima of the last
+ * <i>window</i> periods (with daily periods and a window of 7, the 7-day
+ * average of the daily maximum, 7DADM; NaN until <i>window</i> periods
+ * have closed), and for each threshold the number of values above it.
+ * NaN values are ignored. Memory is the window of maxima and one count per
+ * threshold.</p>
+ * 
+ * <p>A period closed as partial, such as the last one of a run, has its
+ * statistics written but its maximum is kept out of the rolling window,
+ * and its rolling mean of maxima is NaN.</p>
+ * 
+ * <p>The mean integrates the values with the trapezoid rule from the first
+ * value of the period to its end, holding the last value from its time to
+ * the end, so steps of any length get their share of the period. The
+ * exceedance counts are numbers of values (recorded samples), not
+ * durations: with a variable step they are not proportional to the time
+ * above a threshold.</p>
+ */
+public final class Aggregator {
+
+    private final double[] thresholds;
+
+    private final double[] maxima;
+
+    private int maximaCount;
+
+    private int maximaNext;
+
+    private int count;
+    private double sum;
+    private double firstTime;
+    private double lastTime;
+    private double lastValue;
+    private double area;
+    private double min;
+    private double max;
+    private final int[] exceedances;
+
+    /**
+     * @param window Number of periods in the rolling mean of maxima
+     * @param thresholds Thresholds of the exceedance counts
+     * @throws IllegalArgumentException if the window is less than one period
+     */
+    public Aggregator(int window, double[] thresholds)
+    {
+        if (window < 1)
+        {
+            throw new IllegalArgumentException("Window must be at least one period: " + window);
+        }
+        this.thresholds = thresholds.clone();
+        maxima = new double[window];
+        exceedances = new int[thresholds.length];
+        reset();
+    }
+
+    /**
+     * Gets the names of the statistics, in the order written by
+     * {@link #close(double, boolean, double[], int, int)}
+     * 
+     * @param window Number of periods in the rolling mean of maxima
+     * @param thresholds Thresholds of the exceedance counts
+     * @return Names of the statistics
+     */
+    public static String[] getStatisticNames(int window, double[] thresholds)
+    {
+        String[] names = new String[4 + thresholds.length];
+        names[0] = "Mean";
+        names[1] = "Min";
+        names[2] = "Max";
+        names[3] = "Max" + window + "PeriodMean";
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            names[4 + i] = "SamplesAbove" + thresholds[i];
+        }
+        return names;
+    }
+
+    public int getStatisticCount()
+    {
+        return 4 + thresholds.length;
+    }
+
+    /**
+     * Adds a value to the current period
+     * 
+     * @param time Time of the value (sec), not before the previous value
+     * @param value Value of the state
+     */
+    public void add(double time, double value)
+    {
+        if (Double.isNaN(value))
+        {
+            return;
+        }
+        if (count == 0)
+        {
+            firstTime = time;
+        }
+        else
+        {
+            area += 0.5 * (lastValue + value) * (time - lastTime);
+        }
+        lastTime = time;
+        lastValue = value;
+        count++;
+        sum += value;
+        if (value < min)
+        {
+            min = value;
+        }
+        if (value > max)
+        {
+            max = value;
+        }
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            if (value > thresholds[i])
+            {
+                exceedances[i]++;
+            }
+        }
+    }
+
+    /**
+     * Ends the current period and writes its statistics
+     * 
+     * @param endTime End of the period (sec), the last value is held to it
+     * @param partial true if the period did not run to its end, which keeps
+     *          it out of the rolling mean of maxima
+     * @param values Destination of the statistics
+     * @param start Index of the first statistic in the destination
+     * @param stride Distance between statistics in the destination
+     */
+    public void close(double endTime, boolean partial, double[] values, int start, int stride)
+    {
+        double periodMax = count == 0 ? Double.NaN : max;
+        if (!partial)
+        {
+            maxima[maximaNext] = periodMax;
+            maximaNext = (maximaNext + 1) % maxima.length;
+            if (maximaCount < maxima.length)
+            {
+                maximaCount++;
+            }
+        }
+        double rolling = Double.NaN;
+        if (!partial && maximaCount == maxima.length)
+        {
+            rolling = 0;
+            for (double m: maxima)
+            {
+                rolling += m;
+            }
+            rolling /= maxima.length;
+        }
+
+        double mean = Double.NaN;
+        if (count > 0)
+        {
+            double span = Math.max(endTime, lastTime) - firstTime;
+            mean = span > 0 ? (area + lastValue * (span + firstTime - lastTime)) / span : sum / count;
+        }
+        values[start] = mean;
+        values[start + stride] = count == 0 ? Double.NaN : min;
+        values[start + 2 * stride] = periodMax;
+        values[start + 3 * stride] = rolling;
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            values[start + (4 + i) * stride] = exceedances[i];
+        }
+        reset();
+    }
+
+    private void reset()
+    {
+        count = 0;
+        sum = 0;
+        area = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        Arrays.fill(exceedances, 0);
+    }
+
+}
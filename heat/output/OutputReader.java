@@ -0,0 +1,140 @@
+package edu.montana.cerg.tempsignal.heat.output;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a file written by {@link OutputRecorder} into memory.
+ */
+public class OutputReader {
+
+    private final String[] keys;
+
+    private double[] times;
+
+    private final double[][] columns;
+
+    private int rows;
+
+    /**
+     * Reads an output file
+     * 
+     * @param file Output file
+     * @throws IOException if the file cannot be read, is not an output file or is incomplete
+     */
+    public OutputReader(File file) throws IOException
+    {
+        DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            if (header.readInt() != OutputWriter.MAGIC)
+            {
+                throw new IOException(file.getPath() + " is not an output file");
+            }
+            int version = header.readInt();
+            if (version != OutputWriter.VERSION)
+            {
+                throw new IOException(file.getPath() + ": unsupported output version " + version);
+            }
+            boolean compressed = header.readBoolean();
+            keys = new String[header.readInt()];
+            for (int c = 0; c < keys.length; c++)
+            {
+                keys[c] = header.readUTF();
+            }
+            times = new double[OutputRecorder.BLOCK_ROWS];
+            columns = new double[keys.length][OutputRecorder.BLOCK_ROWS];
+            InputStream in = compressed ? new InflaterInputStream(header) : header;
+            DataInputStream blocks = new DataInputStream(in);
+            byte[] bytes = new byte[8 * OutputRecorder.BLOCK_ROWS];
+            try
+            {
+                int count;
+                while ((count = Integer.reverseBytes(blocks.readInt())) > 0)
+                {
+                    ensureCapacity(rows + count);
+                    readColumn(blocks, bytes, times, count);
+                    for (double[] column: columns)
+                    {
+                        readColumn(blocks, bytes, column, count);
+                    }
+                    rows += count;
+                }
+            }
+            catch (EOFException e)
+            {
+                throw new IOException(file.getPath() + " is incomplete", e);
+            }
+        }
+        finally
+        {
+            header.close();
+        }
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > times.length)
+        {
+            int length = Math.max(capacity, 2 * times.length);
+            times = Arrays.copyOf(times, length);
+            for (int c = 0; c < columns.length; c++)
+            {
+                columns[c] = Arrays.copyOf(columns[c], length);
+            }
+        }
+    }
+
+    private void readColumn(DataInputStream in, byte[] bytes, double[] column, int count) throws IOException
+    {
+        in.readFully(bytes, 0, 8 * count);
+        ByteBuffer.wrap(bytes, 0, 8 * count).order(ByteOrder.LITTLE_ENDIAN)
+                .asDoubleBuffer().get(column, rows, count);
+    }
+
+    public String[] getKeys()
+    {
+        return keys.clone();
+    }
+
+    public int getRowCount()
+    {
+        return rows;
+    }
+
+    /**
+     * @return Time of each row (sec)
+     */
+    public double[] getTimes()
+    {
+        return Arrays.copyOf(times, rows);
+    }
+
+    /**
+     * Gets the values of a column
+     * 
+     * @param key Key of the column (holon name and state name)
+     * @return Value in each row, or null if there is no such column
+     */
+    public double[] getColumn(String key)
+    {
+        for (int c = 0; c < keys.length; c++)
+        {
+            if (keys[c].equals(key))
+            {
+                return Arrays.copyOf(columns[c], rows);
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,482 @@
+package edu.montana.cerg.tempsignal.heat.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.neosimulation.neo.framework.SimulationModel;
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateGeneric;
+import org.neosimulation.neo.framework.stateval.StateVal;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+
+/**
+ * Records selected state values of one simulation model every step and
+ * writes them from a background thread.
+ * 
+ * <p>Each recorded dynam registers a column and puts its value after every
+ * calculation. Values go into the current row of a preallocated block
+ * (column-major, {@link #BLOCK_ROWS} rows); a row is closed when the clock
+ * moves on, and a full block is handed to the writer thread. There are
+ * {@link #RING_BLOCKS} blocks in all: when every one is waiting to be
+ * written the simulation waits for the writer instead of allocating more.
+ * A column whose dynam was not calculated in a step is NaN in that row.</p>
+ * 
+ * <p>With a positive {@link #OPT_STATE_OUTPUT_PERIOD} the recorder writes
+ * statistics instead of values: each column is fed to an {@link Aggregator}
+ * and one row per period (aligned to multiples of the period from time
+ * zero, stamped with its start) holds the statistics of every column, in
+ * columns named by the key and the statistic. The rolling window is
+ * {@link #OPT_STATE_OUTPUT_WINDOW} periods and the exceedance thresholds
+ * are the comma-separated {@link #OPT_STATE_OUTPUT_THRESHOLDS}. The period
+ * in progress is written on close as a partial period, up to the last
+ * recorded time: its maximum is kept out of the rolling window and its
+ * rolling mean of maxima is NaN.</p>
+ * 
+ * <p>Output is configured by the output states of the first holon that asks
+ * for the recorder of its model. The partial block is written and the file
+ * closed by {@link #close()}; the launcher calls {@link #closeAll()} when
+ * the model has finished, and a shutdown hook closes a recorder that is
+ * still open when the JVM exits. A failure to write is checked each time a
+ * block is handed to the writer; it is logged as severe and stops the run
+ * rather than leaving it to be found on close.</p>
+ * 
+ * @see OutputWriter
+ * @see OutputReader
+ */
+public class OutputRecorder {
+
+    /**
+     * Name of the optional state for the output file
+     */
+    public static final String OPT_STATE_OUTPUT_FILE = "OutputFile";
+
+    /**
+     * Name of the optional state that compresses the output when nonzero
+     */
+    public static final String OPT_STATE_OUTPUT_COMPRESSION = "OutputCompression";
+
+    /**
+     * Name of the optional state for the aggregation period (sec); every
+     * step is written if absent
+     */
+    public static final String OPT_STATE_OUTPUT_PERIOD = "OutputPeriod";
+
+    /**
+     * Name of the optional state for the number of periods in the rolling
+     * mean of maxima (default 7)
+     */
+    public static final String OPT_STATE_OUTPUT_WINDOW = "OutputWindow";
+
+    /**
+     * Name of the optional state for the comma-separated thresholds of the
+     * exceedance counts
+     */
+    public static final String OPT_STATE_OUTPUT_THRESHOLDS = "OutputThresholds";
+
+    /**
+     * Rows in each block
+     */
+    public static final int BLOCK_ROWS = 1024;
+
+    /**
+     * Blocks in the ring shared by the simulation and the writer
+     */
+    public static final int RING_BLOCKS = 4;
+
+    /**
+     * Recorder of each simulation model, null if the model has no output
+     * file. Held weakly: the recorder refers to its model, and lives as long
+     * as the dynams that record to it (or its shutdown hook).
+     */
+    private static final Map<Object, WeakReference<OutputRecorder>> recorders = 
+            new WeakHashMap<Object, WeakReference<OutputRecorder>>();
+
+    /**
+     * Rows of values for every column
+     */
+    static final class Block {
+
+        final double[] times = new double[BLOCK_ROWS];
+
+        /**
+         * Value of column c in row r at [c * BLOCK_ROWS + r]
+         */
+        final double[] values;
+
+        int rows;
+
+        Block(int columns)
+        {
+            values = new double[columns * BLOCK_ROWS];
+        }
+
+        void clear()
+        {
+            rows = 0;
+            Arrays.fill(values, Double.NaN);
+        }
+
+    }
+
+    private final SimulationModel model;
+
+    private final File file;
+
+    private final boolean compressed;
+
+    /**
+     * Aggregation period (sec), 0 to write every step
+     */
+    private final double period;
+
+    private final int window;
+
+    private final double[] thresholds;
+
+    private Aggregator[] aggregators;
+
+    private double periodStart = Double.NaN;
+
+    private final List<String> keys = new ArrayList<String>();
+
+    private BlockingQueue<Block> free;
+
+    private OutputWriter writer;
+
+    private Block block;
+
+    /**
+     * Index of the current row in the block, -1 before the first value
+     */
+    private int row = -1;
+
+    private double rowTime = Double.NaN;
+
+    private boolean closed;
+
+    private final Thread shutdownHook;
+
+    private OutputRecorder(SimulationModel model, File file, boolean compressed, 
+            double period, int window, double[] thresholds)
+    {
+        this.model = model;
+        this.file = file;
+        this.compressed = compressed;
+        this.period = period;
+        this.window = window;
+        this.thresholds = thresholds;
+        shutdownHook = new Thread() {
+            @Override
+            public void run()
+            {
+                close();
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Gets the recorder of the model of a holon
+     * 
+     * @param holon Holon in the model
+     * @return Recorder, or null if the model has no output file
+     * @throws IllegalStateException if the output is aggregated with a
+     *          window of less than one period
+     */
+    public static synchronized OutputRecorder getInstance(Holon holon)
+    {
+        Object model = holon.getSimulationModel();
+        if (recorders.containsKey(model))
+        {
+            WeakReference<OutputRecorder> reference = recorders.get(model);
+            return reference == null ? null : reference.get();
+        }
+        OutputRecorder recorder = null;
+        StateVal fileState = OptionalStates.find(holon, OPT_STATE_OUTPUT_FILE);
+        if (fileState != null)
+        {
+            StateVal thresholdState = OptionalStates.find(holon, OPT_STATE_OUTPUT_THRESHOLDS);
+            double period = OptionalStates.getValue(holon, OPT_STATE_OUTPUT_PERIOD, 0);
+            int window = (int)OptionalStates.getValue(holon, OPT_STATE_OUTPUT_WINDOW, 7);
+            if (period > 0 && window < 1)
+            {
+                String message = OPT_STATE_OUTPUT_WINDOW + " must be at least one period: " + window;
+                holon.getSimulationModel().getLogger().logSevere(message);
+                throw new IllegalStateException(message);
+            }
+            recorder = new OutputRecorder(holon.getSimulationModel(), 
+                    new File((String)((StateGeneric<?>)fileState).value),
+                    OptionalStates.getValue(holon, OPT_STATE_OUTPUT_COMPRESSION, 0) != 0,
+                    period, window,
+                    thresholdState == null ? new double[0] : 
+                        parseThresholds((String)((StateGeneric<?>)thresholdState).value));
+        }
+        recorders.put(model, recorder == null ? null : new WeakReference<OutputRecorder>(recorder));
+        return recorder;
+    }
+
+    /**
+     * Closes the recorder of every model. Called by the launcher when the
+     * model has finished.
+     */
+    public static void closeAll()
+    {
+        List<OutputRecorder> open = new ArrayList<OutputRecorder>();
+        synchronized (OutputRecorder.class)
+        {
+            for (WeakReference<OutputRecorder> reference: recorders.values())
+            {
+                if (reference != null && reference.get() != null)
+                {
+                    open.add(reference.get());
+                }
+            }
+        }
+        for (OutputRecorder recorder: open)
+        {
+            recorder.close();
+        }
+    }
+
+    private static double[] parseThresholds(String list)
+    {
+        String[] items = list.split(",");
+        double[] thresholds = new double[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            thresholds[i] = Double.parseDouble(items[i].trim());
+        }
+        return thresholds;
+    }
+
+    /**
+     * Adds a column to the output. Columns must be registered before the
+     * first value is put.
+     * 
+     * @param holon Holon of the state
+     * @param stateName Name of the state
+     * @return Index of the column
+     */
+    public synchronized int register(Holon holon, String stateName)
+    {
+        if (writer != null)
+        {
+            throw new IllegalStateException("Output columns registered after recording started");
+        }
+        keys.add(holon.getName() + "/" + stateName);
+        return keys.size() - 1;
+    }
+
+    /**
+     * Records the value of a column at the current time
+     * 
+     * @param column Index of the column
+     * @param value Value of the state
+     * @throws IllegalStateException if the writer failed to write a block
+     */
+    public synchronized void put(int column, double value)
+    {
+        if (closed)
+        {
+            return;
+        }
+        double time = model.getTimeKeeper().getCurrentTime();
+        if (time != rowTime)
+        {
+            if (writer == null)
+            {
+                start();
+                if (closed)
+                {
+                    return;
+                }
+            }
+            rowTime = time;
+            if (aggregators == null)
+            {
+                nextRow(time);
+            }
+            else if (!(time >= periodStart && time < periodStart + period))
+            {
+                if (!Double.isNaN(periodStart))
+                {
+                    writeStatistics(periodStart + period, false);
+                }
+                periodStart = Math.floor(time / period) * period;
+            }
+        }
+        if (aggregators == null)
+        {
+            block.values[column * BLOCK_ROWS + row] = value;
+        }
+        else
+        {
+            aggregators[column].add(time, value);
+        }
+    }
+
+    /**
+     * Writes the statistics of the current period in a new row
+     * 
+     * @param endTime End of the period (sec)
+     * @param partial true if the period ends before its full length
+     */
+    private void writeStatistics(double endTime, boolean partial)
+    {
+        nextRow(periodStart);
+        int statistics = aggregators[0].getStatisticCount();
+        for (int c = 0; c < aggregators.length; c++)
+        {
+            aggregators[c].close(endTime, partial, block.values, c * statistics * BLOCK_ROWS + row, BLOCK_ROWS);
+        }
+    }
+
+    private void nextRow(double time)
+    {
+        row++;
+        if (row == BLOCK_ROWS)
+        {
+            block.rows = BLOCK_ROWS;
+            writer.submit(block);
+            IOException failure = writer.getFailure();
+            if (failure != null)
+            {
+                fail(failure);
+            }
+            block = takeFree();
+            row = 0;
+        }
+        block.times[row] = time;
+    }
+
+    /**
+     * Stops recording after a write failure and stops the run
+     * 
+     * @param failure Failure of the writer
+     * @throws IllegalStateException always
+     */
+    private void fail(IOException failure)
+    {
+        String message = "Cannot write output " + file.getPath() + ": " + failure.getMessage();
+        model.getLogger().logSevere(message);
+        closed = true;
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (IllegalStateException e)
+        {
+            // Closed by the hook while the JVM exits
+        }
+        try
+        {
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            // Already reported
+        }
+        throw new IllegalStateException(message, failure);
+    }
+
+    private void start()
+    {
+        String[] columns = keys.toArray(new String[keys.size()]);
+        if (period > 0 && columns.length > 0)
+        {
+            String[] statistics = Aggregator.getStatisticNames(window, thresholds);
+            aggregators = new Aggregator[columns.length];
+            String[] keyStatistics = new String[columns.length * statistics.length];
+            for (int c = 0; c < columns.length; c++)
+            {
+                aggregators[c] = new Aggregator(window, thresholds);
+                for (int s = 0; s < statistics.length; s++)
+                {
+                    keyStatistics[c * statistics.length + s] = columns[c] + "/" + statistics[s];
+                }
+            }
+            columns = keyStatistics;
+        }
+        free = new ArrayBlockingQueue<Block>(RING_BLOCKS);
+        for (int i = 0; i < RING_BLOCKS; i++)
+        {
+            free.add(new Block(columns.length));
+        }
+        try
+        {
+            writer = new OutputWriter(file, columns, compressed, free);
+        }
+        catch (IOException e)
+        {
+            model.getLogger().logSevere("Cannot open output " + file.getPath() + ": " + e.getMessage());
+            closed = true;
+            return;
+        }
+        block = takeFree();
+    }
+
+    private Block takeFree()
+    {
+        Block next;
+        try
+        {
+            next = free.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the output writer", e);
+        }
+        next.clear();
+        return next;
+    }
+
+    /**
+     * Writes the rows recorded so far and closes the file. Later values are
+     * ignored.
+     */
+    public synchronized void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (IllegalStateException e)
+        {
+            // Closed by the hook while the JVM exits
+        }
+        if (writer == null)
+        {
+            return;
+        }
+        if (aggregators != null && !Double.isNaN(periodStart))
+        {
+            writeStatistics(rowTime, true);
+        }
+        block.rows = row + 1;
+        writer.submit(block);
+        try
+        {
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            model.getLogger().logSevere("Cannot write output " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+}
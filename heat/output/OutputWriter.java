@@ -0,0 +1,209 @@
+package edu.montana.cerg.tempsignal.heat.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Background thread that writes blocks of recorded values to a binary
+ * columnar file.
+ * 
+ * <p>Layout: a header (big-endian, <code>java.io.DataOutput</code>) with
+ * magic <code>TSOU</code>, format version, compression flag, number of
+ * columns and the key of each column; then a sequence of blocks, deflated
+ * as one stream if compressed. A block is its number of rows (a
+ * little-endian int), the time of each row and the values of each column
+ * in turn (little-endian doubles). A block of zero rows ends the file, so
+ * a reader can tell a complete file from a truncated one; after a write
+ * failure the blocks that follow are dropped and the end block is not
+ * written, so the file reads as truncated.</p>
+ * 
+ * <p>Blocks are returned to the recorder's free queue once written.</p>
+ * 
+ * @see OutputReader
+ */
+class OutputWriter extends Thread {
+
+    /**
+     * First four bytes of an output file ("TSOU")
+     */
+    static final int MAGIC = 0x54534F55;
+
+    static final int VERSION = 1;
+
+    /**
+     * Block that ends the queue
+     */
+    private static final OutputRecorder.Block END = new OutputRecorder.Block(0);
+
+    private final BlockingQueue<OutputRecorder.Block> full = 
+            new ArrayBlockingQueue<OutputRecorder.Block>(OutputRecorder.RING_BLOCKS + 1);
+
+    private final BlockingQueue<OutputRecorder.Block> free;
+
+    private final OutputStream out;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(8 * OutputRecorder.BLOCK_ROWS)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile IOException failure;
+
+    OutputWriter(File file, String[] keys, boolean compressed, 
+            BlockingQueue<OutputRecorder.Block> free) throws IOException
+    {
+        super("output writer");
+        setDaemon(true);
+        this.free = free;
+
+        OutputStream stream = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+        DataOutputStream header = new DataOutputStream(stream);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeBoolean(compressed);
+        header.writeInt(keys.length);
+        for (String key: keys)
+        {
+            header.writeUTF(key);
+        }
+        header.flush();
+        out = compressed ? 
+                new DeflaterOutputStream(stream, new Deflater(Deflater.BEST_SPEED), 1 << 16) : stream;
+        start();
+    }
+
+    /**
+     * Queues a block for writing
+     */
+    void submit(OutputRecorder.Block block)
+    {
+        try
+        {
+            full.put(block);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the first failure to write
+     * 
+     * @return Failure, or null if every block so far was written
+     */
+    IOException getFailure()
+    {
+        return failure;
+    }
+
+    /**
+     * Writes the queued blocks and the end of the file, then closes it
+     * 
+     * @throws IOException if any block could not be written
+     */
+    void close() throws IOException
+    {
+        submit(END);
+        try
+        {
+            join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                OutputRecorder.Block block = full.take();
+                if (block == END)
+                {
+                    break;
+                }
+                if (failure == null)
+                {
+                    write(block);
+                }
+                free.put(block);
+            }
+            if (failure == null)
+            {
+                buffer.clear();
+                buffer.putInt(0);
+                out.write(buffer.array(), 0, buffer.position());
+            }
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+        catch (InterruptedException e)
+        {
+            failure = new IOException("Output writer interrupted");
+        }
+        finally
+        {
+            try
+            {
+                out.close();
+            }
+            catch (IOException e)
+            {
+                if (failure == null)
+                {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void write(OutputRecorder.Block block)
+    {
+        if (block.rows == 0)
+        {
+            return;
+        }
+        try
+        {
+            buffer.clear();
+            buffer.putInt(block.rows);
+            out.write(buffer.array(), 0, buffer.position());
+            writeColumn(block.times, 0, block.rows);
+            for (int start = 0; start < block.values.length; start += OutputRecorder.BLOCK_ROWS)
+            {
+                writeColumn(block.values, start, block.rows);
+            }
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+    }
+
+    private void writeColumn(double[] values, int start, int count) throws IOException
+    {
+        buffer.clear();
+        buffer.asDoubleBuffer().put(values, start, count);
+        out.write(buffer.array(), 0, 8 * count);
+    }
+
+}
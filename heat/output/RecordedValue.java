@@ -0,0 +1,56 @@
+package edu.montana.cerg.tempsignal.heat.output;
+
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateVal;
+
+/**
+ * Column of the output of a model owned by one recorded dynam. If the
+ * model has no output file, {@link #put(double)} does nothing.
+ * 
+ * @see OutputRecorder
+ */
+public final class RecordedValue {
+
+    private final OutputRecorder recorder;
+
+    private final int column;
+
+    private RecordedValue(OutputRecorder recorder, int column)
+    {
+        this.recorder = recorder;
+        this.column = column;
+    }
+
+    /**
+     * Registers the column of a state; called while dependencies are set
+     * 
+     * @param holon Holon of the state
+     * @param state The recorded state
+     * @return Column of the state
+     */
+    public static RecordedValue create(Holon holon, StateVal state)
+    {
+        OutputRecorder recorder = OutputRecorder.getInstance(holon);
+        if (recorder == null)
+        {
+            return new RecordedValue(null, -1);
+        }
+        return new RecordedValue(recorder, recorder.register(holon, state.getName()));
+    }
+
+    /**
+     * Records the value of the state at the current time
+     * 
+     * @param value Value just calculated
+     * @return The value
+     */
+    public double put(double value)
+    {
+        if (recorder != null)
+        {
+            recorder.put(column, value);
+        }
+        return value;
+    }
+
+}
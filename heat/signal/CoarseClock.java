@@ -0,0 +1,48 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+/**
+ * Clock for dynams that are updated at a coarser interval than the model
+ * timestep and hold their value in between.
+ * 
+ * <p>Windows are aligned to multiples of the interval from time zero. A
+ * dynam is due on its first call in each window (and whenever time moves
+ * backward); with an interval of zero or less it is due on every call.</p>
+ */
+public class CoarseClock {
+
+    private final double interval;
+
+    private double start = Double.NaN;
+    private double end = Double.NaN;
+
+    /**
+     * @param interval Update interval (sec)
+     */
+    public CoarseClock(double interval)
+    {
+        this.interval = interval;
+    }
+
+    /**
+     * Checks if the dynam should be recomputed at a time, and starts the 
+     * window of that time if so
+     * 
+     * @param time Simulation time (sec)
+     * @return true if the held value is out of date
+     */
+    public boolean isDue(double time)
+    {
+        if (interval <= 0)
+        {
+            return true;
+        }
+        if (time >= start && time < end)
+        {
+            return false;
+        }
+        start = Math.floor(time / interval) * interval;
+        end = start + interval;
+        return true;
+    }
+
+}
@@ -0,0 +1,231 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the mean, amplitude and phase of a signal at a few periods,
+ * incrementally and in constant memory.
+ * 
+ * <p>For each period P the analyzer integrates x(t), x(t)&middot;cos(&omega;t)
+ * and x(t)&middot;sin(&omega;t) over windows [kP, (k+1)P) with the trapezoid
+ * rule (samples may be unevenly spaced; the signal is interpolated
+ * linearly at the window edges). At the end of each window it reports the
+ * fit x &asymp; mean + amplitude&middot;sin(&omega;t + phase), with t the
+ * simulation time, so the phase lag between two signals is the difference
+ * of their phases. The first window is reported only if sampling started
+ * at its beginning.</p>
+ * 
+ * <p>The change of the signal across a window (for example the annual
+ * trend within a day) is removed as a linear ramp before the amplitude and
+ * phase are computed, so slower components do not leak into faster
+ * ones.</p>
+ * 
+ * <p>The windows are a recursive block DFT: memory does not depend on the
+ * length of the run, and each sample costs one sine and cosine per
+ * period.</p>
+ */
+public class HarmonicAnalyzer {
+
+    /**
+     * Receives the analysis of each completed window
+     */
+    public interface Listener {
+
+        /**
+         * @param component Index of the period
+         * @param endTime End of the window (sec)
+         * @param mean Mean of the signal over the window
+         * @param amplitude Amplitude of the signal at the period
+         * @param phase Phase of the signal at the period (radians, -&pi; to &pi;)
+         */
+        void periodCompleted(int component, double endTime, double mean, 
+                double amplitude, double phase);
+
+    }
+
+    private final double[] periods;
+
+    private final Listener listener;
+
+    private final double[] windowStart;
+    private final double[] windowStartValue;
+    private final double[] covered;
+    private final double[] sum;
+    private final double[] sumCos;
+    private final double[] sumSin;
+
+    /*
+     * Cosine and sine of the angle at the end of the last accumulated
+     * interval, the start of the next one
+     */
+    private final double[] edgeTime;
+    private final double[] edgeCos;
+    private final double[] edgeSin;
+
+    // Latest results
+    private final double[] mean;
+    private final double[] amplitude;
+    private final double[] phase;
+
+    private double lastTime = Double.NaN;
+    private double lastValue;
+
+    /**
+     * @param periods Periods to track (sec)
+     * @param listener Receiver of the results, or null to only poll them
+     */
+    public HarmonicAnalyzer(double[] periods, Listener listener)
+    {
+        this.periods = periods.clone();
+        this.listener = listener;
+        int n = periods.length;
+        windowStart = new double[n];
+        windowStartValue = new double[n];
+        covered = new double[n];
+        sum = new double[n];
+        sumCos = new double[n];
+        sumSin = new double[n];
+        edgeTime = new double[n];
+        edgeCos = new double[n];
+        edgeSin = new double[n];
+        Arrays.fill(edgeTime, Double.NaN);
+        mean = new double[n];
+        amplitude = new double[n];
+        phase = new double[n];
+        Arrays.fill(mean, Double.NaN);
+        Arrays.fill(amplitude, Double.NaN);
+        Arrays.fill(phase, Double.NaN);
+    }
+
+    /**
+     * Adds a sample; samples at or before the previous time are ignored
+     * 
+     * @param time Simulation time (sec)
+     * @param value Value of the signal
+     */
+    public void addSample(double time, double value)
+    {
+        if (Double.isNaN(lastTime))
+        {
+            for (int p = 0; p < periods.length; p++)
+            {
+                windowStart[p] = Math.floor(time / periods[p]) * periods[p];
+                windowStartValue[p] = value;
+                // A window is complete only if it was sampled from its start
+                covered[p] = time == windowStart[p] ? 0 : Double.NEGATIVE_INFINITY;
+            }
+        }
+        else if (time > lastTime)
+        {
+            for (int p = 0; p < periods.length; p++)
+            {
+                integrate(p, lastTime, lastValue, time, value);
+            }
+        }
+        else
+        {
+            return;
+        }
+        lastTime = time;
+        lastValue = value;
+    }
+
+    private void integrate(int p, double t0, double x0, double t1, double x1)
+    {
+        double windowEnd = windowStart[p] + periods[p];
+        while (t1 >= windowEnd)
+        {
+            // Split at the edge of the window and report it
+            double xEdge = x0 + (x1 - x0) * ((windowEnd - t0) / (t1 - t0));
+            accumulate(p, t0, x0, windowEnd, xEdge);
+            report(p, windowEnd, xEdge);
+            t0 = windowEnd;
+            x0 = xEdge;
+            windowStart[p] = windowEnd;
+            windowStartValue[p] = xEdge;
+            windowEnd += periods[p];
+        }
+        if (t1 > t0)
+        {
+            accumulate(p, t0, x0, t1, x1);
+        }
+    }
+
+    private void accumulate(int p, double t0, double x0, double t1, double x1)
+    {
+        double w = 2 * Math.PI / periods[p];
+        double cos0;
+        double sin0;
+        if (t0 == edgeTime[p])
+        {
+            cos0 = edgeCos[p];
+            sin0 = edgeSin[p];
+        }
+        else
+        {
+            double a0 = w * Math.IEEEremainder(t0, periods[p]);
+            cos0 = Math.cos(a0);
+            sin0 = Math.sin(a0);
+        }
+        double a1 = w * Math.IEEEremainder(t1, periods[p]);
+        double cos1 = Math.cos(a1);
+        double sin1 = Math.sin(a1);
+        double half = 0.5 * (t1 - t0);
+        sum[p] += half * (x0 + x1);
+        sumCos[p] += half * (x0 * cos0 + x1 * cos1);
+        sumSin[p] += half * (x0 * sin0 + x1 * sin1);
+        covered[p] += t1 - t0;
+        edgeTime[p] = t1;
+        edgeCos[p] = cos1;
+        edgeSin[p] = sin1;
+    }
+
+    private void report(int p, double endTime, double endValue)
+    {
+        if (covered[p] >= 0)
+        {
+            // The window starts at a multiple of the period, where the ramp
+            // r(t - start) integrates to 0 against cos and to -rP/w against sin
+            double ramp = (endValue - windowStartValue[p]) / periods[p];
+            double w = 2 * Math.PI / periods[p];
+            double c = 2 * sumCos[p] / periods[p];
+            double s = 2 * (sumSin[p] + ramp * periods[p] / w) / periods[p];
+            mean[p] = sum[p] / periods[p];
+            amplitude[p] = Math.hypot(c, s);
+            phase[p] = Math.atan2(c, s);
+            if (listener != null)
+            {
+                listener.periodCompleted(p, endTime, mean[p], amplitude[p], phase[p]);
+            }
+        }
+        sum[p] = 0;
+        sumCos[p] = 0;
+        sumSin[p] = 0;
+        covered[p] = 0;
+    }
+
+    /**
+     * @return Mean over the last completed window of a period (NaN before the first)
+     */
+    public double getMean(int component)
+    {
+        return mean[component];
+    }
+
+    /**
+     * @return Amplitude over the last completed window of a period (NaN before the first)
+     */
+    public double getAmplitude(int component)
+    {
+        return amplitude[component];
+    }
+
+    /**
+     * @return Phase over the last completed window of a period (radians, NaN before the first)
+     */
+    public double getPhase(int component)
+    {
+        return phase[component];
+    }
+
+}
@@ -0,0 +1,76 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+import edu.montana.cerg.tempsignal.heat.forcing.ForcingCursor;
+
+/**
+ * Sinusoidal forcing as a {@link ForcingCursor}: an average plus half an
+ * amplitude times sin(2&pi;(t - shift)/period + phase), the form of the
+ * <code>sinusoidal</code> and <code>compoundsin</code> boundary dynams.
+ * 
+ * <p>The average and amplitude may themselves be cursors, so the compound
+ * sine (a sub-daily sine whose mean and amplitude follow slower sines) is a
+ * cursor over two other harmonic cursors. Each cursor owns its
+ * {@link HarmonicSignal}, so it is not shared between consumers.</p>
+ */
+public class HarmonicCursor extends ForcingCursor {
+
+    private final ForcingCursor average;
+    private final ForcingCursor amplitude;
+    private final double period;
+    private final double shift;
+    private final double phase;
+    private final HarmonicSignal signal = new HarmonicSignal();
+
+    /**
+     * @param average Average of the signal
+     * @param amplitude Amplitude of the signal (peak to trough)
+     * @param period Period of the signal (sec)
+     * @param shift Time shift of the signal (sec)
+     * @param phase Phase of the signal (radians)
+     */
+    public HarmonicCursor(double average, double amplitude, double period, double shift, double phase)
+    {
+        this(new ConstantCursor(average), new ConstantCursor(amplitude), period, shift, phase);
+    }
+
+    /**
+     * @param average Average of the signal, as a function of time
+     * @param amplitude Amplitude of the signal (peak to trough), as a function of time
+     * @param period Period of the signal (sec)
+     * @param shift Time shift of the signal (sec)
+     * @param phase Phase of the signal (radians)
+     */
+    public HarmonicCursor(ForcingCursor average, ForcingCursor amplitude, double period, double shift, double phase)
+    {
+        this.average = average;
+        this.amplitude = amplitude;
+        this.period = period;
+        this.shift = shift;
+        this.phase = phase;
+    }
+
+    @Override
+    public double getValue(double time)
+    {
+        return average.getValue(time) + 
+                amplitude.getValue(time) / 2 * signal.sin(time, period, shift, phase);
+    }
+
+    private static class ConstantCursor extends ForcingCursor {
+
+        private final double value;
+
+        ConstantCursor(double value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public double getValue(double time)
+        {
+            return value;
+        }
+
+    }
+
+}
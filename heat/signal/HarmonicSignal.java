@@ -0,0 +1,141 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+/**
+ * Generates sin(2&pi;(t - shift)/period + phase) for a clock that advances
+ * by a fixed timestep, using a rotation recurrence instead of evaluating
+ * the sine at every step.
+ *
+ * <p>The phasor (sin, cos) of the current angle is rotated by the constant
+ * angle of one timestep, which costs four multiplies. The phasor is
+ * re-anchored with an exact evaluation:</p>
+ * <ul>
+ * <li>on the first call and whenever period, shift or phase change,</li>
+ * <li>whenever the clock does not advance by the same timestep as the
+ * previous call, within a relative {@link #STEP_TOLERANCE} so that
+ * rounding jitter of non-integer timesteps does not count as a change
+ * (variable steps, restarts, moving back in time),</li>
+ * <li>every {@link #RESYNC_STEPS} steps, which bounds drift to about
+ * {@link #DRIFT_BOUND} of the amplitude.</li>
+ * </ul>
+ *
+ * <p>Calls with an unchanged time return the previous value. Each dynam
+ * owns its generator.</p>
+ */
+public class HarmonicSignal {
+
+    /**
+     * Maximum number of recurrence steps between exact evaluations
+     */
+    public static final int RESYNC_STEPS = 256;
+
+    /**
+     * Bound on the absolute error of the unit phasor between exact evaluations
+     * (a few ulps of rounding per step over {@link #RESYNC_STEPS} steps)
+     */
+    public static final double DRIFT_BOUND = 1e-13;
+
+    /**
+     * Relative difference between timesteps below which the clock is taken
+     * to advance by the same step; differences of a few ulps of the time,
+     * from accumulating a non-integer step, are also accepted. The angle
+     * error this allows adds at most about
+     * 2&pi;&middot;{@link #RESYNC_STEPS}&middot;STEP_TOLERANCE&middot;step/period
+     * to {@link #DRIFT_BOUND} before the next exact evaluation.
+     */
+    public static final double STEP_TOLERANCE = 1e-12;
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    /**
+     * Rounding of the clock time accepted as jitter of the timestep,
+     * relative to the time (a few ulps)
+     */
+    private static final double TIME_JITTER = 4 * Math.ulp(1.0);
+
+    private double period = Double.NaN;
+    private double shift = Double.NaN;
+    private double phase = Double.NaN;
+
+    /**
+     * Time of the previous call (sec)
+     */
+    private double time = Double.NaN;
+
+    /**
+     * Timestep of the rotation (sec)
+     */
+    private double step = Double.NaN;
+
+    private double stepSin;
+    private double stepCos;
+
+    private double sin;
+    private double cos;
+
+    /**
+     * Number of rotations since the last exact evaluation
+     */
+    private int steps;
+
+    /**
+     * Gets sin(2&pi;(time - shift)/period + phase)
+     *
+     * @param time Simulation time (sec)
+     * @param period Period of the signal (sec)
+     * @param shift Time shift of the signal (sec)
+     * @param phase Phase of the signal (radians)
+     * @return Sine of the current angle
+     */
+    public double sin(double time, double period, double shift, double phase)
+    {
+        if (time == this.time && period == this.period && shift == this.shift && phase == this.phase)
+        {
+            return sin;
+        }
+        if (period != this.period || shift != this.shift || phase != this.phase)
+        {
+            this.period = period;
+            this.shift = shift;
+            this.phase = phase;
+            step = Double.NaN;
+            anchor(time);
+            return sin;
+        }
+
+        double dt = time - this.time;
+        if (!(Math.abs(dt - step) <= Math.max(STEP_TOLERANCE * step, TIME_JITTER * Math.abs(time))))
+        {
+            step = dt;
+            double angle = TWO_PI * (dt / period);
+            stepSin = Math.sin(angle);
+            stepCos = Math.cos(angle);
+            anchor(time);
+        }
+        else if (steps >= RESYNC_STEPS)
+        {
+            anchor(time);
+        }
+        else
+        {
+            double s = sin * stepCos + cos * stepSin;
+            cos = cos * stepCos - sin * stepSin;
+            sin = s;
+            this.time = time;
+            steps++;
+        }
+        return sin;
+    }
+
+    /**
+     * Evaluates the phasor exactly at a time
+     */
+    private void anchor(double time)
+    {
+        double angle = TWO_PI * (Math.IEEEremainder(time - shift, period) / period) + phase;
+        sin = Math.sin(angle);
+        cos = Math.cos(angle);
+        this.time = time;
+        steps = 0;
+    }
+
+}
@@ -0,0 +1,177 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+
+import org.neosimulation.neo.framework.holon.Cell;
+import org.neosimulation.neo.framework.holon.Edge;
+import org.neosimulation.neo.framework.holon.Face;
+import org.neosimulation.neo.framework.holon.Holon;
+import org.neosimulation.neo.framework.stateval.StateDouble;
+import org.neosimulation.neo.framework.time.TimeKeeper;
+import org.neosimulation.neo.user.AutoDynamDouble;
+
+import edu.montana.cerg.tempsignal.heat.OptionalStates;
+import edu.montana.cerg.tempsignal.heat.cell.atmosphere.compoundsin.Heat;
+
+/**
+ * Analyzes the temperature of a cell at the carrier and sub periods of the
+ * boundary signal with a {@link HarmonicAnalyzer}, and publishes the
+ * amplitude and phase of the last complete period of each.
+ * 
+ * <p>This dynam controls the carrier amplitude (<code>TempCarrierAmp</code>)
+ * and publishes <code>TempCarrierPhase</code>, <code>TempSubAmp</code> and
+ * <code>TempSubPhase</code> through {@link SignalComponent} dynams. The values
+ * change only at period boundaries and are NaN until the first complete
+ * period, so the model output carries a few numbers per period instead of
+ * the full series needed to compute them offline.</p>
+ * 
+ * <p>The periods are the CarrierPeriod and SubPeriod states of the
+ * boundary that drives the cell: the nearest holon, searching outward from
+ * the cell through its faces and the cells across them, that has a
+ * CarrierPeriod state. That is the <code>channelin</code> face or the
+ * atmosphere cell of a channel cell, or of the channel cell above a
+ * hyporheic cell (the compoundsin and mechanistic boundaries use the same
+ * state names). Without such a boundary the periods are one day and one
+ * year.</p>
+ */
+public abstract class SignalAnalysis extends AutoDynamDouble {
+
+    public static final String REQ_STATE_TEMP = "Temp";
+
+    public static final String STATE_CARRIER_PHASE = "TempCarrierPhase";
+    public static final String STATE_SUB_AMP = "TempSubAmp";
+    public static final String STATE_SUB_PHASE = "TempSubPhase";
+
+    /**
+     * Default carrier period, one day (sec)
+     */
+    public static final double DEFAULT_CARRIER_PERIOD = 86400;
+
+    /**
+     * Default sub period, one year of 365 days (sec)
+     */
+    public static final double DEFAULT_SUB_PERIOD = 365 * 86400.0;
+
+    private static final int CARRIER = 0;
+    private static final int SUB = 1;
+
+    private StateDouble temp;
+    private TimeKeeper timeKeeper;
+    private HarmonicAnalyzer analyzer;
+
+    private SignalComponent carrierPhase;
+    private SignalComponent subAmp;
+    private SignalComponent subPhase;
+
+    @Override
+    public double calculate()
+    {
+        analyzer.addSample(timeKeeper.getCurrentTime(), temp.value);
+        carrierPhase.publish(analyzer.getPhase(CARRIER));
+        subAmp.publish(analyzer.getAmplitude(SUB));
+        subPhase.publish(analyzer.getPhase(SUB));
+        return analyzer.getAmplitude(CARRIER);
+    }
+
+    @Override
+    public double initialize()
+    {
+        carrierPhase.publishInitial(Double.NaN);
+        subAmp.publishInitial(Double.NaN);
+        subPhase.publishInitial(Double.NaN);
+        return Double.NaN;
+    }
+
+    @Override
+    public void setCalcDeps()
+    {
+        timeKeeper = holon.getSimulationModel().getTimeKeeper();
+        temp = (StateDouble)createDependency(REQ_STATE_TEMP);
+        Holon boundary = findBoundary(holon);
+        double carrierPeriod = DEFAULT_CARRIER_PERIOD;
+        double subPeriod = DEFAULT_SUB_PERIOD;
+        if (boundary != null)
+        {
+            carrierPeriod = OptionalStates.getValue(boundary, Heat.REQ_STATE_CARRIER_PERIOD, carrierPeriod);
+            subPeriod = OptionalStates.getValue(boundary, Heat.REQ_STATE_SUB_PERIOD, subPeriod);
+        }
+        analyzer = new HarmonicAnalyzer(new double[] {carrierPeriod, subPeriod}, null);
+    }
+
+    /**
+     * Finds the boundary holon nearest to a cell
+     * 
+     * @param start Analyzed holon
+     * @return Nearest face or cell with a carrier period (the boundary
+     *          faces of a cell before the cells across its edges), or null
+     *          if none is connected to the holon
+     */
+    private static Holon findBoundary(Holon start)
+    {
+        if (!(start instanceof Cell))
+        {
+            return null;
+        }
+        Set<Cell> visited = Collections.newSetFromMap(new IdentityHashMap<Cell, Boolean>());
+        Queue<Cell> cells = new ArrayDeque<Cell>();
+        Cell first = (Cell)start;
+        visited.add(first);
+        cells.add(first);
+        while (!cells.isEmpty())
+        {
+            Cell cell = cells.remove();
+            Face[] faces = cell.getFacesArray();
+            if (faces == null)
+            {
+                continue;
+            }
+            // Boundary faces of the cell come before the cells across its edges
+            for (Face face: faces)
+            {
+                if (OptionalStates.has(face, Heat.REQ_STATE_CARRIER_PERIOD))
+                {
+                    return face;
+                }
+            }
+            for (Face face: faces)
+            {
+                Edge edge = face.getEdge();
+                if (edge == null)
+                {
+                    continue;
+                }
+                for (Cell next: new Cell[] {edge.getFromCell(), edge.getToCell()})
+                {
+                    if (next == null || !visited.add(next))
+                    {
+                        continue;
+                    }
+                    if (OptionalStates.has(next, Heat.REQ_STATE_CARRIER_PERIOD))
+                    {
+                        return next;
+                    }
+                    cells.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void setInitDeps()
+    {
+    }
+
+    @Override
+    public void setRegistrations()
+    {
+        carrierPhase = (SignalComponent)setRegistration(STATE_CARRIER_PHASE);
+        subAmp = (SignalComponent)setRegistration(STATE_SUB_AMP);
+        subPhase = (SignalComponent)setRegistration(STATE_SUB_PHASE);
+    }
+
+}
@@ -0,0 +1,45 @@
+package edu.montana.cerg.tempsignal.heat.signal;
+
+import org.neosimulation.neo.user.ManualDynamDouble;
+
+/**
+ * Controls an amplitude or phase of the temperature signal of a cell,
+ * computed by {@link SignalAnalysis} and published through this dynam.
+ */
+public abstract class SignalComponent extends ManualDynamDouble {
+
+    private double value = Double.NaN;
+
+    void publish(double value)
+    {
+        this.value = value;
+        doUpdate();
+    }
+
+    void publishInitial(double value)
+    {
+        this.value = value;
+        doInitialize();
+    }
+
+    @Override
+    public double calculate()
+    {
+        return value;
+    }
+
+    @Override
+    public double initialize()
+    {
+        return value;
+    }
+
+    /**
+     * No dependencies, the value is computed by {@link SignalAnalysis}
+     */
+    @Override
+    public void setCalcDeps()
+    {
+    }
+
+}